@@ -16,8 +16,13 @@
 
 package com.android.quickstep;
 
+import static android.app.WindowConfiguration.ACTIVITY_TYPE_HOME;
+import static android.app.WindowConfiguration.ACTIVITY_TYPE_STANDARD;
+import static android.app.WindowConfiguration.WINDOWING_MODE_FULLSCREEN;
 import static android.content.Intent.FLAG_ACTIVITY_EXCLUDE_FROM_RECENTS;
+import static android.view.Display.DEFAULT_DISPLAY;
 
+import static com.android.launcher3.config.FeatureFlags.ENABLE_INCREMENTAL_RECENT_TASKS;
 import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
 import static com.android.quickstep.util.SplitScreenUtils.convertShellSplitBoundsToLauncher;
 import static com.android.window.flags.Flags.enableDesktopWindowingMode;
@@ -38,12 +43,14 @@ import com.android.launcher3.util.LooperExecutor;
 import com.android.launcher3.util.SplitConfigurationOptions;
 import com.android.quickstep.util.DesktopTask;
 import com.android.quickstep.util.GroupTask;
+import com.android.quickstep.views.TaskView;
 import com.android.systemui.shared.recents.model.Task;
 import com.android.wm.shell.recents.IRecentTasksListener;
 import com.android.wm.shell.util.GroupedRecentTaskInfo;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
@@ -68,7 +75,17 @@ public class RecentTasksList {
     private boolean mLoadingTasksInBackground;
 
     private TaskLoadResult mResultsBg = INVALID_RESULT;
+    // The last list loaded on the UI thread, kept when the list is invalidated so that task moves
+    // can be applied to it
     private TaskLoadResult mResultsUi = INVALID_RESULT;
+    // Whether mResultsUi has task moves applied which the system did not report yet. The next
+    // recent tasks change is then checked against the system list instead of reloading it.
+    private boolean mHasUnverifiedChanges;
+    private int mIncrementalChangeCount;
+    private int mFullReloadCount;
+    // Number of tasks of each TaskView.Type in the last loaded list, kept when the list is
+    // invalidated as an estimate of the next one
+    private final int[] mLastTaskViewTypeCounts = new int[TaskView.Type.DESKTOP + 1];
 
     private RecentsModel.RunningTasksListener mRunningTasksListener;
     // Tasks are stored in order of least recently launched to most recently launched.
@@ -111,6 +128,9 @@ public class RecentTasksList {
             public void onTaskMovedToFront(ActivityManager.RunningTaskInfo taskInfo) {
                 mMainThreadExecutor.execute(() -> {
                     topTaskTracker.onTaskMovedToFront(taskInfo);
+                    if (ENABLE_INCREMENTAL_RECENT_TASKS.get()) {
+                        RecentTasksList.this.onTaskMovedToFront(taskInfo);
+                    }
                 });
             }
         });
@@ -168,6 +188,7 @@ public class RecentTasksList {
 
         // Kick off task loading in the background
         mLoadingTasksInBackground = true;
+        mFullReloadCount++;
         UI_HELPER_EXECUTOR.execute(() -> {
             if (!mResultsBg.isValidForRequest(requestLoadId, loadKeysOnly)) {
                 mResultsBg = loadTasksInBackground(Integer.MAX_VALUE, requestLoadId, loadKeysOnly);
@@ -175,7 +196,7 @@ public class RecentTasksList {
             TaskLoadResult loadResult = mResultsBg;
             mMainThreadExecutor.execute(() -> {
                 mLoadingTasksInBackground = false;
-                mResultsUi = loadResult;
+                setResultsUi(loadResult);
                 if (callback != null) {
                     // filter the tasks if needed before passing them into the callback
                     ArrayList<GroupTask> result = mResultsUi.stream().filter(filter)
@@ -190,6 +211,31 @@ public class RecentTasksList {
         return requestLoadId;
     }
 
+    @VisibleForTesting
+    synchronized void setResultsUi(TaskLoadResult loadResult) {
+        mResultsUi = loadResult;
+        updateTaskViewTypeCounts(loadResult);
+    }
+
+    private void updateTaskViewTypeCounts(TaskLoadResult loadResult) {
+        Arrays.fill(mLastTaskViewTypeCounts, 0);
+        for (int i = 0; i < loadResult.size(); i++) {
+            int type = loadResult.get(i).taskViewType;
+            if (type >= 0 && type < mLastTaskViewTypeCounts.length) {
+                mLastTaskViewTypeCounts[type]++;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tasks shown with the given type of task view in the last loaded
+     * list of tasks, or 0 if no list was loaded yet. Must be called on the UI thread.
+     */
+    public int getLastTaskCount(@TaskView.Type int taskViewType) {
+        return taskViewType >= 0 && taskViewType < mLastTaskViewTypeCounts.length
+                ? mLastTaskViewTypeCounts[taskViewType] : 0;
+    }
+
     /**
      * @return Whether the provided {@param changeId} is the latest recent tasks list id.
      */
@@ -202,9 +248,118 @@ public class RecentTasksList {
     }
 
     private synchronized void invalidateLoadedTasks() {
+        boolean verifyAppliedChanges = mHasUnverifiedChanges && mResultsUi.mRequestId == mChangeId;
+        mHasUnverifiedChanges = false;
         UI_HELPER_EXECUTOR.execute(() -> mResultsBg = INVALID_RESULT);
-        mResultsUi = INVALID_RESULT;
+        // mResultsUi is not valid for the new change id, but is kept as the last list
         mChangeId++;
+        if (verifyAppliedChanges) {
+            verifyAppliedChanges(mResultsUi, mChangeId);
+        }
+    }
+
+    /**
+     * Loads the task keys for {@param changeId} and makes {@param applied} the list for that
+     * change if it has the same tasks, so that the change does not need a full reload. The change
+     * can not be matched to the applied moves otherwise, for example if a task was also removed,
+     * and the list stays invalid.
+     */
+    private void verifyAppliedChanges(TaskLoadResult applied, int changeId) {
+        UI_HELPER_EXECUTOR.execute(() -> {
+            TaskLoadResult keys = loadTasksInBackground(Integer.MAX_VALUE, changeId,
+                    true /* loadKeysOnly */);
+            mResultsBg = keys;
+            boolean matches = hasSameTasks(applied, keys);
+            mMainThreadExecutor.execute(() -> {
+                synchronized (RecentTasksList.this) {
+                    if (matches && mChangeId == changeId && mResultsUi == applied) {
+                        setResultsUi(copyOf(applied, changeId));
+                    }
+                }
+            });
+        });
+    }
+
+    private static boolean hasSameTasks(List<GroupTask> tasks, List<GroupTask> otherTasks) {
+        if (tasks.size() != otherTasks.size()) {
+            return false;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            GroupTask task = tasks.get(i);
+            GroupTask otherTask = otherTasks.get(i);
+            if (task.taskViewType != otherTask.taskViewType
+                    || task.task1.key.id != otherTask.task1.key.id
+                    || (task.task2 == null) != (otherTask.task2 == null)
+                    || (task.task2 != null && task.task2.key.id != otherTask.task2.key.id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies a task moved to the front to the loaded list, if it is still up to date, so that
+     * the recent tasks change which follows does not need a full reload. Tasks which can not be
+     * placed without the system list, like split or desktop tasks, invalidate the list instead.
+     */
+    @VisibleForTesting
+    synchronized void onTaskMovedToFront(ActivityManager.RunningTaskInfo taskInfo) {
+        int activityType = taskInfo.configuration.windowConfiguration.getActivityType();
+        if (activityType == ACTIVITY_TYPE_HOME) {
+            // Home is not part of the recent tasks
+            return;
+        }
+        if (mResultsUi == INVALID_RESULT || mResultsUi.mRequestId != mChangeId) {
+            // The list changed since it was loaded, it has to be reloaded anyway
+            return;
+        }
+
+        int index = -1;
+        for (int i = 0; i < mResultsUi.size(); i++) {
+            if (mResultsUi.get(i).containsTask(taskInfo.taskId)) {
+                index = i;
+                break;
+            }
+        }
+        boolean isExcluded = taskInfo.baseIntent != null
+                && (taskInfo.baseIntent.getFlags() & FLAG_ACTIVITY_EXCLUDE_FROM_RECENTS) != 0;
+        boolean canApply = activityType == ACTIVITY_TYPE_STANDARD
+                && taskInfo.displayId == DEFAULT_DISPLAY
+                && taskInfo.configuration.windowConfiguration.getWindowingMode()
+                        == WINDOWING_MODE_FULLSCREEN
+                && !taskInfo.isTopActivityTransparent
+                && !isExcluded;
+        if (index >= 0) {
+            canApply &= mResultsUi.get(index).taskViewType == TaskView.Type.SINGLE;
+        } else {
+            // Added tasks are only known to be in the recent tasks if they belong to this user
+            canApply &= taskInfo.userId == Process.myUserHandle().getIdentifier();
+        }
+        if (index >= 0 && index == mResultsUi.size() - 1 && canApply) {
+            // Already the most recent task, the system may not report any change for it
+            return;
+        }
+        if (!canApply) {
+            invalidateLoadedTasks();
+            return;
+        }
+
+        // Tasks are stored from least recent to most recent
+        TaskLoadResult result = copyOf(mResultsUi, mChangeId);
+        if (index >= 0) {
+            result.remove(index);
+        }
+        Task.TaskKey key = new Task.TaskKey(taskInfo);
+        Task task = result.mKeysOnly
+                ? new Task(key)
+                : Task.from(key, taskInfo, mKeyguardManager.isDeviceLocked(key.userId));
+        task.setLastSnapshotData(taskInfo);
+        result.add(new GroupTask(task));
+
+        UI_HELPER_EXECUTOR.execute(() -> mResultsBg = INVALID_RESULT);
+        setResultsUi(result);
+        mHasUnverifiedChanges = true;
+        mIncrementalChangeCount++;
     }
 
     /**
@@ -362,6 +517,12 @@ public class RecentTasksList {
         return new DesktopTask(tasks);
     }
 
+    private static TaskLoadResult copyOf(TaskLoadResult tasks, int requestId) {
+        TaskLoadResult newTasks = new TaskLoadResult(requestId, tasks.mKeysOnly, tasks.size() + 1);
+        newTasks.addAll(tasks);
+        return newTasks;
+    }
+
     private ArrayList<GroupTask> copyOf(ArrayList<GroupTask> tasks) {
         ArrayList<GroupTask> newTasks = new ArrayList<>();
         for (int i = 0; i < tasks.size(); i++) {
@@ -373,6 +534,8 @@ public class RecentTasksList {
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "RecentTasksList:");
         writer.println(prefix + "  mChangeId=" + mChangeId);
+        writer.println(prefix + "  incrementalChanges=" + mIncrementalChangeCount
+                + " fullReloads=" + mFullReloadCount);
         writer.println(prefix + "  mResultsUi=[id=" + mResultsUi.mRequestId + ", tasks=");
         for (GroupTask task : mResultsUi) {
             Task task1 = task.task1;
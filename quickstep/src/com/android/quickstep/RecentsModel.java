@@ -36,6 +36,8 @@ import android.os.UserHandle;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
+import com.android.launcher3.R;
+import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.icons.IconProvider;
 import com.android.launcher3.icons.IconProvider.IconChangeListener;
 import com.android.launcher3.util.Executors.SimpleThreadFactory;
@@ -43,7 +45,9 @@ import com.android.launcher3.util.MainThreadInitializedObject;
 import com.android.launcher3.util.SafeCloseable;
 import com.android.quickstep.recents.data.RecentTasksDataSource;
 import com.android.quickstep.util.GroupTask;
+import com.android.quickstep.util.SharedByteBudget;
 import com.android.quickstep.util.TaskVisualsChangeListener;
+import com.android.quickstep.views.TaskView;
 import com.android.systemui.shared.recents.model.Task;
 import com.android.systemui.shared.recents.model.ThumbnailData;
 import com.android.systemui.shared.system.ActivityManagerWrapper;
@@ -87,17 +91,36 @@ public class RecentsModel implements RecentTasksDataSource, IconChangeListener,
     }
 
     private RecentsModel(Context context, IconProvider iconProvider) {
+        this(context, iconProvider, createSharedBitmapBudget(context));
+    }
+
+    private RecentsModel(Context context, IconProvider iconProvider,
+            @Nullable SharedByteBudget sharedBitmapBudget) {
         this(context,
                 new RecentTasksList(MAIN_EXECUTOR,
                         context.getSystemService(KeyguardManager.class),
                         SystemUiProxy.INSTANCE.get(context),
                         TopTaskTracker.INSTANCE.get(context)),
-                new TaskIconCache(context, RECENTS_MODEL_EXECUTOR, iconProvider),
-                new TaskThumbnailCache(context, RECENTS_MODEL_EXECUTOR),
+                new TaskIconCache(context, RECENTS_MODEL_EXECUTOR, iconProvider,
+                        sharedBitmapBudget),
+                new TaskThumbnailCache(context, RECENTS_MODEL_EXECUTOR, sharedBitmapBudget),
                 iconProvider,
                 TaskStackChangeListeners.getInstance());
     }
 
+    /**
+     * Returns the budget limiting the thumbnails and icons together, when the caches are limited
+     * by size.
+     */
+    @Nullable
+    private static SharedByteBudget createSharedBitmapBudget(Context context) {
+        if (enableGridOnlyOverview() || !FeatureFlags.ENABLE_THUMBNAIL_CACHE_BYTE_BUDGET.get()) {
+            return null;
+        }
+        return new SharedByteBudget(
+                context.getResources().getInteger(R.integer.recentsBitmapBudgetKb) * 1024L);
+    }
+
     @VisibleForTesting
     RecentsModel(Context context, RecentTasksList taskList, TaskIconCache iconCache,
             TaskThumbnailCache thumbnailCache, IconProvider iconProvider,
@@ -163,6 +186,14 @@ public class RecentsModel implements RecentTasksDataSource, IconChangeListener,
         return mTaskList.getTasks(false /* loadKeysOnly */, callback, filter);
     }
 
+    /**
+     * Returns the number of tasks shown with the given type of task view in the last loaded
+     * list of tasks.
+     */
+    public int getLastTaskCount(@TaskView.Type int taskViewType) {
+        return mTaskList.getLastTaskCount(taskViewType);
+    }
+
     /**
      * @return Whether the provided {@param changeId} is the latest recent tasks list id.
      */
@@ -250,6 +281,8 @@ public class RecentsModel implements RecentTasksDataSource, IconChangeListener,
     }
 
     public void onTrimMemory(int level) {
+        mThumbnailCache.onTrimMemory(level);
+        mIconCache.trimToSharedBudget();
         if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
             mThumbnailCache.getHighResLoadingState().setVisible(false);
         }
@@ -297,6 +330,8 @@ public class RecentsModel implements RecentTasksDataSource, IconChangeListener,
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "RecentsModel:");
         mTaskList.dump("  ", writer);
+        mThumbnailCache.dump("  ", writer);
+        mIconCache.dump("  ", writer);
     }
 
     /**
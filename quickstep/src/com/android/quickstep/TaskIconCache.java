@@ -48,12 +48,14 @@ import com.android.launcher3.util.DisplayController.DisplayInfoChangeListener;
 import com.android.launcher3.util.DisplayController.Info;
 import com.android.launcher3.util.FlagOp;
 import com.android.launcher3.util.Preconditions;
+import com.android.quickstep.util.SharedByteBudget;
 import com.android.quickstep.util.TaskKeyLruCache;
 import com.android.quickstep.util.TaskVisualsChangeListener;
 import com.android.systemui.shared.recents.model.Task;
 import com.android.systemui.shared.recents.model.Task.TaskKey;
 import com.android.systemui.shared.system.PackageManagerWrapper;
 
+import java.io.PrintWriter;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
@@ -62,6 +64,22 @@ import java.util.function.Consumer;
  */
 public class TaskIconCache implements DisplayInfoChangeListener {
 
+    // Part of the shared bitmap budget that the icons can always use
+    private static final float SHARED_BUDGET_FRACTION = 0.1f;
+
+    private static final TaskKeyLruCache.Weigher<TaskCacheEntry> ICON_WEIGHER =
+            new TaskKeyLruCache.Weigher<>() {
+                @Override
+                public int getBudgetIndex(TaskCacheEntry value) {
+                    return 0;
+                }
+
+                @Override
+                public long getBytes(TaskCacheEntry value) {
+                    return value.bytes;
+                }
+            };
+
     private final Executor mBgExecutor;
 
     private final Context mContext;
@@ -77,6 +95,14 @@ public class TaskIconCache implements DisplayInfoChangeListener {
     public TaskVisualsChangeListener mTaskVisualsChangeListener = null;
 
     public TaskIconCache(Context context, Executor bgExecutor, IconProvider iconProvider) {
+        this(context, bgExecutor, iconProvider, null /* sharedBudget */);
+    }
+
+    /**
+     * @param sharedBudget the budget limiting the icons together with other recents bitmaps
+     */
+    public TaskIconCache(Context context, Executor bgExecutor, IconProvider iconProvider,
+            @Nullable SharedByteBudget sharedBudget) {
         mContext = context;
         mBgExecutor = bgExecutor;
         mIconProvider = iconProvider;
@@ -84,7 +110,10 @@ public class TaskIconCache implements DisplayInfoChangeListener {
         Resources res = context.getResources();
         int cacheSize = res.getInteger(R.integer.recentsIconCacheSize);
 
-        mIconCache = new TaskKeyLruCache<>(cacheSize);
+        mIconCache = sharedBudget == null
+                ? new TaskKeyLruCache<>(cacheSize)
+                : new TaskKeyLruCache<>(cacheSize, ICON_WEIGHER, new long[] {Long.MAX_VALUE},
+                        sharedBudget.newShare("icons", SHARED_BUDGET_FRACTION));
 
         DisplayController.INSTANCE.get(mContext).addChangeListener(this);
     }
@@ -159,11 +188,13 @@ public class TaskIconCache implements DisplayInfoChangeListener {
         // TODO: Load icon resource (b/143363444)
         Bitmap icon = getIcon(desc, key.userId);
         if (icon != null) {
-            entry.icon = getBitmapInfo(
+            BitmapInfo bitmapInfo = getBitmapInfo(
                     new BitmapDrawable(mContext.getResources(), icon),
                     key.userId,
                     desc.getPrimaryColor(),
-                    false /* isInstantApp */).newIcon(mContext);
+                    false /* isInstantApp */);
+            entry.icon = bitmapInfo.newIcon(mContext);
+            entry.bytes = getBytes(bitmapInfo);
         } else {
             activityInfo = PackageManagerWrapper.getInstance().getActivityInfo(
                     key.getComponent(), key.userId);
@@ -174,7 +205,9 @@ public class TaskIconCache implements DisplayInfoChangeListener {
                         desc.getPrimaryColor(),
                         activityInfo.applicationInfo.isInstantApp());
                 entry.icon = bitmapInfo.newIcon(mContext);
+                entry.bytes = getBytes(bitmapInfo);
             } else {
+                // The default icons are shared, and not accounted for
                 entry.icon = getDefaultIcon(key.userId);
             }
         }
@@ -196,6 +229,10 @@ public class TaskIconCache implements DisplayInfoChangeListener {
         return entry;
     }
 
+    private static long getBytes(BitmapInfo bitmapInfo) {
+        return bitmapInfo.icon == null ? 0 : bitmapInfo.icon.getAllocationByteCount();
+    }
+
     private Bitmap getIcon(ActivityManager.TaskDescription desc, int userId) {
         if (desc.getInMemoryIcon() != null) {
             return desc.getInMemoryIcon();
@@ -274,8 +311,24 @@ public class TaskIconCache implements DisplayInfoChangeListener {
         mIconCache.evictAll();
     }
 
+    /**
+     * Removes icons if the shared bitmap budget is exceeded
+     */
+    void trimToSharedBudget() {
+        mIconCache.trimToSharedBudget();
+    }
+
+    /**
+     * Dumps the state of the cache.
+     */
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "TaskIconCache:");
+        mIconCache.dump(prefix + "  ", writer);
+    }
+
     private static class TaskCacheEntry {
         public Drawable icon;
+        public long bytes;
         public String contentDescription = "";
         public String title = "";
     }
@@ -18,16 +18,21 @@ package com.android.quickstep;
 import static com.android.launcher3.Flags.enableGridOnlyOverview;
 import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.res.Resources;
+import android.util.SparseArray;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.launcher3.R;
+import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.util.CancellableTask;
 import com.android.launcher3.util.Preconditions;
 import com.android.quickstep.task.thumbnail.data.TaskThumbnailDataSource;
+import com.android.quickstep.util.SharedByteBudget;
 import com.android.quickstep.util.TaskKeyByLastActiveTimeCache;
 import com.android.quickstep.util.TaskKeyCache;
 import com.android.quickstep.util.TaskKeyLruCache;
@@ -36,17 +41,50 @@ import com.android.systemui.shared.recents.model.Task.TaskKey;
 import com.android.systemui.shared.recents.model.ThumbnailData;
 import com.android.systemui.shared.system.ActivityManagerWrapper;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 public class TaskThumbnailCache implements TaskThumbnailDataSource {
 
+    private static final int BUDGET_LOW_RES = 0;
+    private static final int BUDGET_HIGH_RES = 1;
+    // Part of the shared bitmap budget that the thumbnails can always use
+    private static final float SHARED_BUDGET_FRACTION = 0.9f;
+
+    private static final TaskKeyLruCache.Weigher<ThumbnailData> THUMBNAIL_WEIGHER =
+            new TaskKeyLruCache.Weigher<>() {
+                @Override
+                public int getBudgetIndex(ThumbnailData value) {
+                    return value.reducedResolution ? BUDGET_LOW_RES : BUDGET_HIGH_RES;
+                }
+
+                @Override
+                public long getBytes(ThumbnailData value) {
+                    return value.getThumbnail() == null
+                            ? 0 : value.getThumbnail().getAllocationByteCount();
+                }
+            };
+
     private final Executor mBgExecutor;
     private final TaskKeyCache<ThumbnailData> mCache;
     private final HighResLoadingState mHighResLoadingState;
     private final boolean mEnableTaskSnapshotPreloading;
     private final Context mContext;
+    @Nullable
+    private final SharedByteBudget mSharedBudget;
+
+    // Pending prefetch requests for the tasks an Overview fling will settle on, by task id
+    private final SparseArray<CancellableTask<ThumbnailData>> mLowResPrefetches =
+            new SparseArray<>();
+    private final SparseArray<CancellableTask<ThumbnailData>> mHighResPrefetches =
+            new SparseArray<>();
+    // Number of tasks visible when a prefetched fling settled, and how many had a thumbnail
+    private int mSettledTaskCount;
+    private int mSettledReadyCount;
 
     public static class HighResLoadingState {
         private boolean mForceHighResThumbnails;
@@ -99,25 +137,61 @@ public class TaskThumbnailCache implements TaskThumbnailDataSource {
     }
 
     public TaskThumbnailCache(Context context, Executor bgExecutor) {
-        this(context, bgExecutor,
-                context.getResources().getInteger(R.integer.recentsThumbnailCacheSize));
+        this(context, bgExecutor, null /* sharedBudget */);
     }
 
-    private TaskThumbnailCache(Context context, Executor bgExecutor, int cacheSize) {
-        this(context, bgExecutor,
-                enableGridOnlyOverview() ? new TaskKeyByLastActiveTimeCache<>(cacheSize)
-                        : new TaskKeyLruCache<>(cacheSize));
+    /**
+     * @param sharedBudget the budget limiting the thumbnails together with other recents bitmaps
+     */
+    public TaskThumbnailCache(Context context, Executor bgExecutor,
+            @Nullable SharedByteBudget sharedBudget) {
+        this(context, bgExecutor, createCache(context.getResources(),
+                context.getResources().getInteger(R.integer.recentsThumbnailCacheSize),
+                sharedBudget), sharedBudget);
+    }
+
+    private static TaskKeyCache<ThumbnailData> createCache(Resources res, int cacheSize,
+            @Nullable SharedByteBudget sharedBudget) {
+        if (enableGridOnlyOverview()) {
+            return new TaskKeyByLastActiveTimeCache<>(cacheSize);
+        } else if (FeatureFlags.ENABLE_THUMBNAIL_CACHE_BYTE_BUDGET.get()) {
+            long[] budgets = new long[2];
+            budgets[BUDGET_LOW_RES] =
+                    res.getInteger(R.integer.recentsThumbnailCacheLowResBudgetKb) * 1024L;
+            budgets[BUDGET_HIGH_RES] =
+                    res.getInteger(R.integer.recentsThumbnailCacheHighResBudgetKb) * 1024L;
+            return new TaskKeyLruCache<>(cacheSize, THUMBNAIL_WEIGHER, budgets,
+                    sharedBudget == null ? null
+                            : sharedBudget.newShare("thumbnails", SHARED_BUDGET_FRACTION));
+        } else {
+            return new TaskKeyLruCache<>(cacheSize);
+        }
     }
 
     @VisibleForTesting
     TaskThumbnailCache(Context context, Executor bgExecutor, TaskKeyCache<ThumbnailData> cache) {
+        this(context, bgExecutor, cache, null /* sharedBudget */);
+    }
+
+    private TaskThumbnailCache(Context context, Executor bgExecutor,
+            TaskKeyCache<ThumbnailData> cache, @Nullable SharedByteBudget sharedBudget) {
         mBgExecutor = bgExecutor;
+        mSharedBudget = sharedBudget;
         mHighResLoadingState = new HighResLoadingState(context);
         mContext = context;
 
         Resources res = context.getResources();
         mEnableTaskSnapshotPreloading = res.getBoolean(R.bool.config_enableTaskSnapshotPreloading);
         mCache = cache;
+        mHighResLoadingState.addCallback(enabled -> {
+            if (enabled) {
+                // Overview is in use again, restore the budget shrunk in onTrimMemory
+                if (mSharedBudget != null) {
+                    mSharedBudget.setScale(1f);
+                }
+                mCache.setBudgetScale(1f);
+            }
+        });
     }
 
     /**
@@ -226,13 +300,141 @@ public class TaskThumbnailCache implements TaskThumbnailDataSource {
         return request;
     }
 
+    /**
+     * Queues the thumbnails of {@param tasks}, which are the tasks a fling will settle on in
+     * priority order. The low-res thumbnails of all the tasks are queued before the high-res
+     * ones, and pending requests for tasks which are not part of {@param tasks} are cancelled.
+     */
+    public void prefetchThumbnails(List<Task> tasks) {
+        Preconditions.assertUIThread();
+        cancelStalePrefetches(mLowResPrefetches, tasks);
+        cancelStalePrefetches(mHighResPrefetches, tasks);
+        if (!mHighResLoadingState.mForceHighResThumbnails) {
+            for (int i = 0; i < tasks.size(); i++) {
+                queuePrefetch(mLowResPrefetches, tasks.get(i), true /* lowResolution */);
+            }
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            queuePrefetch(mHighResPrefetches, tasks.get(i), false /* lowResolution */);
+        }
+    }
+
+    /**
+     * Records whether the thumbnails of {@param tasks}, the tasks visible once a prefetched fling
+     * has settled, were already loaded.
+     */
+    public void onPrefetchedFlingSettled(List<Task> tasks) {
+        Preconditions.assertUIThread();
+        for (int i = 0; i < tasks.size(); i++) {
+            mSettledTaskCount++;
+            if (isThumbnailLoaded(tasks.get(i), true /* lowResolution */)) {
+                mSettledReadyCount++;
+            }
+        }
+    }
+
+    /**
+     * Cancels all the pending prefetch requests.
+     */
+    public void cancelPrefetches() {
+        Preconditions.assertUIThread();
+        cancelStalePrefetches(mLowResPrefetches, List.of());
+        cancelStalePrefetches(mHighResPrefetches, List.of());
+    }
+
+    private void queuePrefetch(SparseArray<CancellableTask<ThumbnailData>> requests, Task task,
+            boolean lowResolution) {
+        int taskId = task.key.id;
+        if (requests.get(taskId) != null || isThumbnailLoaded(task, lowResolution)) {
+            return;
+        }
+        CancellableTask<ThumbnailData> request = updateThumbnailInBackground(task.key,
+                lowResolution, t -> requests.remove(taskId));
+        if (request != null) {
+            requests.put(taskId, request);
+        }
+    }
+
+    private static void cancelStalePrefetches(
+            SparseArray<CancellableTask<ThumbnailData>> requests, List<Task> tasks) {
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            int taskId = requests.keyAt(i);
+            boolean isStale = true;
+            for (int j = 0; j < tasks.size() && isStale; j++) {
+                isStale = tasks.get(j).key.id != taskId;
+            }
+            if (isStale) {
+                requests.valueAt(i).cancel();
+                requests.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * Returns whether a thumbnail of at least the given resolution is already loaded for
+     * {@param task}, either on the task itself or in the cache.
+     */
+    private boolean isThumbnailLoaded(Task task, boolean lowResolution) {
+        if (task.thumbnail != null && task.thumbnail.getThumbnail() != null
+                && (!task.thumbnail.reducedResolution || lowResolution)) {
+            return true;
+        }
+        // Peek so that checking does not change the eviction order or the hit rate
+        ThumbnailData cached = mCache.peek(task.key);
+        return cached != null && cached.getThumbnail() != null
+                && (!cached.reducedResolution || lowResolution);
+    }
+
     /**
      * Clears the cache.
      */
     public void clear() {
+        cancelPrefetches();
         mCache.evictAll();
     }
 
+    /**
+     * Shrinks the cache budget according to the memory pressure while running. The budget is
+     * restored once high resolution thumbnails are loaded again. Other levels, like the UI being
+     * hidden, are handled by {@link RecentsModel#onTrimMemory}.
+     */
+    public void onTrimMemory(int level) {
+        switch (level) {
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL:
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW:
+                setBudgetScale(0.5f);
+                break;
+            case ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE:
+                setBudgetScale(0.75f);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void setBudgetScale(float scale) {
+        if (mSharedBudget != null) {
+            mSharedBudget.setScale(scale);
+        }
+        mCache.setBudgetScale(scale);
+    }
+
+    /**
+     * Dumps the state of the cache.
+     */
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "TaskThumbnailCache:");
+        mCache.dump(prefix + "  ", writer);
+        if (mSharedBudget != null) {
+            mSharedBudget.dump(prefix + "  ", writer);
+        }
+        writer.println(prefix + "  pendingPrefetches: lowRes=" + mLowResPrefetches.size()
+                + " highRes=" + mHighResPrefetches.size());
+        writer.println(prefix + "  thumbnailReadyAtSettle: " + mSettledReadyCount + "/"
+                + mSettledTaskCount + (mSettledTaskCount == 0 ? "" : String.format(Locale.US,
+                " (%.1f%%)", 100f * mSettledReadyCount / mSettledTaskCount)));
+    }
+
     /**
      * Removes the cached thumbnail for the given task.
      */
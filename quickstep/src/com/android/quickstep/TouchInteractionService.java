@@ -18,7 +18,6 @@ package com.android.quickstep;
 import static android.accessibilityservice.AccessibilityService.GLOBAL_ACTION_ACCESSIBILITY_ALL_APPS;
 import static android.view.MotionEvent.ACTION_CANCEL;
 import static android.view.MotionEvent.ACTION_DOWN;
-import static android.view.MotionEvent.ACTION_MOVE;
 import static android.view.MotionEvent.ACTION_POINTER_DOWN;
 import static android.view.MotionEvent.ACTION_POINTER_UP;
 import static android.view.MotionEvent.ACTION_UP;
@@ -30,6 +29,7 @@ import static com.android.launcher3.Launcher.INTENT_ACTION_ALL_APPS_TOGGLE;
 import static com.android.launcher3.LauncherPrefs.backedUpItem;
 import static com.android.launcher3.MotionEventsUtils.isTrackpadMotionEvent;
 import static com.android.launcher3.MotionEventsUtils.isTrackpadMultiFingerSwipe;
+import static com.android.launcher3.config.FeatureFlags.ENABLE_TASK_VIEW_POOL_PREWARM;
 import static com.android.launcher3.config.FeatureFlags.ENABLE_TRACKPAD_GESTURE;
 import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
@@ -40,7 +40,6 @@ import static com.android.quickstep.GestureState.TrackpadGestureType.getTrackpad
 import static com.android.quickstep.InputConsumer.TYPE_CURSOR_HOVER;
 import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.FLAG_USING_OTHER_ACTIVITY_INPUT_CONSUMER;
 import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.MOTION_DOWN;
-import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.MOTION_MOVE;
 import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.MOTION_UP;
 import static com.android.quickstep.util.ActiveGestureErrorDetector.GestureEvent.RECENTS_ANIMATION_START_PENDING;
 import static com.android.systemui.shared.system.ActivityManagerWrapper.CLOSE_SYSTEM_WINDOWS_REASON_RECENTS;
@@ -123,6 +122,8 @@ import com.android.quickstep.util.ActiveGestureLog;
 import com.android.quickstep.util.ActiveGestureLog.CompoundString;
 import com.android.quickstep.util.AssistStateManager;
 import com.android.quickstep.util.AssistUtils;
+import com.android.quickstep.util.GestureEventRing;
+import com.android.quickstep.views.RecentsView;
 import com.android.quickstep.views.RecentsViewContainer;
 import com.android.systemui.shared.recents.IOverviewProxy;
 import com.android.systemui.shared.recents.ISystemUiProxy;
@@ -147,6 +148,7 @@ import com.android.wm.shell.startingsurface.IStartingWindow;
 import java.io.FileDescriptor;
 import java.io.PrintWriter;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -161,6 +163,9 @@ public class TouchInteractionService extends Service {
 
     private static final String TAG = "TouchInteractionService";
 
+    // Dumps only the gesture logs, as a base64 encoded launcher trace file
+    private static final String ARG_GESTURE_LOG_PROTO = "--gesture-log-proto";
+
     private static final ConstantItem<Boolean> HAS_ENABLED_QUICKSTEP_ONCE = backedUpItem(
             "launcher.has_enabled_quickstep_once", false, EncryptionType.ENCRYPTED);
 
@@ -773,6 +778,22 @@ public class TouchInteractionService extends Service {
         cancelEvent.recycle();
     }
 
+    /**
+     * Starts inflating the task views of Overview when a gesture that could become a swipe up
+     * starts, so that they are not inflated during the gesture.
+     */
+    private void prewarmTaskViewPools() {
+        if (!ENABLE_TASK_VIEW_POOL_PREWARM.get()) {
+            return;
+        }
+        RecentsViewContainer container =
+                mOverviewComponentObserver.getActivityInterface().getCreatedContainer();
+        RecentsView<?, ?> recentsView = container == null ? null : container.getOverviewPanel();
+        if (recentsView != null) {
+            recentsView.prewarmTaskViewPools();
+        }
+    }
+
     private void onInputEvent(InputEvent ev) {
         if (!(ev instanceof MotionEvent)) {
             ActiveGestureLog.INSTANCE.addLog(new CompoundString("TIS.onInputEvent: ")
@@ -838,6 +859,7 @@ public class TouchInteractionService extends Service {
                                 ? "one handed mode is not active and event is in swipe up region"
                                 : "isHoverActionWithoutConsumer == true")
                         .append(", creating new input consumer");
+                prewarmTaskViewPools();
                 // Clone the previous gesture state since onConsumerAboutToBeSwitched might trigger
                 // onConsumerInactive and wipe the previous gesture state
                 GestureState prevGestureState = new GestureState(mGestureState);
@@ -897,25 +919,10 @@ public class TouchInteractionService extends Service {
                                     ? MOTION_DOWN
                                     : MOTION_UP);
                     break;
-                case ACTION_MOVE:
-                    ActiveGestureLog.INSTANCE.addLog(
-                            new CompoundString("onMotionEvent: ")
-                                    .append(MotionEvent.actionToString(action))
-                                    .append(",")
-                                    .append(MotionEvent.classificationToString(
-                                            event.getClassification()))
-                                    .append(", pointerCount: ")
-                                    .append(event.getPointerCount()),
-                            MOTION_MOVE);
-                    break;
-                default: {
-                    ActiveGestureLog.INSTANCE.addLog(
-                            new CompoundString("onMotionEvent: ")
-                                    .append(MotionEvent.actionToString(action))
-                                    .append(",")
-                                    .append(MotionEvent.classificationToString(
-                                            event.getClassification())));
-                }
+                default:
+                    // Logged for every event of the gesture, formatted when dumped
+                    ActiveGestureLog.INSTANCE.addEvent(GestureEventRing.Event.MOTION_EVENT,
+                            action, event.getClassification(), event.getPointerCount());
             }
         }
 
@@ -1510,6 +1517,10 @@ public class TouchInteractionService extends Service {
 
     @Override
     protected void dump(FileDescriptor fd, PrintWriter pw, String[] rawArgs) {
+        if (Arrays.asList(rawArgs).contains(ARG_GESTURE_LOG_PROTO)) {
+            ActiveGestureLog.INSTANCE.dumpProto(pw);
+            return;
+        }
         // Dump everything
         if (LockedUserState.get(this).isUserUnlocked()) {
             PluginManagerWrapper.INSTANCE.get(getBaseContext()).dump(pw);
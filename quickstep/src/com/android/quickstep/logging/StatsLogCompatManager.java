@@ -24,6 +24,7 @@ import static androidx.core.util.Preconditions.checkNotNull;
 import static androidx.core.util.Preconditions.checkState;
 
 import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_NON_ACTIONABLE;
+import static com.android.launcher3.config.FeatureFlags.ENABLE_STATS_LOG_QUEUE;
 import static com.android.launcher3.logger.LauncherAtom.ContainerInfo.ContainerCase.ALL_APPS_CONTAINER;
 import static com.android.launcher3.logger.LauncherAtom.ContainerInfo.ContainerCase.EXTENDED_CONTAINERS;
 import static com.android.launcher3.logger.LauncherAtom.ContainerInfo.ContainerCase.FOLDER;
@@ -74,6 +75,7 @@ import com.android.launcher3.util.DisplayController;
 import com.android.launcher3.util.Executors;
 import com.android.launcher3.util.LogConfig;
 import com.android.launcher3.views.ActivityContext;
+import com.android.quickstep.logging.StatsLogQueue.Entry;
 import com.android.systemui.shared.system.InteractionJankMonitorWrapper;
 import com.android.systemui.shared.system.SysUiStatsLog;
 
@@ -366,6 +368,11 @@ public class StatsLogCompatManager extends StatsLogManager {
                         mSliceItem.getSlice().getUri().toString()).build();
             }
 
+            if (ENABLE_STATS_LOG_QUEUE.get()) {
+                logToQueue(event);
+                return;
+            }
+
             if (mSlice != null) {
                 Executors.MODEL_EXECUTOR.execute(
                         () -> {
@@ -395,6 +402,49 @@ public class StatsLogCompatManager extends StatsLogManager {
             }
         }
 
+        /**
+         * Same as the model thread path of {@link #log}, except that the protos are built and
+         * written by the {@link StatsLogQueue}. The model thread is only used to look up the
+         * collection of an item.
+         */
+        private void logToQueue(EventEnum event) {
+            StatsLogQueue queue = StatsLogQueue.getInstance();
+            if (mSlice != null) {
+                queue.add(new Entry(event, this::write, () -> {
+                    LauncherAtom.ItemInfo.Builder itemInfoBuilder =
+                            LauncherAtom.ItemInfo.newBuilder().setSlice(mSlice);
+                    mContainerInfo.ifPresent(itemInfoBuilder::setContainerInfo);
+                    return applyOverwrites(itemInfoBuilder.build());
+                }));
+                return;
+            }
+
+            if (mItemInfo == null) {
+                return;
+            }
+
+            if (mItemInfo.container < 0) {
+                queue.add(new Entry(event, this::write,
+                        () -> applyOverwrites(mItemInfo.buildProto())));
+                return;
+            }
+            // Add the entry now so that it is written before the events logged after it
+            Entry entry = new Entry(event, this::write, null /* protoBuilder */);
+            if (!queue.add(entry)) {
+                return;
+            }
+            LauncherAppState.INSTANCE.executeIfCreated(app ->
+                    app.getModel().enqueueModelUpdateTask((taskController, dataModel, apps) -> {
+                        LauncherAtom.ItemInfo atomInfo = mItemInfo.buildProto(
+                                dataModel.collections.get(mItemInfo.container));
+                        queue.complete(entry, () -> applyOverwrites(atomInfo));
+                    }));
+            // The model drops its update tasks when it is not loaded, in which case the entry is
+            // completed without the collection. This runs after the task as it is posted later.
+            Executors.MODEL_EXECUTOR.execute(() ->
+                    queue.complete(entry, () -> applyOverwrites(mItemInfo.buildProto())));
+        }
+
         @Override
         public void sendToInteractionJankMonitor(EventEnum event, View view) {
             if (!(event instanceof LauncherEvent)) {
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.logging;
+
+import static android.os.Process.THREAD_PRIORITY_BACKGROUND;
+
+import static com.android.launcher3.util.Executors.createAndStartNewLooper;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.launcher3.logger.LauncherAtom;
+import com.android.launcher3.logging.StatsLogManager.EventEnum;
+
+import java.io.PrintWriter;
+import java.util.function.Supplier;
+
+/**
+ * Queue of the stats events waiting to be written, drained in batches on a dedicated thread so
+ * that logging does not delay the model loading and writes on the model thread.
+ *
+ * Events are kept in a bounded ring buffer. When it is full, new events are dropped and counted
+ * instead of growing the queue. Events are written in the order they were added: an event which
+ * needs data from the model is added right away and is only written once {@link #complete} is
+ * called, so that it does not go out of order with the events logged after it. An entry which is
+ * not completed in time is skipped, so that it does not block the queue.
+ */
+public class StatsLogQueue {
+
+    private static final String TAG = "StatsLogQueue";
+
+    private static final int CAPACITY = 256;
+    // Maximum number of events written for a single message on the queue thread
+    private static final int BATCH_SIZE = 32;
+    @VisibleForTesting
+    static final long INCOMPLETE_TIMEOUT_MS = 5000;
+
+    private static StatsLogQueue sInstance;
+
+    private final Handler mHandler;
+    private final Runnable mDrain = this::drain;
+    private final long mIncompleteTimeoutMs;
+    @Nullable
+    private final Sink mSinkOverride;
+
+    // Ring buffer of the events not written yet, guarded by this
+    private final Entry[] mEntries;
+    private int mHead;
+    private int mSize;
+    // Uptime at which the next drain is posted, or Long.MAX_VALUE if it is not posted
+    private long mScheduledDrainTime = Long.MAX_VALUE;
+    private int mDroppedCount;
+    private int mSkippedCount;
+    private long mWrittenCount;
+    private int mMaxSize;
+
+    /**
+     * Returns the queue used by all the loggers, creating its thread on first use
+     */
+    public static synchronized StatsLogQueue getInstance() {
+        if (sInstance == null) {
+            sInstance = new StatsLogQueue(
+                    createAndStartNewLooper("launcher-stats", THREAD_PRIORITY_BACKGROUND),
+                    CAPACITY, INCOMPLETE_TIMEOUT_MS, null /* sinkOverride */);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Creates a queue draining on {@param looper}, which skips the entries not completed within
+     * {@param incompleteTimeoutMs}. When {@param sinkOverride} is set, the events are sent to it
+     * instead of the sink of each entry, which lets tests check the events without writing them
+     * to statsd.
+     */
+    @VisibleForTesting
+    StatsLogQueue(Looper looper, int capacity, long incompleteTimeoutMs,
+            @Nullable Sink sinkOverride) {
+        mHandler = new Handler(looper);
+        mIncompleteTimeoutMs = incompleteTimeoutMs;
+        mEntries = new Entry[capacity];
+        mSinkOverride = sinkOverride;
+    }
+
+    /**
+     * Adds {@param entry} at the end of the queue, returning false if it was dropped because the
+     * queue is full
+     */
+    public boolean add(@NonNull Entry entry) {
+        synchronized (this) {
+            if (mSize == mEntries.length) {
+                mDroppedCount++;
+                if (mDroppedCount == 1 || mDroppedCount % CAPACITY == 0) {
+                    Log.w(TAG, "Queue full, dropped events: " + mDroppedCount);
+                }
+                return false;
+            }
+            entry.mAddTime = SystemClock.uptimeMillis();
+            mEntries[(mHead + mSize) % mEntries.length] = entry;
+            mSize++;
+            mMaxSize = Math.max(mMaxSize, mSize);
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Sets how the proto of an entry added without one is built, allowing it and the entries
+     * after it to be written. Has no effect if the entry already has a proto builder.
+     */
+    public void complete(@NonNull Entry entry, @NonNull Supplier<LauncherAtom.ItemInfo> builder) {
+        synchronized (this) {
+            if (entry.isComplete()) {
+                return;
+            }
+            entry.mProtoBuilder = builder;
+        }
+        scheduleDrain();
+    }
+
+    private synchronized void scheduleDrain() {
+        if (mSize == 0) {
+            return;
+        }
+        Entry head = mEntries[mHead];
+        long drainTime = head.isComplete() ? 0 : head.mAddTime + mIncompleteTimeoutMs;
+        if (mScheduledDrainTime <= drainTime) {
+            return;
+        }
+        mScheduledDrainTime = drainTime;
+        mHandler.removeCallbacks(mDrain);
+        mHandler.postAtTime(mDrain, drainTime);
+    }
+
+    @WorkerThread
+    private void drain() {
+        Entry[] batch = new Entry[BATCH_SIZE];
+        int count = 0;
+        synchronized (this) {
+            mScheduledDrainTime = Long.MAX_VALUE;
+            long now = SystemClock.uptimeMillis();
+            while (count < BATCH_SIZE && mSize > 0) {
+                Entry head = mEntries[mHead];
+                if (!head.isComplete()) {
+                    if (now < head.mAddTime + mIncompleteTimeoutMs) {
+                        break;
+                    }
+                    mSkippedCount++;
+                    Log.w(TAG, "Skipping incomplete event: " + head.mEvent);
+                } else {
+                    batch[count++] = head;
+                }
+                mEntries[mHead] = null;
+                mHead = (mHead + 1) % mEntries.length;
+                mSize--;
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            Entry entry = batch[i];
+            Sink sink = mSinkOverride != null ? mSinkOverride : entry.mSink;
+            sink.write(entry.mEvent, entry.mProtoBuilder.get());
+        }
+
+        synchronized (this) {
+            mWrittenCount += count;
+        }
+        // Continue with the next batch after the other messages of this thread
+        scheduleDrain();
+    }
+
+    public synchronized void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "StatsLogQueue: size=" + mSize + " maxSize=" + mMaxSize
+                + " written=" + mWrittenCount + " dropped=" + mDroppedCount
+                + " skipped=" + mSkippedCount);
+    }
+
+    @VisibleForTesting
+    synchronized int getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    @VisibleForTesting
+    synchronized int getSkippedCount() {
+        return mSkippedCount;
+    }
+
+    /**
+     * Writes the events taken from the queue
+     */
+    public interface Sink {
+
+        @WorkerThread
+        void write(EventEnum event, LauncherAtom.ItemInfo atomInfo);
+    }
+
+    /**
+     * An event waiting in the queue, along with how its proto is built
+     */
+    public static class Entry {
+
+        private final EventEnum mEvent;
+        private final Sink mSink;
+        private volatile Supplier<LauncherAtom.ItemInfo> mProtoBuilder;
+        private long mAddTime;
+
+        /**
+         * Creates an entry written to {@param sink}. {@param protoBuilder} is called on the queue
+         * thread, or it can be set later using {@link #complete} when it is null.
+         */
+        public Entry(@NonNull EventEnum event, @NonNull Sink sink,
+                @Nullable Supplier<LauncherAtom.ItemInfo> protoBuilder) {
+            mEvent = event;
+            mSink = sink;
+            mProtoBuilder = protoBuilder;
+        }
+
+        private boolean isComplete() {
+            return mProtoBuilder != null;
+        }
+    }
+}
@@ -15,14 +15,24 @@
  */
 package com.android.quickstep.util;
 
+import static com.android.launcher3.config.FeatureFlags.ENABLE_GESTURE_EVENT_RING;
+
+import android.os.SystemClock;
+import android.util.Base64;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.android.launcher3.tracing.LauncherTraceEntryProto;
+import com.android.launcher3.tracing.LauncherTraceFileProto;
+import com.android.launcher3.tracing.LauncherTraceProto;
+import com.android.launcher3.tracing.TouchInteractionServiceProto;
 import com.android.launcher3.util.Preconditions;
 
 import java.io.PrintWriter;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
@@ -46,6 +56,7 @@ public class ActiveGestureLog {
     public static final String INTENT_EXTRA_LOG_TRACE_ID = "INTENT_EXTRA_LOG_TRACE_ID";
 
     private final EventLog[] logs;
+    private final GestureEventRing mEventRing = new GestureEventRing();
     private int nextIndex;
     private int mCurrentLogId = 100;
 
@@ -138,6 +149,26 @@ public class ActiveGestureLog {
         lastEventEntries.add(eventEntry);
     }
 
+    /**
+     * Adds an event logged for every touch event of a gesture, see {@link GestureEventRing}.
+     */
+    public void addEvent(@NonNull GestureEventRing.Event event, long arg0, long arg1, long arg2) {
+        addEvent(event, arg0, arg1, arg2, null);
+    }
+
+    /**
+     * Adds an event logged for every touch event of a gesture, see {@link GestureEventRing}.
+     * {@param text} should be a constant so that logging does not allocate.
+     */
+    public void addEvent(@NonNull GestureEventRing.Event event, long arg0, long arg1, long arg2,
+            @Nullable String text) {
+        if (!ENABLE_GESTURE_EVENT_RING.get()) {
+            addLog(new CompoundString(GestureEventRing.format(event, arg0, arg1, arg2, text)));
+            return;
+        }
+        mEventRing.add(mCurrentLogId, event, arg0, arg1, arg2, text);
+    }
+
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "ActiveGestureErrorDetector:");
         for (int i = 0; i < logs.length; i++) {
@@ -151,6 +182,7 @@ public class ActiveGestureLog {
         writer.println(prefix + "ActiveGestureLog history:");
         SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss.SSSZ  ", Locale.US);
         Date date = new Date();
+        List<GestureEventRing.Entry> ringEntries = mEventRing.getEntries();
         for (int i = 0; i < logs.length; i++) {
             EventLog eventLog = logs[(nextIndex + i) % logs.length];
             if (eventLog == null) {
@@ -158,23 +190,71 @@ public class ActiveGestureLog {
             }
 
             writer.println(prefix + "\tLogs for logId: " + eventLog.logId);
-            for (EventEntry eventEntry : eventLog.eventEntries) {
-                if (eventEntry.mCompoundString.mIsNoOp) {
-                    continue;
-                }
-                date.setTime(eventEntry.time);
+            for (GestureEventRing.Entry entry : getEntries(eventLog, ringEntries)) {
+                date.setTime(entry.time());
 
                 StringBuilder msg = new StringBuilder(prefix + "\t\t")
                         .append(sdf.format(date))
-                        .append(eventEntry.mCompoundString);
-                if (eventEntry.duplicateCount > 0) {
-                    msg.append(" & ").append(eventEntry.duplicateCount).append(" similar events");
+                        .append(entry.format());
+                if (entry.duplicateCount() > 0) {
+                    msg.append(" & ").append(entry.duplicateCount()).append(" similar events");
                 }
                 writer.println(msg);
             }
         }
     }
 
+    /**
+     * Writes the logs of the tracked gestures as a base64 encoded {@link LauncherTraceFileProto}.
+     */
+    public void dumpProto(PrintWriter writer) {
+        List<GestureEventRing.Entry> ringEntries = mEventRing.getEntries();
+        List<GestureEventRing.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < logs.length; i++) {
+            EventLog eventLog = logs[(nextIndex + i) % logs.length];
+            if (eventLog != null) {
+                entries.addAll(getEntries(eventLog, ringEntries));
+            }
+        }
+
+        LauncherTraceFileProto traceFile = LauncherTraceFileProto.newBuilder()
+                .setMagicNumber((long) LauncherTraceFileProto.MagicNumber.MAGIC_NUMBER_H_VALUE << 32
+                        | LauncherTraceFileProto.MagicNumber.MAGIC_NUMBER_L_VALUE)
+                .addEntry(LauncherTraceEntryProto.newBuilder()
+                        .setElapsedRealtimeNanos(SystemClock.elapsedRealtimeNanos())
+                        .setLauncher(LauncherTraceProto.newBuilder()
+                                .setTouchInteractionService(
+                                        TouchInteractionServiceProto.newBuilder()
+                                                .setActiveGestureLog(
+                                                        GestureEventRing.toProto(entries)))))
+                .build();
+        writer.println(Base64.encodeToString(traceFile.toByteArray(), Base64.NO_WRAP));
+    }
+
+    /**
+     * Returns the entries of {@param eventLog} along with the events of the ring logged for the
+     * same log ID, in the order they were logged.
+     */
+    private static List<GestureEventRing.Entry> getEntries(
+            EventLog eventLog, List<GestureEventRing.Entry> ringEntries) {
+        List<GestureEventRing.Entry> entries = new ArrayList<>();
+        for (EventEntry eventEntry : eventLog.eventEntries) {
+            if (!eventEntry.mCompoundString.mIsNoOp) {
+                entries.add(new GestureEventRing.Entry(eventLog.logId,
+                        GestureEventRing.Event.TEXT, eventEntry.time, 0, 0, 0,
+                        eventEntry.mCompoundString.toString(), eventEntry.duplicateCount));
+            }
+        }
+        for (GestureEventRing.Entry entry : ringEntries) {
+            if (entry.logId() == eventLog.logId) {
+                entries.add(entry);
+            }
+        }
+        // Stable sort, keeping the order of the events logged at the same time
+        entries.sort(Comparator.comparingLong(GestureEventRing.Entry::time));
+        return entries;
+    }
+
     /**
      * Increments and returns the current log ID. This should be used every time a new log trace
      * is started.
@@ -0,0 +1,232 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import android.view.MotionEvent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.launcher3.tracing.ActiveGestureEventProto;
+import com.android.launcher3.tracing.ActiveGestureLogProto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated ring of the gesture events logged for every touch event, see
+ * {@link ActiveGestureLog#addEvent}.
+ *
+ * Events are stored as an {@link Event}, a time and primitive args in fixed arrays, and are only
+ * formatted when dumped, so that adding one does not allocate. Consecutive identical events are
+ * counted instead of being added again. Writers do not lock: each one claims a slot with an
+ * atomic sequence number, and the readers skip the slots which are written while they are read.
+ */
+public class GestureEventRing {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final int ARGS_PER_EVENT = 3;
+
+    /**
+     * Events which can be added to the ring. The id is used in the proto and must not change.
+     */
+    public enum Event {
+        /** Text formatted when the event was logged, used for the events of the gesture log */
+        TEXT(0, (out, arg0, arg1, arg2, text) -> out.append(text)),
+
+        /** args: action, classification and pointer count of a {@link MotionEvent} */
+        MOTION_EVENT(1, (out, arg0, arg1, arg2, text) -> out.append("onMotionEvent: ")
+                .append(MotionEvent.actionToString((int) arg0))
+                .append(",")
+                .append(MotionEvent.classificationToString((int) arg1))
+                .append(", pointerCount: ")
+                .append(arg2)),
+
+        /**
+         * args: whether the motion is paused, whether pauses are disallowed and whether it would
+         * have been paused otherwise. text: the reason of the change.
+         */
+        MOTION_PAUSE_CHANGED(2, (out, arg0, arg1, arg2, text) -> {
+            out.append("MotionPauseDetector: onMotionPauseChanged triggered; paused=")
+                    .append(arg0 != 0)
+                    .append(", reason=");
+            if (arg1 != 0) {
+                out.append("Disallow pause; otherwise, would have been ")
+                        .append(arg2 != 0)
+                        .append(" due to reason:");
+            }
+            out.append(text);
+        }),
+
+        /** args: whether pauses are disallowed */
+        MOTION_PAUSE_DISALLOWED(3, (out, arg0, arg1, arg2, text) ->
+                out.append("MotionPauseDetector: Set disallowPause=").append(arg0 != 0));
+
+        public final int id;
+        private final Formatter mFormatter;
+
+        Event(int id, Formatter formatter) {
+            this.id = id;
+            mFormatter = formatter;
+        }
+    }
+
+    private final int mCapacity;
+    private final AtomicLong mNextSequence = new AtomicLong();
+    // Sequence number of the event in each slot, or -1 while the slot is written
+    private final AtomicLongArray mSlotSequences;
+    private final int[] mLogIds;
+    private final Event[] mEvents;
+    private final long[] mTimes;
+    private final long[] mArgs;
+    private final String[] mTexts;
+    private final AtomicIntegerArray mDuplicateCounts;
+
+    public GestureEventRing() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    @VisibleForTesting
+    GestureEventRing(int capacity) {
+        mCapacity = capacity;
+        mSlotSequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            mSlotSequences.set(i, -1);
+        }
+        mLogIds = new int[capacity];
+        mEvents = new Event[capacity];
+        mTimes = new long[capacity];
+        mArgs = new long[capacity * ARGS_PER_EVENT];
+        mTexts = new String[capacity];
+        mDuplicateCounts = new AtomicIntegerArray(capacity);
+    }
+
+    /**
+     * Adds an event to the ring, replacing the oldest one when it is full. {@param text} should
+     * be a constant so that logging does not allocate.
+     */
+    public void add(int logId, @NonNull Event event, long arg0, long arg1, long arg2,
+            @Nullable String text) {
+        long last = mNextSequence.get() - 1;
+        if (last >= 0) {
+            int slot = getSlot(last);
+            if (mSlotSequences.get(slot) == last
+                    && mLogIds[slot] == logId
+                    && mEvents[slot] == event
+                    && mArgs[slot * ARGS_PER_EVENT] == arg0
+                    && mArgs[slot * ARGS_PER_EVENT + 1] == arg1
+                    && mArgs[slot * ARGS_PER_EVENT + 2] == arg2
+                    && Objects.equals(mTexts[slot], text)) {
+                mDuplicateCounts.incrementAndGet(slot);
+                return;
+            }
+        }
+
+        long sequence = mNextSequence.getAndIncrement();
+        int slot = getSlot(sequence);
+        mSlotSequences.set(slot, -1);
+        mLogIds[slot] = logId;
+        mEvents[slot] = event;
+        mTimes[slot] = System.currentTimeMillis();
+        mArgs[slot * ARGS_PER_EVENT] = arg0;
+        mArgs[slot * ARGS_PER_EVENT + 1] = arg1;
+        mArgs[slot * ARGS_PER_EVENT + 2] = arg2;
+        mTexts[slot] = text;
+        mDuplicateCounts.set(slot, 0);
+        // Publishes the slot to the readers
+        mSlotSequences.set(slot, sequence);
+    }
+
+    /**
+     * Returns a copy of the events in the ring, from the oldest to the newest
+     */
+    public List<Entry> getEntries() {
+        long end = mNextSequence.get();
+        List<Entry> entries = new ArrayList<>();
+        for (long sequence = Math.max(0, end - mCapacity); sequence < end; sequence++) {
+            int slot = getSlot(sequence);
+            if (mSlotSequences.get(slot) != sequence) {
+                continue;
+            }
+            Entry entry = new Entry(mLogIds[slot], mEvents[slot], mTimes[slot],
+                    mArgs[slot * ARGS_PER_EVENT], mArgs[slot * ARGS_PER_EVENT + 1],
+                    mArgs[slot * ARGS_PER_EVENT + 2], mTexts[slot],
+                    mDuplicateCounts.get(slot));
+            // Skip the slot if it was overwritten while being copied
+            if (mSlotSequences.get(slot) == sequence) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    private int getSlot(long sequence) {
+        return (int) (sequence % mCapacity);
+    }
+
+    /**
+     * Returns the text of an event, as shown in the dump
+     */
+    public static String format(@NonNull Event event, long arg0, long arg1, long arg2,
+            @Nullable String text) {
+        StringBuilder out = new StringBuilder();
+        event.mFormatter.format(out, arg0, arg1, arg2, text);
+        return out.toString();
+    }
+
+    /**
+     * Returns the events of {@param entries} in the format of {@code launcher_trace.proto}
+     */
+    public static ActiveGestureLogProto toProto(List<Entry> entries) {
+        ActiveGestureLogProto.Builder builder = ActiveGestureLogProto.newBuilder();
+        for (Entry entry : entries) {
+            ActiveGestureEventProto.Builder eventBuilder = ActiveGestureEventProto.newBuilder()
+                    .setLogId(entry.logId)
+                    .setEventId(entry.event.id)
+                    .setTimeMillis(entry.time)
+                    .setDuplicateCount(entry.duplicateCount);
+            if (entry.event != Event.TEXT) {
+                eventBuilder.addArg(entry.arg0).addArg(entry.arg1).addArg(entry.arg2);
+            }
+            if (entry.text != null) {
+                eventBuilder.setText(entry.text);
+            }
+            builder.addEvent(eventBuilder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * A copy of an event of the ring
+     */
+    public record Entry(int logId, Event event, long time, long arg0, long arg1, long arg2,
+            @Nullable String text, int duplicateCount) {
+
+        public String format() {
+            return GestureEventRing.format(event, arg0, arg1, arg2, text);
+        }
+    }
+
+    private interface Formatter {
+
+        void format(StringBuilder out, long arg0, long arg1, long arg2, @Nullable String text);
+    }
+}
@@ -27,6 +27,7 @@ import com.android.launcher3.Alarm;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
 import com.android.launcher3.compat.AccessibilityManagerCompat;
+import com.android.quickstep.util.GestureEventRing.Event;
 
 /**
  * Given positions along x- or y-axis, tracks velocity and acceleration and determines when there is
@@ -54,6 +55,22 @@ public class MotionPauseDetector {
      */
     private static final long TEST_HARNESS_TRIGGER_TIMEOUT = 2000;
 
+    // Reasons of the pause changes, constant so that checking for a pause does not allocate
+    private static final String REASON_FORCE_PAUSE = "Force pause timeout";
+    private static final String REASON_DISALLOW_PAUSE = "Set disallowPause=true";
+    private static final String REASON_FAST_SPEED =
+            "Was paused, but started moving at a fast speed";
+    private static final String REASON_CHANGED_DIRECTIONS = "Velocity changed directions";
+    private static final String REASON_SLOW_SPEEDS = "Pause requires back to back slow speeds";
+    private static final String REASON_RAPID_DECELERATION =
+            "Didn't have back to back slow speeds, checking for rapid "
+                    + " deceleration on first pause only";
+    private static final String REASON_MAINTAINED_SLOW_SPEED =
+            "Maintained slow speed for sufficient duration when making"
+                    + " pause harder to trigger";
+    private static final String REASON_HARDER_TO_TRIGGER =
+            "Intentionally making pause harder to trigger";
+
     private final float mSpeedVerySlow;
     private final float mSpeedSlow;
     private final float mSpeedSomewhatFast;
@@ -102,7 +119,7 @@ public class MotionPauseDetector {
                             .append(alarm.getLastSetTimeout())
                             .append("ms");
             addLogs(log);
-            updatePaused(true /* isPaused */, log);
+            updatePaused(true /* isPaused */, REASON_FORCE_PAUSE);
         });
         mMakePauseHarderToTrigger = makePauseHarderToTrigger;
         mVelocityProvider = new SystemVelocityProvider(axis);
@@ -119,14 +136,11 @@ public class MotionPauseDetector {
      * @param disallowPause If true, we will not detect any pauses until this is set to false again.
      */
     public void setDisallowPause(boolean disallowPause) {
-        ActiveGestureLog.CompoundString log =
-                new ActiveGestureLog.CompoundString("Set disallowPause=")
-                        .append(disallowPause);
         if (mDisallowPause != disallowPause) {
-            addLogs(log);
+            addEvent(Event.MOTION_PAUSE_DISALLOWED, disallowPause ? 1 : 0, 0, 0, null);
         }
         mDisallowPause = disallowPause;
-        updatePaused(mIsPaused, log);
+        updatePaused(mIsPaused, REASON_DISALLOW_PAUSE);
     }
 
     /**
@@ -160,30 +174,26 @@ public class MotionPauseDetector {
         float speed = Math.abs(velocity);
         float previousSpeed = Math.abs(prevVelocity);
         boolean isPaused;
-        ActiveGestureLog.CompoundString isPausedReason;
+        String isPausedReason;
         if (mIsPaused) {
             // Continue to be paused until moving at a fast speed.
             isPaused = speed < mSpeedFast || previousSpeed < mSpeedFast;
-            isPausedReason = new ActiveGestureLog.CompoundString(
-                    "Was paused, but started moving at a fast speed");
+            isPausedReason = REASON_FAST_SPEED;
         } else {
             if (velocity < 0 != prevVelocity < 0) {
                 // We're just changing directions, not necessarily stopping.
                 isPaused = false;
-                isPausedReason = new ActiveGestureLog.CompoundString("Velocity changed directions");
+                isPausedReason = REASON_CHANGED_DIRECTIONS;
             } else {
                 isPaused = speed < mSpeedVerySlow && previousSpeed < mSpeedVerySlow;
-                isPausedReason = new ActiveGestureLog.CompoundString(
-                        "Pause requires back to back slow speeds");
+                isPausedReason = REASON_SLOW_SPEEDS;
                 if (!isPaused && !mHasEverBeenPaused) {
                     // We want to be more aggressive about detecting the first pause to ensure it
                     // feels as responsive as possible; getting two very slow speeds back to back
                     // takes too long, so also check for a rapid deceleration.
                     boolean isRapidDeceleration = speed < previousSpeed * RAPID_DECELERATION_FACTOR;
                     isPaused = isRapidDeceleration && speed < mSpeedSomewhatFast;
-                    isPausedReason = new ActiveGestureLog.CompoundString(
-                            "Didn't have back to back slow speeds, checking for rapid ")
-                            .append(" deceleration on first pause only");
+                    isPausedReason = REASON_RAPID_DECELERATION;
                 }
                 if (mMakePauseHarderToTrigger) {
                     if (speed < mSpeedSlow) {
@@ -191,14 +201,11 @@ public class MotionPauseDetector {
                             mSlowStartTime = time;
                         }
                         isPaused = time - mSlowStartTime >= HARDER_TRIGGER_TIMEOUT;
-                        isPausedReason = new ActiveGestureLog.CompoundString(
-                                "Maintained slow speed for sufficient duration when making")
-                                .append(" pause harder to trigger");
+                        isPausedReason = REASON_MAINTAINED_SLOW_SPEED;
                     } else {
                         mSlowStartTime = 0;
                         isPaused = false;
-                        isPausedReason = new ActiveGestureLog.CompoundString(
-                                "Intentionally making pause harder to trigger");
+                        isPausedReason = REASON_HARDER_TO_TRIGGER;
                     }
                 }
             }
@@ -206,21 +213,15 @@ public class MotionPauseDetector {
         updatePaused(isPaused, isPausedReason);
     }
 
-    private void updatePaused(boolean isPaused, ActiveGestureLog.CompoundString reason) {
+    private void updatePaused(boolean isPaused, String reason) {
+        boolean wouldHaveBeenPaused = isPaused;
         if (mDisallowPause) {
-            reason = new ActiveGestureLog.CompoundString(
-                    "Disallow pause; otherwise, would have been ")
-                    .append(isPaused)
-                    .append(" due to reason:")
-                    .append(reason);
             isPaused = false;
         }
         if (mIsPaused != isPaused) {
             mIsPaused = isPaused;
-            addLogs(new ActiveGestureLog.CompoundString("onMotionPauseChanged triggered; paused=")
-                    .append(mIsPaused)
-                    .append(", reason=")
-                    .append(reason));
+            addEvent(Event.MOTION_PAUSE_CHANGED, mIsPaused ? 1 : 0, mDisallowPause ? 1 : 0,
+                    wouldHaveBeenPaused ? 1 : 0, reason);
             boolean isFirstDetectedPause = !mHasEverBeenPaused && mIsPaused;
             if (mIsPaused) {
                 AccessibilityManagerCompat.sendTestProtocolEventToTest(mContext,
@@ -249,6 +250,13 @@ public class MotionPauseDetector {
         ActiveGestureLog.INSTANCE.addLog(logString);
     }
 
+    private void addEvent(Event event, long arg0, long arg1, long arg2, String text) {
+        if (Utilities.isRunningInTestHarness()) {
+            Log.d(TAG, GestureEventRing.format(event, arg0, arg1, arg2, text));
+        }
+        ActiveGestureLog.INSTANCE.addEvent(event, arg0, arg1, arg2, text);
+    }
+
     public void clear() {
         mVelocityProvider.clear();
         mPreviousVelocity = null;
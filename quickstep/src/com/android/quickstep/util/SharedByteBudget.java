@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+
+/**
+ * A byte budget shared by several {@link TaskKeyLruCache}s, so that the bitmaps held by the
+ * recents caches are limited as a whole and not only per cache.
+ *
+ * Every cache accounts its values against its own {@link Share}. When the total is over the
+ * budget, a cache evicts its least recently used values as long as it holds more than its share
+ * of the budget, so that a cache with large values can not evict all the values of another one.
+ */
+public class SharedByteBudget {
+
+    private final long mBaseMaxBytes;
+    private final ArrayList<Share> mShares = new ArrayList<>();
+
+    private long mMaxBytes;
+    private long mBytes;
+    private long mPeakBytes;
+
+    public SharedByteBudget(long maxBytes) {
+        mBaseMaxBytes = maxBytes;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns a new share of this budget, which is guaranteed {@param fraction} of the bytes
+     */
+    public synchronized Share newShare(String name, float fraction) {
+        Share share = new Share(name, fraction);
+        mShares.add(share);
+        return share;
+    }
+
+    /**
+     * Scales the budget by {@param scale} relative to the size it was created with. The caches
+     * evict their values the next time they are trimmed.
+     */
+    public synchronized void setScale(float scale) {
+        mMaxBytes = (long) (mBaseMaxBytes * scale);
+    }
+
+    public synchronized long getBytes() {
+        return mBytes;
+    }
+
+    public synchronized void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "SharedByteBudget: bytes=" + mBytes + " max=" + mMaxBytes
+                + " peak=" + mPeakBytes);
+        for (Share share : mShares) {
+            writer.println(prefix + "  " + share.mName + ": bytes=" + share.mBytes
+                    + " guaranteed=" + (long) (mMaxBytes * share.mFraction));
+        }
+    }
+
+    /**
+     * The part of a {@link SharedByteBudget} used by one cache
+     */
+    public class Share {
+
+        private final String mName;
+        private final float mFraction;
+        private long mBytes;
+
+        private Share(String name, float fraction) {
+            mName = name;
+            mFraction = fraction;
+        }
+
+        /**
+         * Accounts {@param bytes} against the budget, which can be negative when values are
+         * removed
+         */
+        public void add(long bytes) {
+            synchronized (SharedByteBudget.this) {
+                mBytes += bytes;
+                SharedByteBudget.this.mBytes += bytes;
+                mPeakBytes = Math.max(mPeakBytes, SharedByteBudget.this.mBytes);
+            }
+        }
+
+        /**
+         * Returns whether the budget is exceeded and this share holds more than it is guaranteed
+         */
+        public boolean shouldEvict() {
+            synchronized (SharedByteBudget.this) {
+                return SharedByteBudget.this.mBytes > mMaxBytes
+                        && mBytes > (long) (mMaxBytes * mFraction);
+            }
+        }
+    }
+}
@@ -105,6 +105,13 @@ public class TaskKeyByLastActiveTimeCache<V> implements TaskKeyCache<V> {
         }
     }
 
+    @Override
+    public synchronized V peek(Task.TaskKey key) {
+        Entry<V> entry = mMap.get(key.id);
+        return entry != null && entry.mKey.windowingMode == key.windowingMode
+                && entry.mKey.lastActiveTime == key.lastActiveTime ? entry.mValue : null;
+    }
+
     /**
      * Adds an entry to the cache, optionally evicting the last accessed entry excluding the newly
      * added entry
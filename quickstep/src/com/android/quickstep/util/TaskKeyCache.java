@@ -17,6 +17,7 @@ package com.android.quickstep.util;
 
 import com.android.systemui.shared.recents.model.Task;
 
+import java.io.PrintWriter;
 import java.util.function.Predicate;
 
 /**
@@ -46,6 +47,12 @@ public interface TaskKeyCache<V> {
      */
     V getAndInvalidateIfModified(Task.TaskKey key);
 
+    /**
+     * Gets the entry if it is still valid, without counting as an access of the entry or
+     * removing it when it is not valid.
+     */
+    V peek(Task.TaskKey key);
+
     /**
      * Adds an entry to the cache, optionally evicting the last accessed entry.
      */
@@ -62,6 +69,17 @@ public interface TaskKeyCache<V> {
      */
     default void updateCacheSizeAndRemoveExcess(int cacheSize) { }
 
+    /**
+     * Scales the byte budgets of the cache, if it has any, and removes excess entries.
+     */
+    default void setBudgetScale(float scale) { }
+
+    /**
+     * Removes excess entries if the cache is limited by a {@link SharedByteBudget} which is
+     * exceeded.
+     */
+    default void trimToSharedBudget() { }
+
     /**
      * Gets maximum size of the cache.
      */
@@ -72,6 +90,11 @@ public interface TaskKeyCache<V> {
      */
     int getSize();
 
+    /**
+     * Dumps the state of the cache.
+     */
+    default void dump(String prefix, PrintWriter writer) { }
+
     class Entry<V> {
 
         final Task.TaskKey mKey;
@@ -17,22 +17,66 @@ package com.android.quickstep.util;
 
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import com.android.systemui.shared.recents.model.Task.TaskKey;
 
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.function.Predicate;
 
 /**
- * A simple LRU cache for task key entries
+ * A simple LRU cache for task key entries.
+ *
+ * When created with a {@link Weigher}, the cache is additionally limited by the total size of its
+ * values: every value is accounted against one of several byte budgets, and the least recently
+ * used values of a budget are evicted once it is exceeded. The values can also be accounted
+ * against a {@link SharedByteBudget.Share}, to limit the size of several caches together.
  * @param <V> The type of the value
  */
 public class TaskKeyLruCache<V> implements TaskKeyCache<V> {
 
     private final MyLinkedHashMap<V> mMap;
 
+    @Nullable
+    private final Weigher<V> mWeigher;
+    private final long[] mBaseBudgets;
+    private final long[] mBudgets;
+    private final long[] mBytes;
+    @Nullable
+    private final SharedByteBudget.Share mSharedBudget;
+
+    private int mHits;
+    private int mMisses;
+    private int mEvictions;
+
     public TaskKeyLruCache(int maxSize) {
+        this(maxSize, null, new long[0]);
+    }
+
+    /**
+     * @param budgets the maximum number of bytes for each budget index returned by the weigher
+     */
+    public TaskKeyLruCache(int maxSize, @Nullable Weigher<V> weigher, @NonNull long[] budgets) {
+        this(maxSize, weigher, budgets, null);
+    }
+
+    /**
+     * @param budgets the maximum number of bytes for each budget index returned by the weigher
+     * @param sharedBudget the share of a budget also used by other caches, that all values are
+     *                     accounted against
+     */
+    public TaskKeyLruCache(int maxSize, @Nullable Weigher<V> weigher, @NonNull long[] budgets,
+            @Nullable SharedByteBudget.Share sharedBudget) {
         mMap = new MyLinkedHashMap<>(maxSize);
+        mWeigher = weigher;
+        mBaseBudgets = budgets.clone();
+        mBudgets = budgets.clone();
+        mBytes = new long[budgets.length];
+        mSharedBudget = weigher != null ? sharedBudget : null;
     }
 
     /**
@@ -40,43 +84,74 @@ public class TaskKeyLruCache<V> implements TaskKeyCache<V> {
      */
     public synchronized void evictAll() {
         mMap.clear();
+        if (mSharedBudget != null) {
+            long bytes = 0;
+            for (long budgetBytes : mBytes) {
+                bytes += budgetBytes;
+            }
+            mSharedBudget.add(-bytes);
+        }
+        Arrays.fill(mBytes, 0);
     }
 
     /**
      * Removes a particular entry from the cache
      */
     public synchronized void remove(TaskKey key) {
-        mMap.remove(key.id);
+        onRemoved(mMap.remove(key.id));
     }
 
     /**
      * Removes all entries matching keyCheck
      */
     public synchronized void removeAll(Predicate<TaskKey> keyCheck) {
-        mMap.entrySet().removeIf(e -> keyCheck.test(e.getValue().mKey));
+        mMap.entrySet().removeIf(e -> {
+            if (keyCheck.test(e.getValue().mKey)) {
+                onRemoved(e.getValue());
+                return true;
+            }
+            return false;
+        });
     }
 
     /**
      * Gets the entry if it is still valid
      */
     public synchronized V getAndInvalidateIfModified(TaskKey key) {
-        Entry<V> entry = mMap.get(key.id);
+        LruEntry<V> entry = mMap.getAndMoveToEnd(key.id);
 
         if (entry != null && entry.mKey.windowingMode == key.windowingMode
                 && entry.mKey.lastActiveTime == key.lastActiveTime) {
+            mHits++;
             return entry.mValue;
         } else {
+            mMisses++;
             remove(key);
             return null;
         }
     }
 
+    /**
+     * Gets the entry if it is still valid, without moving it in the access order, counting it as
+     * a hit or a miss, or removing it when it is not valid
+     */
+    @Override
+    public synchronized V peek(TaskKey key) {
+        LruEntry<V> entry = mMap.get(key.id);
+        return entry != null && entry.mKey.windowingMode == key.windowingMode
+                && entry.mKey.lastActiveTime == key.lastActiveTime ? entry.mValue : null;
+    }
+
     /**
      * Adds an entry to the cache, optionally evicting the last accessed entry
      */
     public final synchronized void put(TaskKey key, V value) {
         if (key != null && value != null) {
-            mMap.put(key.id, new Entry<>(key, value));
+            LruEntry<V> entry = new LruEntry<>(key, value);
+            onAdded(entry);
+            onRemoved(mMap.remove(key.id));
+            mMap.put(key.id, entry);
+            trimToSize();
         } else {
             Log.e("TaskKeyCache", "Unexpected null key or value: " + key + ", " + value);
         }
@@ -86,12 +161,102 @@ public class TaskKeyLruCache<V> implements TaskKeyCache<V> {
      * Updates the cache entry if it is already present in the cache
      */
     public synchronized void updateIfAlreadyInCache(int taskId, V data) {
-        Entry<V> entry = mMap.get(taskId);
+        LruEntry<V> entry = mMap.getAndMoveToEnd(taskId);
         if (entry != null) {
+            onRemoved(entry);
             entry.mValue = data;
+            onAdded(entry);
+            trimToSize();
         }
     }
 
+    /**
+     * Scales all byte budgets by {@param scale} relative to the budgets the cache was created
+     * with, evicting entries as needed
+     */
+    @Override
+    public synchronized void setBudgetScale(float scale) {
+        for (int i = 0; i < mBudgets.length; i++) {
+            mBudgets[i] = (long) (mBaseBudgets[i] * scale);
+        }
+        trimToSize();
+    }
+
+    @Override
+    public synchronized void dump(String prefix, PrintWriter writer) {
+        int lookups = mHits + mMisses;
+        writer.println(prefix + "TaskKeyLruCache: size=" + mMap.size() + "/" + mMap.mMaxSize
+                + " hits=" + mHits + " misses=" + mMisses + " evictions=" + mEvictions
+                + (lookups == 0 ? "" : " hitRate=" + (100 * mHits / lookups) + "%"));
+        for (int i = 0; i < mBudgets.length; i++) {
+            writer.println(prefix + "  budget[" + i + "]: bytes=" + mBytes[i]
+                    + " max=" + mBudgets[i]);
+        }
+    }
+
+    private void onAdded(LruEntry<V> entry) {
+        if (mWeigher != null) {
+            entry.mBudgetIndex = mWeigher.getBudgetIndex(entry.mValue);
+            entry.mBytes = mWeigher.getBytes(entry.mValue);
+            mBytes[entry.mBudgetIndex] += entry.mBytes;
+            if (mSharedBudget != null) {
+                mSharedBudget.add(entry.mBytes);
+            }
+        }
+    }
+
+    private void onRemoved(@Nullable LruEntry<V> entry) {
+        if (mWeigher != null && entry != null) {
+            mBytes[entry.mBudgetIndex] -= entry.mBytes;
+            if (mSharedBudget != null) {
+                mSharedBudget.add(-entry.mBytes);
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until the entry count and every byte budget are
+     * within their limits, and this cache holds at most its share of an exceeded shared budget
+     */
+    private void trimToSize() {
+        Iterator<LruEntry<V>> eldest = mMap.values().iterator();
+        while (mMap.size() > mMap.mMaxSize && eldest.hasNext()) {
+            LruEntry<V> entry = eldest.next();
+            eldest.remove();
+            onRemoved(entry);
+            mEvictions++;
+        }
+        for (int i = 0; i < mBudgets.length; i++) {
+            Iterator<LruEntry<V>> it = mMap.values().iterator();
+            while (mBytes[i] > mBudgets[i] && it.hasNext()) {
+                LruEntry<V> entry = it.next();
+                if (entry.mBudgetIndex == i) {
+                    it.remove();
+                    onRemoved(entry);
+                    mEvictions++;
+                }
+            }
+        }
+        if (mSharedBudget != null) {
+            Iterator<LruEntry<V>> it = mMap.values().iterator();
+            while (mSharedBudget.shouldEvict() && it.hasNext()) {
+                LruEntry<V> entry = it.next();
+                it.remove();
+                onRemoved(entry);
+                mEvictions++;
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries if the shared budget was shrunk or filled by the
+     * other caches
+     */
+    @Override
+    public synchronized void trimToSharedBudget() {
+        trimToSize();
+    }
+
     @Override
     public int getMaxSize() {
         return mMap.mMaxSize;
@@ -102,18 +267,55 @@ public class TaskKeyLruCache<V> implements TaskKeyCache<V> {
         return mMap.size();
     }
 
-    private static class MyLinkedHashMap<V> extends LinkedHashMap<Integer, Entry<V>> {
+    /**
+     * Computes the size of the cached values
+     */
+    public interface Weigher<V> {
+
+        /**
+         * Returns the index of the byte budget the value is accounted against
+         */
+        int getBudgetIndex(V value);
+
+        /**
+         * Returns the size of the value in bytes
+         */
+        long getBytes(V value);
+    }
+
+    private static class LruEntry<V> extends Entry<V> {
+
+        int mBudgetIndex;
+        long mBytes;
+
+        LruEntry(TaskKey key, V value) {
+            super(key, value);
+        }
+    }
+
+    /**
+     * Map ordered from the least to the most recently used entry. The order is updated explicitly
+     * rather than on every {@link #get}, so that entries can be looked up without using them.
+     */
+    private static class MyLinkedHashMap<V> extends LinkedHashMap<Integer, LruEntry<V>> {
 
         private final int mMaxSize;
 
         MyLinkedHashMap(int maxSize) {
-            super(0, 0.75f, true /* accessOrder */);
+            super(0, 0.75f, false /* accessOrder */);
             mMaxSize = maxSize;
         }
 
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<Integer, TaskKeyLruCache.Entry<V>> eldest) {
-            return size() > mMaxSize;
+        /**
+         * Gets the entry and moves it to the most recently used end
+         */
+        @Nullable
+        LruEntry<V> getAndMoveToEnd(int taskId) {
+            LruEntry<V> entry = remove(taskId);
+            if (entry != null) {
+                put(taskId, entry);
+            }
+            return entry;
         }
     }
 }
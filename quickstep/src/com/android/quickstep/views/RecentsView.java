@@ -38,6 +38,8 @@ import static com.android.launcher3.BaseActivity.STATE_HANDLER_INVISIBILITY_FLAG
 import static com.android.launcher3.Flags.enableAdditionalHomeAnimations;
 import static com.android.launcher3.Flags.enableGridOnlyOverview;
 import static com.android.launcher3.Flags.enableRefactorTaskThumbnail;
+import static com.android.launcher3.config.FeatureFlags.ENABLE_INCREMENTAL_RECENT_TASKS;
+import static com.android.launcher3.config.FeatureFlags.ENABLE_OVERVIEW_THUMBNAIL_PREFETCH;
 import static com.android.launcher3.LauncherAnimUtils.SUCCESS_TRANSITION_PROGRESS;
 import static com.android.launcher3.LauncherAnimUtils.VIEW_ALPHA;
 import static com.android.launcher3.LauncherState.BACKGROUND_APP;
@@ -235,7 +237,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
 
 /**
  * A list of recent tasks.
@@ -520,6 +521,16 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
 
     // Keeps track of the previously known visible tasks for purposes of loading/unloading task data
     private final SparseBooleanArray mHasVisibleTaskData = new SparseBooleanArray();
+    // Range of task view indices that were visible in the last carousel pass of
+    // loadVisibleTaskData, or -1 if the next pass needs to go through all the task views
+    private int mVisibleTaskRangeStart = -1;
+    private int mVisibleTaskRangeEnd = -1;
+    private int mVisibleTaskRangeChangeId = -1;
+
+    // Final scroll of the fling the thumbnails are being prefetched for
+    private static final int NO_PREFETCH_SCROLL = Integer.MIN_VALUE;
+    private int mPrefetchFinalScroll = NO_PREFETCH_SCROLL;
+    private final ArrayList<Task> mPrefetchTasks = new ArrayList<>();
 
     private final InvariantDeviceProfile mIdp;
 
@@ -1176,6 +1187,7 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
             for (int i : taskView.getTaskIds()) {
                 mHasVisibleTaskData.delete(i);
             }
+            invalidateVisibleTaskRange();
             if (child instanceof GroupedTaskView) {
                 mGroupedTaskViewPool.recycle((GroupedTaskView) taskView);
             } else if (child instanceof DesktopTaskView) {
@@ -1196,6 +1208,8 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
         child.setLayoutDirection(mIsRtl ? View.LAYOUT_DIRECTION_LTR : View.LAYOUT_DIRECTION_RTL);
         mActionsView.updateHiddenFlags(HIDDEN_NO_TASKS, false);
         updateEmptyMessage();
+        // The indices of the task views after this one have changed
+        invalidateVisibleTaskRange();
     }
 
     @Override
@@ -1478,6 +1492,11 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
             // its thumbnail
             mTmpRunningTasks = null;
             mSplitBoundsConfig = null;
+            if (mPrefetchFinalScroll != NO_PREFETCH_SCROLL) {
+                mPrefetchFinalScroll = NO_PREFETCH_SCROLL;
+                mPrefetchTasks.clear();
+                mModel.getThumbnailCache().cancelPrefetches();
+            }
             mTaskOverlayFactory.clearAllActiveState();
         }
         updateLocusId();
@@ -1766,9 +1785,6 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
             currentTaskIds = new int[0];
         }
 
-        // Unload existing visible task data
-        unloadVisibleTaskData(TaskView.FLAG_UPDATE_ALL);
-
         TaskView ignoreResetTaskView =
                 mIgnoreResetTaskId == INVALID_TASK_ID
                         ? null : getTaskViewByTaskId(mIgnoreResetTaskId);
@@ -1786,66 +1802,11 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
         // the new set of views are added
         int previousCurrentPage = mCurrentPage;
         int previousFocusedPage = indexOfChild(getFocusedChild());
-        removeAllViews();
 
-        // If we are entering Overview as a result of initiating a split from somewhere else
-        // (e.g. split from Home), we need to make sure the staged app is not drawn as a thumbnail.
-        int stagedTaskIdToBeRemoved;
-        if (isSplitSelectionActive()) {
-            stagedTaskIdToBeRemoved = mSplitSelectStateController.getInitialTaskId();
-            updateCurrentTaskActionsVisibility();
-        } else {
-            stagedTaskIdToBeRemoved = INVALID_TASK_ID;
-        }
         // update the map of instance counts
         mFilterState.updateInstanceCountMap(taskGroups);
-
-        // Clear out desktop view if it is set
-        mDesktopTaskView = null;
-
-        // Add views as children based on whether it's grouped or single task. Looping through
-        // taskGroups backwards populates the thumbnail grid from least recent to most recent.
-        for (int i = taskGroups.size() - 1; i >= 0; i--) {
-            GroupTask groupTask = taskGroups.get(i);
-            boolean isRemovalNeeded = stagedTaskIdToBeRemoved != INVALID_TASK_ID
-                    && groupTask.containsTask(stagedTaskIdToBeRemoved);
-
-            if (isRemovalNeeded && !groupTask.hasMultipleTasks()) {
-                // If the task we need to remove is not part of a pair, avoiding creating the
-                // TaskView.
-                continue;
-            }
-
-            // If we need to remove half of a pair of tasks, force a TaskView with Type.SINGLE
-            // to be a temporary container for the remaining task.
-            TaskView taskView = getTaskViewFromPool(
-                    isRemovalNeeded ? TaskView.Type.SINGLE : groupTask.taskViewType);
-            if (taskView instanceof GroupedTaskView) {
-                boolean firstTaskIsLeftTopTask =
-                        groupTask.mSplitBounds.leftTopTaskId == groupTask.task1.key.id;
-                Task leftTopTask = firstTaskIsLeftTopTask ? groupTask.task1 : groupTask.task2;
-                Task rightBottomTask = firstTaskIsLeftTopTask ? groupTask.task2 : groupTask.task1;
-                ((GroupedTaskView) taskView).bind(leftTopTask, rightBottomTask, mOrientationState,
-                        mTaskOverlayFactory, groupTask.mSplitBounds);
-            } else if (taskView instanceof DesktopTaskView) {
-                ((DesktopTaskView) taskView).bind(((DesktopTask) groupTask).tasks,
-                        mOrientationState, mTaskOverlayFactory);
-                mDesktopTaskView = (DesktopTaskView) taskView;
-            } else {
-                Task task = groupTask.task1.key.id == stagedTaskIdToBeRemoved ? groupTask.task2
-                        : groupTask.task1;
-                taskView.bind(task, mOrientationState, mTaskOverlayFactory);
-            }
-            addView(taskView);
-
-            // enables instance filtering if the feature flag for it is on
-            if (FeatureFlags.ENABLE_MULTI_INSTANCE.get()) {
-                taskView.setUpShowAllInstancesListener();
-            }
-        }
-
-        if (!taskGroups.isEmpty()) {
-            addView(mClearAllButton);
+        if (!updateTaskViewsInPlace(taskGroups)) {
+            rebindTaskViews(taskGroups);
         }
 
         // Keep same previous focused task
@@ -1929,6 +1890,155 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
         }
     }
 
+    /**
+     * Removes all the task views and binds new ones to {@param taskGroups}.
+     */
+    private void rebindTaskViews(List<GroupTask> taskGroups) {
+        // Unload existing visible task data
+        unloadVisibleTaskData(TaskView.FLAG_UPDATE_ALL);
+        removeAllViews();
+
+        // If we are entering Overview as a result of initiating a split from somewhere else
+        // (e.g. split from Home), we need to make sure the staged app is not drawn as a thumbnail.
+        int stagedTaskIdToBeRemoved;
+        if (isSplitSelectionActive()) {
+            stagedTaskIdToBeRemoved = mSplitSelectStateController.getInitialTaskId();
+            updateCurrentTaskActionsVisibility();
+        } else {
+            stagedTaskIdToBeRemoved = INVALID_TASK_ID;
+        }
+
+        // Clear out desktop view if it is set
+        mDesktopTaskView = null;
+
+        // Add views as children based on whether it's grouped or single task. Looping through
+        // taskGroups backwards populates the thumbnail grid from least recent to most recent.
+        for (int i = taskGroups.size() - 1; i >= 0; i--) {
+            GroupTask groupTask = taskGroups.get(i);
+            boolean isRemovalNeeded = stagedTaskIdToBeRemoved != INVALID_TASK_ID
+                    && groupTask.containsTask(stagedTaskIdToBeRemoved);
+
+            if (isRemovalNeeded && !groupTask.hasMultipleTasks()) {
+                // If the task we need to remove is not part of a pair, avoiding creating the
+                // TaskView.
+                continue;
+            }
+
+            // If we need to remove half of a pair of tasks, force a TaskView with Type.SINGLE
+            // to be a temporary container for the remaining task.
+            TaskView taskView = getTaskViewFromPool(
+                    isRemovalNeeded ? TaskView.Type.SINGLE : groupTask.taskViewType);
+            bindTaskView(taskView, groupTask, stagedTaskIdToBeRemoved);
+            addView(taskView);
+
+            // enables instance filtering if the feature flag for it is on
+            if (FeatureFlags.ENABLE_MULTI_INSTANCE.get()) {
+                taskView.setUpShowAllInstancesListener();
+            }
+        }
+
+        if (!taskGroups.isEmpty()) {
+            addView(mClearAllButton);
+        }
+    }
+
+    private void bindTaskView(TaskView taskView, GroupTask groupTask,
+            int stagedTaskIdToBeRemoved) {
+        if (taskView instanceof GroupedTaskView) {
+            boolean firstTaskIsLeftTopTask =
+                    groupTask.mSplitBounds.leftTopTaskId == groupTask.task1.key.id;
+            Task leftTopTask = firstTaskIsLeftTopTask ? groupTask.task1 : groupTask.task2;
+            Task rightBottomTask = firstTaskIsLeftTopTask ? groupTask.task2 : groupTask.task1;
+            ((GroupedTaskView) taskView).bind(leftTopTask, rightBottomTask, mOrientationState,
+                    mTaskOverlayFactory, groupTask.mSplitBounds);
+        } else if (taskView instanceof DesktopTaskView) {
+            ((DesktopTaskView) taskView).bind(((DesktopTask) groupTask).tasks,
+                    mOrientationState, mTaskOverlayFactory);
+            mDesktopTaskView = (DesktopTaskView) taskView;
+        } else {
+            Task task = groupTask.task1.key.id == stagedTaskIdToBeRemoved ? groupTask.task2
+                    : groupTask.task1;
+            taskView.bind(task, mOrientationState, mTaskOverlayFactory);
+        }
+    }
+
+    /**
+     * Updates the attached task views to {@param taskGroups} when every group is already shown by
+     * a task view of the same type, which is the case when the tasks were only reordered or their
+     * data changed. Moved task views are re-added at their new index and only the ones whose
+     * tasks changed are bound again, so that the others keep their loaded thumbnails and icons.
+     *
+     * @return false if the task views need to be rebound instead
+     */
+    private boolean updateTaskViewsInPlace(List<GroupTask> taskGroups) {
+        if (!ENABLE_INCREMENTAL_RECENT_TASKS.get() || isSplitSelectionActive()
+                || mSplitHiddenTaskView != null || getTaskViewCount() != taskGroups.size()
+                || indexOfChild(mClearAllButton) != taskGroups.size()) {
+            return false;
+        }
+        for (int i = 0; i < taskGroups.size(); i++) {
+            GroupTask groupTask = taskGroups.get(i);
+            TaskView taskView = getTaskViewByTaskId(groupTask.task1.key.id);
+            if (taskView == null || getTaskViewType(taskView) != groupTask.taskViewType) {
+                return false;
+            }
+            List<Task> tasks = groupTask.getTasks();
+            if (taskView.getTaskIds().length != tasks.size()) {
+                return false;
+            }
+            for (int j = 0; j < tasks.size(); j++) {
+                if (!taskView.containsTaskId(tasks.get(j).key.id)) {
+                    return false;
+                }
+            }
+        }
+
+        // Looping through taskGroups backwards places the task views from most recent to least
+        // recent, like when they are bound
+        for (int i = taskGroups.size() - 1, index = 0; i >= 0; i--, index++) {
+            GroupTask groupTask = taskGroups.get(i);
+            TaskView taskView = getTaskViewByTaskId(groupTask.task1.key.id);
+            if (indexOfChild(taskView) != index) {
+                mMovingTaskView = taskView;
+                removeView(taskView);
+                mMovingTaskView = null;
+                taskView.resetPersistentViewTransforms();
+                addView(taskView, index);
+            }
+            if (groupTask.taskViewType != TaskView.Type.SINGLE
+                    || !isSameTaskData(taskView.getFirstTask(), groupTask.task1)) {
+                boolean hasVisibleTaskData = false;
+                for (int taskId : taskView.getTaskIds()) {
+                    hasVisibleTaskData |= mHasVisibleTaskData.get(taskId);
+                    mHasVisibleTaskData.delete(taskId);
+                }
+                if (hasVisibleTaskData) {
+                    taskView.onTaskListVisibilityChanged(false /* visible */,
+                            TaskView.FLAG_UPDATE_ALL);
+                }
+                bindTaskView(taskView, groupTask, INVALID_TASK_ID);
+            }
+        }
+        invalidateVisibleTaskRange();
+        return true;
+    }
+
+    @TaskView.Type
+    private static int getTaskViewType(TaskView taskView) {
+        if (taskView instanceof GroupedTaskView) {
+            return TaskView.Type.GROUPED;
+        } else if (taskView instanceof DesktopTaskView) {
+            return TaskView.Type.DESKTOP;
+        }
+        return TaskView.Type.SINGLE;
+    }
+
+    private static boolean isSameTaskData(Task boundTask, Task task) {
+        return boundTask.key.lastActiveTime == task.key.lastActiveTime
+                && boundTask.isLocked == task.isLocked
+                && Objects.equals(boundTask.taskDescription, task.taskDescription);
+    }
+
     private boolean isModal() {
         return mTaskModalness > 0;
     }
@@ -2270,10 +2380,15 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
             if (scrolling) {
                 // Check if we are flinging quickly to disable high res thumbnail loading
                 isFlingingFast = mScroller.getCurrVelocity() > mFastFlingVelocity;
+                if (isFlingingFast || mPrefetchFinalScroll != NO_PREFETCH_SCROLL) {
+                    updateThumbnailPrefetch();
+                }
             }
 
             // After scrolling, update the visible task's data
             loadVisibleTaskData(TaskView.FLAG_UPDATE_ALL);
+        } else if (mPrefetchFinalScroll != NO_PREFETCH_SCROLL) {
+            onPrefetchedFlingSettled();
         }
 
         // Update ActionsView's visibility when scroll changes.
@@ -2284,6 +2399,70 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
         return scrolling;
     }
 
+    /**
+     * Prefetches the thumbnails of the tasks the current fling will settle on, while high res
+     * loading is disabled and before the visible task data is loaded at the end of the fling.
+     */
+    private void updateThumbnailPrefetch() {
+        if (!ENABLE_OVERVIEW_THUMBNAIL_PREFETCH.get()) {
+            return;
+        }
+        int finalScroll = getPagedOrientationHandler().getPrimaryValue(mScroller.getFinalX(),
+                mScroller.getFinalY());
+        if (finalScroll == mPrefetchFinalScroll) {
+            return;
+        }
+        mPrefetchFinalScroll = finalScroll;
+        getTasksVisibleAtScroll(finalScroll, mPrefetchTasks);
+        mModel.getThumbnailCache().prefetchThumbnails(mPrefetchTasks);
+    }
+
+    private void onPrefetchedFlingSettled() {
+        getTasksVisibleAtScroll(getPagedOrientationHandler().getPrimaryScroll(this),
+                mPrefetchTasks);
+        mModel.getThumbnailCache().onPrefetchedFlingSettled(mPrefetchTasks);
+        mPrefetchTasks.clear();
+        mPrefetchFinalScroll = NO_PREFETCH_SCROLL;
+    }
+
+    /**
+     * Fills {@param outTasks} with the tasks which are on screen at the given scroll, ordered
+     * by their loading priority.
+     */
+    private void getTasksVisibleAtScroll(int scroll, ArrayList<Task> outTasks) {
+        outTasks.clear();
+        int taskViewCount = getTaskViewCount();
+        if (showAsGrid()) {
+            int pageOrientedSize = getPagedOrientationHandler().getMeasuredSize(this);
+            for (int i = 0; i < taskViewCount; i++) {
+                TaskView taskView = requireTaskViewAt(i);
+                if (isTaskViewWithinBounds(taskView, scroll, scroll + pageOrientedSize)) {
+                    addTasks(taskView, outTasks);
+                }
+            }
+        } else {
+            // The page the scroll settles on first, then the ones peeking on each side
+            int page = getDestinationPage(scroll);
+            if (page < 0 || page >= taskViewCount) {
+                return;
+            }
+            addTasks(requireTaskViewAt(page), outTasks);
+            if (page > 0) {
+                addTasks(requireTaskViewAt(page - 1), outTasks);
+            }
+            if (page < taskViewCount - 1) {
+                addTasks(requireTaskViewAt(page + 1), outTasks);
+            }
+        }
+    }
+
+    private static void addTasks(TaskView taskView, ArrayList<Task> outTasks) {
+        List<TaskContainer> containers = taskView.getTaskContainers();
+        for (int i = 0; i < containers.size(); i++) {
+            outTasks.add(containers.get(i).getTask());
+        }
+    }
+
     private void updateActionsViewFocusedScroll() {
         if (showAsGrid()) {
             float actionsViewAlphaValue = isFocusedTaskInExpectedScrollPosition() ? 1 : 0;
@@ -2350,6 +2529,9 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
     /**
      * Iterates through all the tasks, and loads the associated task data for newly visible tasks,
      * and unloads the associated task data for tasks that are no longer visible.
+     *
+     * This runs for every scroll, so it does not allocate. In the carousel, only the task views
+     * entering or leaving the visible range since the previous call are visited.
      */
     public void loadVisibleTaskData(@TaskView.TaskDataChanges int dataChanges) {
         boolean hasLeftOverview = !mOverviewStateEnabled && mScroller.isFinished();
@@ -2359,11 +2541,17 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
             return;
         }
 
+        int taskViewCount = getTaskViewCount();
         int lower = 0;
         int upper = 0;
         int visibleStart = 0;
         int visibleEnd = 0;
-        if (showAsGrid()) {
+        int firstIndex = 0;
+        int lastIndex = taskViewCount - 1;
+        boolean showAsGrid = showAsGrid();
+        // The repository needs all the visible tasks, not only the ones that changed
+        boolean updateVisibleTaskIds = enableRefactorTaskThumbnail();
+        if (showAsGrid) {
             int screenStart = getPagedOrientationHandler().getPrimaryScroll(this);
             int pageOrientedSize = getPagedOrientationHandler().getMeasuredSize(this);
             // For GRID_ONLY_OVERVIEW, use +/- 1 task column as visible area for preloading
@@ -2372,78 +2560,102 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
                     + getPageSpacing() : pageOrientedSize / 2;
             visibleStart = screenStart - extraWidth;
             visibleEnd = screenStart + pageOrientedSize + extraWidth;
+            // The grid position of a task does not follow its index, so check all of them
+            invalidateVisibleTaskRange();
         } else {
             int centerPageIndex = getPageNearestToCenterOfScreen();
             int numChildren = getChildCount();
             lower = Math.max(0, centerPageIndex - 2);
             upper = Math.min(centerPageIndex + 2, numChildren - 1);
+            if (!updateVisibleTaskIds && mVisibleTaskRangeStart >= 0
+                    && mVisibleTaskRangeChangeId == mTaskListChangeId) {
+                // Task views outside of both the previous and the new range were not visible
+                // and still are not, so they can be skipped
+                firstIndex = Math.min(lower, mVisibleTaskRangeStart);
+                lastIndex = Math.min(Math.max(upper, mVisibleTaskRangeEnd), taskViewCount - 1);
+            }
+            mVisibleTaskRangeStart = lower;
+            mVisibleTaskRangeEnd = upper;
+            mVisibleTaskRangeChangeId = mTaskListChangeId;
         }
 
-        List<Integer> visibleTaskIds = new ArrayList<>();
+        List<Integer> visibleTaskIds = updateVisibleTaskIds ? new ArrayList<>() : null;
 
         // Update the task data for the in/visible children
-        for (int i = 0; i < getTaskViewCount(); i++) {
+        for (int i = firstIndex; i <= lastIndex; i++) {
             TaskView taskView = requireTaskViewAt(i);
             List<TaskContainer> containers = taskView.getTaskContainers();
             if (containers.isEmpty()) {
                 continue;
             }
-            int index = indexOfChild(taskView);
             boolean visible;
-            if (showAsGrid()) {
+            if (showAsGrid) {
                 visible = isTaskViewWithinBounds(taskView, visibleStart, visibleEnd);
             } else {
-                visible = lower <= index && index <= upper;
-            }
-            if (visible) {
-                // Default update all non-null tasks, then remove running ones
-                List<Task> tasksToUpdate = containers.stream()
-                        .map(TaskContainer::getTask)
-                        .collect(Collectors.toCollection(ArrayList::new));
-                if (enableRefactorTaskThumbnail()) {
-                    visibleTaskIds.addAll(
-                            tasksToUpdate.stream().map((task) -> task.key.id).toList());
+                visible = lower <= i && i <= upper;
+            }
+            for (int j = 0; j < containers.size(); j++) {
+                TaskContainer container = containers.get(j);
+                if (container == null) {
+                    continue;
                 }
-                if (mTmpRunningTasks != null) {
-                    for (Task t : mTmpRunningTasks) {
-                        // Skip loading if this is the task that we are animating into
-                        // TODO(b/280812109) change this equality check to use A.equals(B)
-                        tasksToUpdate.removeIf(task -> task == t);
+                Task task = container.getTask();
+                if (!visible) {
+                    if (mHasVisibleTaskData.get(task.key.id)) {
+                        taskView.onTaskListVisibilityChanged(false /* visible */, dataChanges);
                     }
-                }
-                if (tasksToUpdate.isEmpty()) {
+                    mHasVisibleTaskData.delete(task.key.id);
                     continue;
                 }
-                for (Task task : tasksToUpdate) {
-                    if (!mHasVisibleTaskData.get(task.key.id)) {
-                        // Ignore thumbnail update if it's current running task during the gesture
-                        // We snapshot at end of gesture, it will update then
-                        int changes = dataChanges;
-                        if (taskView == getRunningTaskView() && isGestureActive()) {
-                            changes &= ~TaskView.FLAG_UPDATE_THUMBNAIL;
-                        }
-                        taskView.onTaskListVisibilityChanged(true /* visible */, changes);
-                    }
-                    mHasVisibleTaskData.put(task.key.id, visible);
+                if (updateVisibleTaskIds) {
+                    visibleTaskIds.add(task.key.id);
                 }
-            } else {
-                for (TaskContainer container : containers) {
-                    if (container == null) {
-                        continue;
-                    }
-
-                    if (mHasVisibleTaskData.get(container.getTask().key.id)) {
-                        taskView.onTaskListVisibilityChanged(false /* visible */, dataChanges);
+                if (isTmpRunningTask(task)) {
+                    // Skip loading if this is the task that we are animating into
+                    continue;
+                }
+                if (!mHasVisibleTaskData.get(task.key.id)) {
+                    // Ignore thumbnail update if it's current running task during the gesture
+                    // We snapshot at end of gesture, it will update then
+                    int changes = dataChanges;
+                    if (taskView == getRunningTaskView() && isGestureActive()) {
+                        changes &= ~TaskView.FLAG_UPDATE_THUMBNAIL;
                     }
-                    mHasVisibleTaskData.delete(container.getTask().key.id);
+                    taskView.onTaskListVisibilityChanged(true /* visible */, changes);
                 }
+                mHasVisibleTaskData.put(task.key.id, true);
             }
         }
-        if (enableRefactorTaskThumbnail()) {
+        if (updateVisibleTaskIds) {
             mTasksRepository.setVisibleTasks(visibleTaskIds);
         }
     }
 
+    /**
+     * Returns whether {@param task} is one of the tasks we are animating into
+     */
+    private boolean isTmpRunningTask(Task task) {
+        if (mTmpRunningTasks == null) {
+            return false;
+        }
+        for (Task runningTask : mTmpRunningTasks) {
+            // TODO(b/280812109) change this equality check to use A.equals(B)
+            if (runningTask == task) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Makes the next {@link #loadVisibleTaskData} go through all the task views, for when the
+     * task views or their order have changed.
+     */
+    private void invalidateVisibleTaskRange() {
+        mVisibleTaskRangeStart = -1;
+        mVisibleTaskRangeEnd = -1;
+    }
+
     /**
      * Unloads any associated data from the currently visible tasks
      */
@@ -2587,6 +2799,30 @@ public abstract class RecentsView<CONTAINER_TYPE extends Context & RecentsViewCo
         return null;
     }
 
+    /**
+     * Inflates task views in the background, so that the pools hold enough of each type to show
+     * the last loaded list of tasks without inflating during the next gesture.
+     */
+    public void prewarmTaskViewPools() {
+        int singleCount = mModel.getLastTaskCount(TaskView.Type.SINGLE);
+        int groupedCount = mModel.getLastTaskCount(TaskView.Type.GROUPED);
+        int desktopCount = mModel.getLastTaskCount(TaskView.Type.DESKTOP);
+        // The task views currently shown are recycled into the pools before being reused
+        for (int i = getTaskViewCount() - 1; i >= 0; i--) {
+            TaskView taskView = getTaskViewAt(i);
+            if (taskView instanceof GroupedTaskView) {
+                groupedCount--;
+            } else if (taskView instanceof DesktopTaskView) {
+                desktopCount--;
+            } else if (taskView != null) {
+                singleCount--;
+            }
+        }
+        mTaskViewPool.prefill(singleCount);
+        mGroupedTaskViewPool.prefill(groupedCount);
+        mDesktopTaskViewPool.prefill(desktopCount);
+    }
+
     /**
      * Handle the edge case where Recents could increment task count very high over long
      * period of device usage. Probably will never happen, but meh.
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.logging;
+
+import static com.android.launcher3.logging.StatsLogManager.LauncherEvent.LAUNCHER_APP_LAUNCH_TAP;
+import static com.android.launcher3.util.Executors.createAndStartNewLooper;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.logger.LauncherAtom;
+import com.android.launcher3.util.LooperExecutor;
+import com.android.quickstep.logging.StatsLogQueue.Entry;
+import com.android.quickstep.logging.StatsLogQueue.Sink;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@SmallTest
+public class StatsLogQueueTest {
+
+    private final List<Integer> mWrittenRanks = new ArrayList<>();
+    // Stands in for statsd, the entries are created with a sink which must not be used
+    private final Sink mSink = (event, atomInfo) -> mWrittenRanks.add(atomInfo.getRank());
+    private final Sink mUnusedSink = (event, atomInfo) -> {
+        throw new IllegalStateException("Entry sink used instead of the override");
+    };
+
+    private LooperExecutor mExecutor;
+
+    @Before
+    public void setUp() {
+        mExecutor = new LooperExecutor(createAndStartNewLooper("StatsLogQueueTest"));
+    }
+
+    @After
+    public void tearDown() {
+        mExecutor.getLooper().quitSafely();
+    }
+
+    @Test
+    public void add_writesInOrder() throws Exception {
+        StatsLogQueue queue = newQueue(10);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.add(entry(i)));
+        }
+        flush();
+
+        assertEquals(List.of(0, 1, 2, 3, 4), mWrittenRanks);
+    }
+
+    @Test
+    public void incompleteEntry_blocksLaterEntriesUntilComplete() throws Exception {
+        StatsLogQueue queue = newQueue(10);
+        Entry incomplete = new Entry(LAUNCHER_APP_LAUNCH_TAP, mUnusedSink, null);
+        queue.add(incomplete);
+        queue.add(entry(1));
+        flush();
+        assertTrue(mWrittenRanks.isEmpty());
+
+        queue.complete(incomplete, () -> proto(0));
+        flush();
+        assertEquals(List.of(0, 1), mWrittenRanks);
+    }
+
+    @Test
+    public void add_whenFull_dropsAndCounts() throws Exception {
+        StatsLogQueue queue = newQueue(2);
+        Entry incomplete = new Entry(LAUNCHER_APP_LAUNCH_TAP, mUnusedSink, null);
+        queue.add(incomplete);
+        assertTrue(queue.add(entry(1)));
+        assertFalse(queue.add(entry(2)));
+        assertEquals(1, queue.getDroppedCount());
+
+        queue.complete(incomplete, () -> proto(0));
+        flush();
+        assertTrue(queue.add(entry(3)));
+        flush();
+        assertEquals(List.of(0, 1, 3), mWrittenRanks);
+    }
+
+    @Test
+    public void incompleteEntry_neverCompleted_skippedAfterTimeout() throws Exception {
+        // Like an entry waiting for a model update task which is dropped
+        long timeoutMs = 50;
+        StatsLogQueue queue = newQueue(10, timeoutMs);
+        queue.add(new Entry(LAUNCHER_APP_LAUNCH_TAP, mUnusedSink, null));
+        queue.add(entry(1));
+        flush();
+        assertTrue(mWrittenRanks.isEmpty());
+
+        Thread.sleep(timeoutMs * 2);
+        flush();
+        queue.add(entry(2));
+        flush();
+        assertEquals(List.of(1, 2), mWrittenRanks);
+        assertEquals(1, queue.getSkippedCount());
+    }
+
+    @Test
+    public void complete_afterComplete_ignored() throws Exception {
+        StatsLogQueue queue = newQueue(10);
+        Entry entry = new Entry(LAUNCHER_APP_LAUNCH_TAP, mUnusedSink, null);
+        queue.add(entry);
+        queue.complete(entry, () -> proto(0));
+        queue.complete(entry, () -> proto(1));
+        flush();
+
+        assertEquals(List.of(0), mWrittenRanks);
+    }
+
+    @Test
+    public void add_moreThanBatch_writesAll() throws Exception {
+        StatsLogQueue queue = newQueue(100);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            queue.add(entry(i));
+            expected.add(i);
+        }
+        // Each batch schedules the next one after itself
+        for (int i = 0; i < 4; i++) {
+            flush();
+        }
+
+        assertEquals(expected, mWrittenRanks);
+    }
+
+    private StatsLogQueue newQueue(int capacity) {
+        return newQueue(capacity, StatsLogQueue.INCOMPLETE_TIMEOUT_MS);
+    }
+
+    private StatsLogQueue newQueue(int capacity, long incompleteTimeoutMs) {
+        return new StatsLogQueue(mExecutor.getLooper(), capacity, incompleteTimeoutMs, mSink);
+    }
+
+    private Entry entry(int rank) {
+        return new Entry(LAUNCHER_APP_LAUNCH_TAP, mUnusedSink, () -> proto(rank));
+    }
+
+    private static LauncherAtom.ItemInfo proto(int rank) {
+        return LauncherAtom.ItemInfo.newBuilder().setRank(rank).build();
+    }
+
+    /** Waits for the messages already posted to the queue thread */
+    private void flush() throws Exception {
+        mExecutor.submit(() -> { }).get();
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static junit.framework.Assert.assertEquals;
+
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.tracing.ActiveGestureEventProto;
+import com.android.launcher3.tracing.ActiveGestureLogProto;
+import com.android.quickstep.util.GestureEventRing.Entry;
+import com.android.quickstep.util.GestureEventRing.Event;
+
+import org.junit.Test;
+
+import java.util.List;
+
+@SmallTest
+public class GestureEventRingTest {
+
+    private static final int LOG_ID = 100;
+
+    @Test
+    public void add_identicalEvents_countsDuplicates() {
+        GestureEventRing ring = new GestureEventRing(10);
+        ring.add(LOG_ID, Event.MOTION_PAUSE_DISALLOWED, 1, 0, 0, null);
+        ring.add(LOG_ID, Event.MOTION_PAUSE_DISALLOWED, 1, 0, 0, null);
+        ring.add(LOG_ID, Event.MOTION_PAUSE_DISALLOWED, 0, 0, 0, null);
+        ring.add(LOG_ID + 1, Event.MOTION_PAUSE_DISALLOWED, 0, 0, 0, null);
+
+        List<Entry> entries = ring.getEntries();
+        assertEquals(3, entries.size());
+        assertEquals(1, entries.get(0).duplicateCount());
+        assertEquals(0, entries.get(1).duplicateCount());
+        assertEquals(LOG_ID + 1, entries.get(2).logId());
+    }
+
+    @Test
+    public void add_overCapacity_keepsNewestEvents() {
+        GestureEventRing ring = new GestureEventRing(3);
+        for (int i = 0; i < 5; i++) {
+            ring.add(LOG_ID, Event.MOTION_PAUSE_CHANGED, i, 0, 0, "reason");
+        }
+
+        List<Entry> entries = ring.getEntries();
+        assertEquals(3, entries.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i + 2, entries.get(i).arg0());
+        }
+    }
+
+    @Test
+    public void format_deferredUntilDump() {
+        GestureEventRing ring = new GestureEventRing(3);
+        ring.add(LOG_ID, Event.MOTION_PAUSE_CHANGED, 0, 1, 1, "reason");
+
+        assertEquals("MotionPauseDetector: onMotionPauseChanged triggered; paused=false, "
+                        + "reason=Disallow pause; otherwise, would have been true due to "
+                        + "reason:reason",
+                ring.getEntries().get(0).format());
+    }
+
+    @Test
+    public void toProto_keepsIdsAndArgs() {
+        GestureEventRing ring = new GestureEventRing(3);
+        ring.add(LOG_ID, Event.MOTION_PAUSE_CHANGED, 1, 0, 1, "reason");
+        ring.add(LOG_ID, Event.MOTION_PAUSE_CHANGED, 1, 0, 1, "reason");
+
+        ActiveGestureLogProto proto = GestureEventRing.toProto(ring.getEntries());
+        assertEquals(1, proto.getEventCount());
+        ActiveGestureEventProto event = proto.getEvent(0);
+        assertEquals(LOG_ID, event.getLogId());
+        assertEquals(Event.MOTION_PAUSE_CHANGED.id, event.getEventId());
+        assertEquals(List.of(1L, 0L, 1L), event.getArgList());
+        assertEquals("reason", event.getText());
+        assertEquals(1, event.getDuplicateCount());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.quickstep.util;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+
+import android.content.ComponentName;
+import android.content.Intent;
+
+import androidx.test.filters.SmallTest;
+
+import com.android.systemui.shared.recents.model.Task;
+
+import org.junit.Test;
+
+@SmallTest
+public class TaskKeyLruCacheTest {
+
+    private static final long LOW_RES_BUDGET = 10;
+    private static final long HIGH_RES_BUDGET = 20;
+
+    // Values starting with "low" are low-res, the size of a value is its length
+    private static final TaskKeyLruCache.Weigher<String> WEIGHER =
+            new TaskKeyLruCache.Weigher<>() {
+                @Override
+                public int getBudgetIndex(String value) {
+                    return value.startsWith("low") ? 0 : 1;
+                }
+
+                @Override
+                public long getBytes(String value) {
+                    return value.length();
+                }
+            };
+
+    @Test
+    public void put_overEntryCount_evictsLeastRecentlyUsed() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(2);
+        cache.put(key(1), "a");
+        cache.put(key(2), "b");
+        assertNotNull(cache.getAndInvalidateIfModified(key(1)));
+        cache.put(key(3), "c");
+
+        assertEquals(2, cache.getSize());
+        assertNotNull(cache.getAndInvalidateIfModified(key(1)));
+        assertNull(cache.getAndInvalidateIfModified(key(2)));
+    }
+
+    @Test
+    public void peek_doesNotChangeEvictionOrder() {
+        TaskKeyLruCache<String> cache = new TaskKeyLruCache<>(2);
+        cache.put(key(1), "a");
+        cache.put(key(2), "b");
+        assertEquals("a", cache.peek(key(1)));
+        cache.put(key(3), "c");
+
+        assertNull(cache.peek(key(1)));
+        assertNotNull(cache.peek(key(2)));
+        assertEquals(2, cache.getSize());
+    }
+
+    @Test
+    public void put_overByteBudget_onlyEvictsFromThatBudget() {
+        TaskKeyLruCache<String> cache = newWeighedCache();
+        cache.put(key(1), "low-1"); // 5 bytes
+        cache.put(key(2), "high-2-xxxxxx"); // 13 bytes
+        cache.put(key(3), "low-3"); // 5 bytes
+        cache.put(key(4), "low-4"); // 5 bytes, low-res budget exceeded
+
+        assertNull(cache.getAndInvalidateIfModified(key(1)));
+        assertNotNull(cache.getAndInvalidateIfModified(key(2)));
+        assertNotNull(cache.getAndInvalidateIfModified(key(3)));
+        assertNotNull(cache.getAndInvalidateIfModified(key(4)));
+    }
+
+    @Test
+    public void updateIfAlreadyInCache_reweighsEntry() {
+        TaskKeyLruCache<String> cache = newWeighedCache();
+        cache.put(key(1), "high-1");
+        cache.put(key(2), "high-2");
+
+        cache.updateIfAlreadyInCache(1, "high-1-xxxxxxxxxx");
+
+        assertNotNull(cache.getAndInvalidateIfModified(key(1)));
+        assertNull(cache.getAndInvalidateIfModified(key(2)));
+    }
+
+    @Test
+    public void setBudgetScale_evictsUntilWithinScaledBudget() {
+        TaskKeyLruCache<String> cache = newWeighedCache();
+        cache.put(key(1), "high-1");
+        cache.put(key(2), "high-2");
+        cache.put(key(3), "high-3");
+
+        cache.setBudgetScale(0.5f);
+        assertEquals(1, cache.getSize());
+        assertNotNull(cache.getAndInvalidateIfModified(key(3)));
+
+        cache.setBudgetScale(1f);
+        cache.put(key(1), "high-1");
+        cache.put(key(2), "high-2");
+        assertEquals(3, cache.getSize());
+    }
+
+    @Test
+    public void put_overSharedBudget_onlyEvictsAboveGuaranteedShare() {
+        SharedByteBudget sharedBudget = new SharedByteBudget(20);
+        long[] noBudget = {Long.MAX_VALUE, Long.MAX_VALUE};
+        TaskKeyLruCache<String> large = new TaskKeyLruCache<>(10, WEIGHER, noBudget,
+                sharedBudget.newShare("large", 0.5f));
+        TaskKeyLruCache<String> small = new TaskKeyLruCache<>(10, WEIGHER, noBudget,
+                sharedBudget.newShare("small", 0.5f));
+        small.put(key(1), "high-1"); // 6 bytes
+        large.put(key(2), "high-2"); // 6 bytes
+        large.put(key(3), "high-3"); // 6 bytes
+        large.put(key(4), "high-4"); // 6 bytes, shared budget exceeded
+
+        // Only the cache over its share evicts
+        assertEquals(18, sharedBudget.getBytes());
+        assertNotNull(small.getAndInvalidateIfModified(key(1)));
+        assertNull(large.getAndInvalidateIfModified(key(2)));
+
+        // Both caches are now over their share, the first one to trim evicts until the budget
+        // is met again
+        sharedBudget.setScale(0.5f);
+        large.trimToSharedBudget();
+        small.trimToSharedBudget();
+        assertEquals(6, sharedBudget.getBytes());
+        assertEquals(0, large.getSize());
+        assertEquals(1, small.getSize());
+
+        small.evictAll();
+        assertEquals(0, sharedBudget.getBytes());
+    }
+
+    private static TaskKeyLruCache<String> newWeighedCache() {
+        return new TaskKeyLruCache<>(10, WEIGHER, new long[] {LOW_RES_BUDGET, HIGH_RES_BUDGET});
+    }
+
+    private static Task.TaskKey key(int id) {
+        return new Task.TaskKey(id, 0, new Intent(), new ComponentName("", ""), 0, 0);
+    }
+}
@@ -16,10 +16,19 @@
 
 package com.android.quickstep;
 
+import static android.app.WindowConfiguration.ACTIVITY_TYPE_STANDARD;
+import static android.app.WindowConfiguration.WINDOWING_MODE_FULLSCREEN;
+
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
+
 import static junit.framework.TestCase.assertNull;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -27,11 +36,15 @@ import static org.mockito.Mockito.when;
 
 import android.app.ActivityManager;
 import android.app.KeyguardManager;
+import android.content.ComponentName;
+import android.content.Intent;
+import android.os.Process;
 
 import androidx.test.filters.SmallTest;
 
 import com.android.launcher3.util.LooperExecutor;
 import com.android.quickstep.util.GroupTask;
+import com.android.systemui.shared.recents.model.Task;
 import com.android.wm.shell.util.GroupedRecentTaskInfo;
 
 import org.junit.Before;
@@ -51,13 +64,15 @@ public class RecentTasksListTest {
     @Mock
     private TopTaskTracker mTopTaskTracker;
 
+    private LooperExecutor mockMainThreadExecutor;
+
     // Class under test
     private RecentTasksList mRecentTasksList;
 
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        LooperExecutor mockMainThreadExecutor = mock(LooperExecutor.class);
+        mockMainThreadExecutor = mock(LooperExecutor.class);
         KeyguardManager mockKeyguardManager = mock(KeyguardManager.class);
         mRecentTasksList = new RecentTasksList(mockMainThreadExecutor, mockKeyguardManager,
                 mockSystemUiProxy, mTopTaskTracker);
@@ -104,4 +119,120 @@ public class RecentTasksListTest {
         assertEquals(taskDescription, taskList.get(0).task1.taskDescription.getLabel());
         assertNull(taskList.get(0).task2.taskDescription.getLabel());
     }
+
+    @Test
+    public void onTaskMovedToFront_reordersLoadedTasksWithoutReload() throws Exception {
+        RecentTasksList.TaskLoadResult loaded = new RecentTasksList.TaskLoadResult(
+                1 /* initial change id */, false, 2);
+        loaded.add(new GroupTask(new Task(createTaskKey(1))));
+        loaded.add(new GroupTask(new Task(createTaskKey(2))));
+        mRecentTasksList.setResultsUi(loaded);
+        runMainThreadTasksInline();
+        // The system list after the move, from the most recent task
+        when(mockSystemUiProxy.getRecentTasks(anyInt(), anyInt()))
+                .thenReturn(createRecentTasks(1, 2));
+
+        mRecentTasksList.onTaskMovedToFront(createRunningTask(1));
+        mRecentTasksList.onRecentTasksChanged();
+        UI_HELPER_EXECUTOR.submit(() -> { }).get();
+        List<GroupTask> tasks = new ArrayList<>();
+        mRecentTasksList.getTasks(false, tasks::addAll, groupTask -> true);
+
+        assertFalse(mRecentTasksList.isLoadingTasksInBackground());
+        assertEquals(2, tasks.size());
+        assertEquals(2, tasks.get(0).task1.key.id);
+        assertEquals(1, tasks.get(1).task1.key.id);
+    }
+
+    @Test
+    public void onTaskMovedToFront_otherChangeInSystemList_reloadsTasks() throws Exception {
+        RecentTasksList.TaskLoadResult loaded = new RecentTasksList.TaskLoadResult(
+                1 /* initial change id */, false, 3);
+        loaded.add(new GroupTask(new Task(createTaskKey(1))));
+        loaded.add(new GroupTask(new Task(createTaskKey(2))));
+        loaded.add(new GroupTask(new Task(createTaskKey(3))));
+        mRecentTasksList.setResultsUi(loaded);
+        runMainThreadTasksInline();
+        // Task 2 was also removed by another source, in the same recent tasks change
+        when(mockSystemUiProxy.getRecentTasks(anyInt(), anyInt()))
+                .thenReturn(createRecentTasks(1, 3));
+
+        mRecentTasksList.onTaskMovedToFront(createRunningTask(1));
+        mRecentTasksList.onRecentTasksChanged();
+        UI_HELPER_EXECUTOR.submit(() -> { }).get();
+        mRecentTasksList.getTasks(false, null, groupTask -> true);
+
+        assertTrue(mRecentTasksList.isLoadingTasksInBackground());
+    }
+
+    @Test
+    public void onTaskMovedToFront_alreadyMostRecent_nextChangeReloadsTasks() {
+        RecentTasksList.TaskLoadResult loaded = new RecentTasksList.TaskLoadResult(
+                1 /* initial change id */, false, 2);
+        loaded.add(new GroupTask(new Task(createTaskKey(1))));
+        loaded.add(new GroupTask(new Task(createTaskKey(2))));
+        mRecentTasksList.setResultsUi(loaded);
+        when(mockSystemUiProxy.getRecentTasks(anyInt(), anyInt())).thenReturn(new ArrayList<>());
+
+        // No recents change follows this move, the next one is unrelated, like a removed task
+        mRecentTasksList.onTaskMovedToFront(createRunningTask(2));
+        mRecentTasksList.onRecentTasksChanged();
+        mRecentTasksList.getTasks(false, null, groupTask -> true);
+
+        assertTrue(mRecentTasksList.isLoadingTasksInBackground());
+    }
+
+    @Test
+    public void onTaskMovedToFront_splitTask_reloadsTasks() {
+        RecentTasksList.TaskLoadResult loaded = new RecentTasksList.TaskLoadResult(
+                1 /* initial change id */, false, 1);
+        loaded.add(new GroupTask(new Task(createTaskKey(1)), new Task(createTaskKey(2)), null));
+        mRecentTasksList.setResultsUi(loaded);
+        when(mockSystemUiProxy.getRecentTasks(anyInt(), anyInt())).thenReturn(new ArrayList<>());
+
+        mRecentTasksList.onTaskMovedToFront(createRunningTask(1));
+        mRecentTasksList.onRecentTasksChanged();
+        mRecentTasksList.getTasks(false, null, groupTask -> true);
+
+        assertTrue(mRecentTasksList.isLoadingTasksInBackground());
+    }
+
+    private void runMainThreadTasksInline() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mockMainThreadExecutor).post(any(Runnable.class));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(mockMainThreadExecutor).execute(any(Runnable.class));
+    }
+
+    /** Returns the recent tasks as given by the system, from the most recent task */
+    private static ArrayList<GroupedRecentTaskInfo> createRecentTasks(int... taskIds) {
+        ArrayList<GroupedRecentTaskInfo> tasks = new ArrayList<>();
+        for (int taskId : taskIds) {
+            ActivityManager.RecentTaskInfo taskInfo = new ActivityManager.RecentTaskInfo();
+            taskInfo.taskId = taskId;
+            taskInfo.baseIntent = new Intent();
+            tasks.add(GroupedRecentTaskInfo.forSingleTask(taskInfo));
+        }
+        return tasks;
+    }
+
+    private static Task.TaskKey createTaskKey(int taskId) {
+        return new Task.TaskKey(taskId, WINDOWING_MODE_FULLSCREEN, new Intent(),
+                new ComponentName("", ""), Process.myUserHandle().getIdentifier(), 0);
+    }
+
+    private static ActivityManager.RunningTaskInfo createRunningTask(int taskId) {
+        ActivityManager.RunningTaskInfo taskInfo = new ActivityManager.RunningTaskInfo();
+        taskInfo.taskId = taskId;
+        taskInfo.userId = Process.myUserHandle().getIdentifier();
+        taskInfo.baseIntent = new Intent();
+        taskInfo.taskDescription = new ActivityManager.TaskDescription();
+        taskInfo.configuration.windowConfiguration.setActivityType(ACTIVITY_TYPE_STANDARD);
+        taskInfo.configuration.windowConfiguration.setWindowingMode(WINDOWING_MODE_FULLSCREEN);
+        return taskInfo;
+    }
 }
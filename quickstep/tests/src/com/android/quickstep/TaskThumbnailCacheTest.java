@@ -15,29 +15,39 @@
  */
 package com.android.quickstep;
 
+import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
 import android.content.res.Resources;
 
 import androidx.test.filters.SmallTest;
 
 import com.android.launcher3.R;
+import com.android.launcher3.util.CancellableTask;
 import com.android.quickstep.util.TaskKeyCache;
+import com.android.systemui.shared.recents.model.Task;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
 import java.util.concurrent.Executor;
 
 @SmallTest
@@ -92,4 +102,35 @@ public class TaskThumbnailCacheTest {
         assertFalse(thumbnailCache.updateCacheSizeAndRemoveExcess());
         verify(mTaskKeyCache, never()).updateCacheSizeAndRemoveExcess(anyInt());
     }
+
+    @Test
+    public void prefetchThumbnails_cancelsStaleRequests() {
+        Executor executor = mock(Executor.class);
+        TaskThumbnailCache thumbnailCache = new TaskThumbnailCache(mContext, executor,
+                mTaskKeyCache);
+        Task task1 = createTask(1);
+        Task task2 = createTask(2);
+        Task task3 = createTask(3);
+
+        thumbnailCache.prefetchThumbnails(List.of(task1, task2));
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, atLeastOnce()).execute(captor.capture());
+        List<Runnable> requests = captor.getAllValues();
+        // Either low-res then high-res, or only high-res, requests in priority order
+        assertEquals(0, requests.size() % 2);
+
+        reset(executor);
+        thumbnailCache.prefetchThumbnails(List.of(task2, task3));
+        for (int i = 0; i < requests.size(); i++) {
+            // Requests for task 1 are cancelled and requests for task 2 are kept
+            assertEquals(i % 2 == 0, ((CancellableTask<?>) requests.get(i)).getCanceled());
+        }
+        // Only task 3 is queued again
+        verify(executor, times(requests.size() / 2)).execute(any());
+    }
+
+    private static Task createTask(int taskId) {
+        return new Task(new Task.TaskKey(taskId, 0, new Intent(), new ComponentName("", ""), 0,
+                2000));
+    }
 }
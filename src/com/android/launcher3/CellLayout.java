@@ -118,6 +118,8 @@ public class CellLayout extends ViewGroup {
     protected GridOccupancy mOccupied;
     public GridOccupancy mTmpOccupied;
 
+    private ReorderAlgorithm mReorderAlgorithm;
+
     private OnTouchListener mInterceptTouchListener;
 
     private final ArrayList<DelegatedCellDrawing> mDelegatedCellDrawings = new ArrayList<>();
@@ -1557,6 +1559,17 @@ public class CellLayout extends ViewGroup {
         return new ReorderAlgorithm(this);
     }
 
+    /**
+     * Returns the reorder algorithm of this CellLayout. It is reused for every reorder so that its
+     * scratch state is only allocated once, and must only be used on the UI thread.
+     */
+    public ReorderAlgorithm getReorderAlgorithm() {
+        if (mReorderAlgorithm == null) {
+            mReorderAlgorithm = createReorderAlgorithm();
+        }
+        return mReorderAlgorithm;
+    }
+
     protected ItemConfiguration findReorderSolution(int pixelX, int pixelY, int minSpanX,
             int minSpanY, int spanX, int spanY, int[] direction, View dragView, boolean decX) {
         ItemConfiguration configuration = new ItemConfiguration();
@@ -1564,7 +1577,7 @@ public class CellLayout extends ViewGroup {
         ReorderParameters parameters = new ReorderParameters(pixelX, pixelY, spanX, spanY, minSpanX,
                 minSpanY, dragView, configuration);
         int[] directionVector = direction != null ? direction : mDirectionVector;
-        return createReorderAlgorithm().findReorderSolution(parameters, directionVector, decX);
+        return getReorderAlgorithm().findReorderSolution(parameters, directionVector, decX);
     }
 
     public void copyCurrentStateToSolution(ItemConfiguration solution) {
@@ -1596,7 +1609,7 @@ public class CellLayout extends ViewGroup {
             int spanX, int spanY, View dragView) {
         ItemConfiguration configuration = new ItemConfiguration();
         copyCurrentStateToSolution(configuration);
-        return createReorderAlgorithm().calculateReorder(
+        return getReorderAlgorithm().calculateReorder(
                 new ReorderParameters(pixelX, pixelY, spanX, spanY,  minSpanX, minSpanY, dragView,
                         configuration)
         );
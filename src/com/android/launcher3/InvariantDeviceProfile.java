@@ -18,6 +18,7 @@ package com.android.launcher3;
 
 import static com.android.launcher3.LauncherPrefs.GRID_NAME;
 import static com.android.launcher3.Utilities.dpiFromPx;
+import static com.android.launcher3.config.FeatureFlags.ENABLE_DEVICE_PROFILE_CACHE;
 import static com.android.launcher3.testing.shared.ResourceUtils.INVALID_RESOURCE_HANDLE;
 import static com.android.launcher3.util.DisplayController.CHANGE_DENSITY;
 import static com.android.launcher3.util.DisplayController.CHANGE_DESKTOP_MODE;
@@ -40,12 +41,14 @@ import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import android.util.LruCache;
 import android.util.SparseArray;
 import android.util.Xml;
 import android.view.Display;
 
 import androidx.annotation.DimenRes;
 import androidx.annotation.IntDef;
+import androidx.annotation.Nullable;
 import androidx.annotation.StyleRes;
 import androidx.annotation.VisibleForTesting;
 import androidx.annotation.XmlRes;
@@ -62,7 +65,9 @@ import com.android.launcher3.util.DisplayController.Info;
 import com.android.launcher3.util.LockedUserState;
 import com.android.launcher3.util.MainThreadInitializedObject;
 import com.android.launcher3.util.Partner;
+import com.android.launcher3.util.ResourceParseCache;
 import com.android.launcher3.util.SafeCloseable;
+import com.android.launcher3.util.NavigationMode;
 import com.android.launcher3.util.WindowBounds;
 import com.android.launcher3.util.window.WindowManagerProxy;
 
@@ -77,6 +82,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreferenceChangeListener {
@@ -109,6 +115,9 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
     // used to offset float not being able to express extremely small weights in extreme cases.
     private static final float WEIGHT_EFFICIENT = 100000f;
 
+    // Number of display states, like folded and unfolded, whose grids are kept
+    private static final int GRID_CACHE_SIZE = 4;
+
     // Used for arrays to specify different sizes (e.g. border spaces, width/height) in different
     // constraints
     static final int COUNT_SIZES = 4;
@@ -230,6 +239,10 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
 
     private final ArrayList<OnIDPChangeListener> mChangeListeners = new ArrayList<>();
 
+    // Grids computed for the display states seen so far, so that going back to a state does not
+    // build all its device profiles again
+    private final LruCache<GridKey, CachedGrid> mGridCache = new LruCache<>(GRID_CACHE_SIZE);
+
     @VisibleForTesting
     public InvariantDeviceProfile() { }
 
@@ -307,7 +320,7 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
         System.arraycopy(defaultDisplayOption.borderSpaces, 0, result.borderSpaces, 0,
                 COUNT_SIZES);
 
-        initGrid(context, myInfo, result, deviceType);
+        initGrid(context, myInfo, result, deviceType, null /* cachedGrid */);
     }
 
     @Override
@@ -346,6 +359,8 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
 
     @Override
     public void onSharedPreferenceChanged(SharedPreferences prefs, String key) {
+        // Device profiles read some of their values from the preferences
+        mGridCache.evictAll();
         switch (key) {
             case KEY_ALLAPPS_THEMED_ICONS:
             case KEY_SHOW_DESKTOP_LABELS:
@@ -362,16 +377,46 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
     private String initGrid(Context context, String gridName) {
         Info displayInfo = DisplayController.INSTANCE.get(context).getInfo();
         @DeviceType int deviceType = displayInfo.getDeviceType();
+        boolean allowDisabledGrid = RestoreDbTask.isPending(context);
+
+        GridKey key = ENABLE_DEVICE_PROFILE_CACHE.get()
+                ? new GridKey(gridName, displayInfo, allowDisabledGrid) : null;
+        CachedGrid cachedGrid = key != null ? mGridCache.get(key) : null;
+        if (cachedGrid != null) {
+            initGrid(context, displayInfo, cachedGrid.displayOption, deviceType, cachedGrid);
+            return cachedGrid.displayOption.grid.name;
+        }
 
         ArrayList<DisplayOption> allOptions =
-                getPredefinedDeviceProfiles(context, gridName, deviceType,
-                        RestoreDbTask.isPending(context));
+                getPredefinedDeviceProfiles(context, gridName, deviceType, allowDisabledGrid);
         DisplayOption displayOption =
                 invDistWeightedInterpolate(displayInfo, allOptions, deviceType);
-        initGrid(context, displayInfo, displayOption, deviceType);
+        initGrid(context, displayInfo, displayOption, deviceType, null /* cachedGrid */);
+        if (key != null) {
+            mGridCache.put(key, new CachedGrid(displayOption, supportedProfiles,
+                    new Point(defaultWallpaperSize)));
+        }
         return displayOption.grid.name;
     }
 
+    /**
+     * The display state and grid which {@link #initGrid} builds the device profiles from. The
+     * rotation is not part of it as profiles are built for all the supported bounds.
+     */
+    private record GridKey(String gridName, Set<WindowBounds> supportedBounds, int densityDpi,
+            float fontScale, NavigationMode navigationMode, boolean isTransientTaskbar,
+            boolean isInDesktopMode, boolean allowDisabledGrid) {
+
+        GridKey(String gridName, Info info, boolean allowDisabledGrid) {
+            this(gridName, info.supportedBounds, info.getDensityDpi(), info.fontScale,
+                    info.getNavigationMode(), info.isTransientTaskbar(), info.isInDesktopMode(),
+                    allowDisabledGrid);
+        }
+    }
+
+    private record CachedGrid(DisplayOption displayOption, List<DeviceProfile> supportedProfiles,
+            Point defaultWallpaperSize) { }
+
     /**
      * @deprecated This is a temporary solution because on the backup and restore case we modify the
      * IDP, this resets it. b/332974074
@@ -387,7 +432,7 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
     }
 
     private void initGrid(Context context, Info displayInfo, DisplayOption displayOption,
-            @DeviceType int deviceType) {
+            @DeviceType int deviceType, @Nullable CachedGrid cachedGrid) {
         DisplayMetrics metrics = context.getResources().getDisplayMetrics();
         GridOption closestProfile = displayOption.grid;
         numRows = closestProfile.numRows;
@@ -467,6 +512,14 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
         // Supported overrides: numRows, numColumns, iconSize
         applyPartnerDeviceProfileOverrides(context, metrics);
 
+        if (cachedGrid != null) {
+            // The profiles were built from the same display state and grid, and already have
+            // their hotseat adjusted below
+            defaultWallpaperSize = new Point(cachedGrid.defaultWallpaperSize);
+            supportedProfiles = cachedGrid.supportedProfiles;
+            return;
+        }
+
         final List<DeviceProfile> localSupportedProfiles = new ArrayList<>();
         defaultWallpaperSize = new Point(displayInfo.currentSize);
         SparseArray<DotRenderer> dotRendererCache = new SparseArray<>();
@@ -548,32 +601,13 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
     private static ArrayList<DisplayOption> getPredefinedDeviceProfiles(Context context,
             String gridName, @DeviceType int deviceType, boolean allowDisabledGrid) {
         ArrayList<DisplayOption> profiles = new ArrayList<>();
-
-        try (XmlResourceParser parser = context.getResources().getXml(R.xml.device_profiles)) {
-            final int depth = parser.getDepth();
-            int type;
-            while (((type = parser.next()) != XmlPullParser.END_TAG ||
-                    parser.getDepth() > depth) && type != XmlPullParser.END_DOCUMENT) {
-                if ((type == XmlPullParser.START_TAG)
-                        && GridOption.TAG_NAME.equals(parser.getName())) {
-
-                    GridOption gridOption = new GridOption(context, Xml.asAttributeSet(parser));
-                    if (gridOption.isEnabled(deviceType) || allowDisabledGrid) {
-                        final int displayDepth = parser.getDepth();
-                        while (((type = parser.next()) != XmlPullParser.END_TAG
-                                || parser.getDepth() > displayDepth)
-                                && type != XmlPullParser.END_DOCUMENT) {
-                            if ((type == XmlPullParser.START_TAG) && "display-option".equals(
-                                    parser.getName())) {
-                                profiles.add(new DisplayOption(gridOption, context,
-                                        Xml.asAttributeSet(parser)));
-                            }
-                        }
-                    }
-                }
+        // The parsed options are shared, copy them as the grid interpolation modifies them
+        for (DisplayOption option : ResourceParseCache.INSTANCE.get(context,
+                R.xml.device_profiles, DisplayOption.TAG_NAME,
+                () -> parseAllDisplayOptions(context))) {
+            if (option.grid.isEnabled(deviceType) || allowDisabledGrid) {
+                profiles.add(new DisplayOption(option));
             }
-        } catch (IOException | XmlPullParserException e) {
-            throw new RuntimeException(e);
         }
 
         ArrayList<DisplayOption> filteredProfiles = new ArrayList<>();
@@ -599,6 +633,36 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
         return filteredProfiles;
     }
 
+    private static List<DisplayOption> parseAllDisplayOptions(Context context) {
+        ArrayList<DisplayOption> profiles = new ArrayList<>();
+
+        try (XmlResourceParser parser = context.getResources().getXml(R.xml.device_profiles)) {
+            final int depth = parser.getDepth();
+            int type;
+            while (((type = parser.next()) != XmlPullParser.END_TAG ||
+                    parser.getDepth() > depth) && type != XmlPullParser.END_DOCUMENT) {
+                if ((type == XmlPullParser.START_TAG)
+                        && GridOption.TAG_NAME.equals(parser.getName())) {
+
+                    GridOption gridOption = new GridOption(context, Xml.asAttributeSet(parser));
+                    final int displayDepth = parser.getDepth();
+                    while (((type = parser.next()) != XmlPullParser.END_TAG
+                            || parser.getDepth() > displayDepth)
+                            && type != XmlPullParser.END_DOCUMENT) {
+                        if ((type == XmlPullParser.START_TAG) && DisplayOption.TAG_NAME.equals(
+                                parser.getName())) {
+                            profiles.add(new DisplayOption(gridOption, context,
+                                    Xml.asAttributeSet(parser)));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | XmlPullParserException e) {
+            throw new RuntimeException(e);
+        }
+        return Collections.unmodifiableList(profiles);
+    }
+
     /**
      * Returns the GridOption associated to the given file name or null if the fileName is not
      * supported.
@@ -652,6 +716,11 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
      * @return all the grid options that can be shown on the device
      */
     public static List<GridOption> parseAllDefinedGridOptions(Context context) {
+        return new ArrayList<>(ResourceParseCache.INSTANCE.get(context, R.xml.device_profiles,
+                GridOption.TAG_NAME, () -> parseGridOptions(context)));
+    }
+
+    private static List<GridOption> parseGridOptions(Context context) {
         List<GridOption> result = new ArrayList<>();
 
         try (XmlResourceParser parser = context.getResources().getXml(R.xml.device_profiles)) {
@@ -1076,6 +1145,9 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
 
     @VisibleForTesting
     static final class DisplayOption {
+
+        static final String TAG_NAME = "display-option";
+
         public final GridOption grid;
 
         private final float minWidthDps;
@@ -1352,6 +1424,20 @@ public class InvariantDeviceProfile implements SafeCloseable, OnSharedPreference
             this(null);
         }
 
+        DisplayOption(DisplayOption option) {
+            grid = option.grid;
+            minWidthDps = option.minWidthDps;
+            minHeightDps = option.minHeightDps;
+            canBeDefault = option.canBeDefault;
+            for (int i = 0; i < COUNT_SIZES; i++) {
+                borderSpaces[i] = new PointF();
+                minCellSize[i] = new PointF();
+                allAppsCellSize[i] = new PointF();
+                allAppsBorderSpaces[i] = new PointF();
+            }
+            add(option);
+        }
+
         DisplayOption(GridOption grid) {
             this.grid = grid;
             minWidthDps = 0;
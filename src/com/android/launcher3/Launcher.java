@@ -240,6 +240,7 @@ import com.android.launcher3.util.LockedUserState;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.PendingRequestArgs;
 import com.android.launcher3.util.PluginManagerWrapper;
+import com.android.launcher3.util.ResourceParseCache;
 import com.android.launcher3.util.RunnableList;
 import com.android.launcher3.util.ScreenOnTracker;
 import com.android.launcher3.util.ScreenOnTracker.ScreenOnListener;
@@ -2707,6 +2708,7 @@ public class Launcher extends StatefulActivity<LauncherState>
         mStateManager.dump(prefix, writer);
         mPopupDataProvider.dump(prefix, writer);
         mDeviceProfile.dump(this, prefix, writer);
+        ResourceParseCache.INSTANCE.dump(prefix, writer);
         mAppsView.getAppsStore().dump(prefix, writer);
 
         try {
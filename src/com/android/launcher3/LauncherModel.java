@@ -591,6 +591,8 @@ public class LauncherModel implements InstallSessionTracker.Callback {
         if (mModelDestroyed) {
             return;
         }
+        // Run after the item updates requested before this task
+        ModelWriter.flushAllPendingUpdates();
         MODEL_EXECUTOR.execute(() -> {
             if (!isModelLoaded()) {
                 // Loader has not yet run.
@@ -660,6 +662,8 @@ public class LauncherModel implements InstallSessionTracker.Callback {
         }
         mModelDelegate.dump(prefix, fd, writer, args);
         mBgDataModel.dump(prefix, fd, writer, args);
+        mApp.getIconCache().dump(prefix, writer);
+        ModelWriter.dump(prefix, writer);
     }
 
     /**
@@ -50,7 +50,7 @@ public class MultipageCellLayout extends CellLayout {
     @Override
     protected int[] findNearestArea(int relativeXPos, int relativeYPos, int minSpanX, int minSpanY,
             int spanX, int spanY, boolean ignoreOccupied, int[] result, int[] resultSpan) {
-        return createReorderAlgorithm().simulateSeam(
+        return getReorderAlgorithm().simulateSeam(
                 () -> super.findNearestArea(relativeXPos, relativeYPos, minSpanX, minSpanY, spanX,
                         spanY, ignoreOccupied, result, resultSpan));
     }
@@ -58,7 +58,7 @@ public class MultipageCellLayout extends CellLayout {
     @Override
     public boolean isNearestDropLocationOccupied(int pixelX, int pixelY, int spanX, int spanY,
             View dragView, int[] result) {
-        return createReorderAlgorithm().simulateSeam(
+        return getReorderAlgorithm().simulateSeam(
                 () -> super.isNearestDropLocationOccupied(pixelX, pixelY, spanX, spanY, dragView,
                         result));
     }
@@ -88,7 +88,7 @@ public class MultipageCellLayout extends CellLayout {
             cellX++;
         }
         int finalCellX = cellX;
-        return createReorderAlgorithm().simulateSeam(
+        return getReorderAlgorithm().simulateSeam(
                 () -> super.createAreaForResize(finalCellX, cellY, spanX, spanY, dragView,
                         direction, commit));
     }
@@ -108,6 +108,11 @@ public class MultipageCellLayout extends CellLayout {
         return new MulticellReorderAlgorithm(this);
     }
 
+    @Override
+    public MulticellReorderAlgorithm getReorderAlgorithm() {
+        return (MulticellReorderAlgorithm) super.getReorderAlgorithm();
+    }
+
     @Override
     public void copyCurrentStateToSolution(ItemConfiguration solution) {
         int childCount = mShortcutsAndWidgets.getChildCount();
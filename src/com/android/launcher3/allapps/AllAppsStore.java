@@ -15,6 +15,7 @@
  */
 package com.android.launcher3.allapps;
 
+import static com.android.launcher3.config.FeatureFlags.ENABLE_ALL_APPS_ICON_INDEX;
 import static com.android.launcher3.config.FeatureFlags.ENABLE_ALL_APPS_RV_PREINFLATION;
 import static com.android.launcher3.model.data.AppInfo.COMPONENT_KEY_COMPARATOR;
 import static com.android.launcher3.model.data.AppInfo.EMPTY_ARRAY;
@@ -27,6 +28,7 @@ import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import com.android.launcher3.BubbleTextView;
 import com.android.launcher3.model.data.AppInfo;
@@ -41,8 +43,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -66,6 +72,14 @@ public class AllAppsStore<T extends Context & ActivityContext> {
 
     private final List<OnUpdateListener> mUpdateListeners = new CopyOnWriteArrayList<>();
     private final ArrayList<ViewGroup> mIconContainers = new ArrayList<>();
+    // Containers whose icons are reported by onIconBound and onIconRecycled
+    private final ArrayList<ViewGroup> mIndexedIconContainers = new ArrayList<>();
+    // The icons bound by the indexed containers, by package
+    private final Map<PackageUserKey, Set<BubbleTextView>> mIconIndex = new HashMap<>();
+    private final Map<BubbleTextView, PackageUserKey> mIndexedIconKeys = new WeakHashMap<>();
+    private int mLastVisitedIconCount;
+    private long mTotalVisitedIconCount;
+    private int mIconUpdateCount;
     private Map<PackageUserKey, Integer> mPackageUserKeytoUidMap = Collections.emptyMap();
     private int mModelFlags;
     private int mDeferUpdatesFlags = 0;
@@ -197,24 +211,87 @@ public class AllAppsStore<T extends Context & ActivityContext> {
     }
 
     public void registerIconContainer(ViewGroup container) {
-        if (container != null && !mIconContainers.contains(container)) {
+        registerIconContainer(container, false /* reportsBoundIcons */);
+    }
+
+    /**
+     * Registers a container whose icons are updated with the apps. If {@param reportsBoundIcons}
+     * is true, the container reports the icons it binds using {@link #onIconBound} and
+     * {@link #onIconRecycled}, so that an update only visits the icons of the updated package.
+     */
+    public void registerIconContainer(ViewGroup container, boolean reportsBoundIcons) {
+        if (container == null || mIconContainers.contains(container)
+                || mIndexedIconContainers.contains(container)) {
+            return;
+        }
+        if (reportsBoundIcons && ENABLE_ALL_APPS_ICON_INDEX.get()) {
+            mIndexedIconContainers.add(container);
+        } else {
             mIconContainers.add(container);
         }
     }
 
     public void unregisterIconContainer(ViewGroup container) {
         mIconContainers.remove(container);
+        mIndexedIconContainers.remove(container);
+    }
+
+    /**
+     * Called when {@param icon} is bound to an item by a container registered with
+     * reportsBoundIcons
+     */
+    public void onIconBound(BubbleTextView icon) {
+        if (!ENABLE_ALL_APPS_ICON_INDEX.get()) {
+            return;
+        }
+        PackageUserKey key = icon.getTag() instanceof ItemInfo info
+                ? PackageUserKey.fromItemInfo(info) : null;
+        PackageUserKey oldKey = key == null
+                ? mIndexedIconKeys.remove(icon) : mIndexedIconKeys.put(icon, key);
+        if (Objects.equals(key, oldKey)) {
+            return;
+        }
+        removeFromIndex(oldKey, icon);
+        if (key != null) {
+            mIconIndex.computeIfAbsent(key, k -> Collections.newSetFromMap(new WeakHashMap<>()))
+                    .add(icon);
+        }
+    }
+
+    /**
+     * Called when {@param icon} is not bound to an item anymore by a container registered with
+     * reportsBoundIcons
+     */
+    public void onIconRecycled(BubbleTextView icon) {
+        removeFromIndex(mIndexedIconKeys.remove(icon), icon);
+    }
+
+    private void removeFromIndex(@Nullable PackageUserKey key, BubbleTextView icon) {
+        if (key == null) {
+            return;
+        }
+        Set<BubbleTextView> icons = mIconIndex.get(key);
+        if (icons != null && icons.remove(icon) && icons.isEmpty()) {
+            mIconIndex.remove(key);
+        }
     }
 
     public void updateNotificationDots(Predicate<PackageUserKey> updatedDots) {
-        updateAllIcons((child) -> {
+        Consumer<BubbleTextView> action = (child) -> {
             if (child.getTag() instanceof ItemInfo) {
                 ItemInfo info = (ItemInfo) child.getTag();
                 if (mTempKey.updateFromItemInfo(info) && updatedDots.test(mTempKey)) {
                     child.applyDotState(info, true /* animate */);
                 }
             }
-        });
+        };
+        mLastVisitedIconCount = 0;
+        for (Map.Entry<PackageUserKey, Set<BubbleTextView>> entry : mIconIndex.entrySet()) {
+            if (updatedDots.test(entry.getKey())) {
+                updateIndexedIcons(entry.getValue(), action);
+            }
+        }
+        updateAllIcons(action);
     }
 
     /**
@@ -227,7 +304,7 @@ public class AllAppsStore<T extends Context & ActivityContext> {
      * If this app is fully downloaded, the app icon will be reapplied.
      */
     public void updateProgressBar(AppInfo app) {
-        updateAllIcons((child) -> {
+        Consumer<BubbleTextView> action = (child) -> {
             if (child.getTag() == app) {
                 if ((app.runtimeStatusFlags & FLAG_SHOW_DOWNLOAD_PROGRESS_MASK) == 0) {
                     child.applyFromApplicationInfo(app);
@@ -235,7 +312,26 @@ public class AllAppsStore<T extends Context & ActivityContext> {
                     child.applyProgressLevel();
                 }
             }
-        });
+        };
+        mLastVisitedIconCount = 0;
+        PackageUserKey key = PackageUserKey.fromItemInfo(app);
+        Set<BubbleTextView> icons = key == null ? null : mIconIndex.get(key);
+        if (icons != null) {
+            updateIndexedIcons(icons, action);
+        }
+        updateAllIcons(action);
+    }
+
+    private void updateIndexedIcons(Set<BubbleTextView> icons, Consumer<BubbleTextView> action) {
+        // Copy the icons as the action can bind them again
+        for (BubbleTextView icon : icons.toArray(new BubbleTextView[0])) {
+            mLastVisitedIconCount++;
+            // Skip the icons which are bound but not shown, like the cached ones
+            if (icon.getParent() instanceof ViewGroup parent
+                    && mIndexedIconContainers.contains(parent)) {
+                action.accept(icon);
+            }
+        }
     }
 
     private void updateAllIcons(Consumer<BubbleTextView> action) {
@@ -245,11 +341,22 @@ public class AllAppsStore<T extends Context & ActivityContext> {
 
             for (int j = 0; j < childCount; j++) {
                 View child = parent.getChildAt(j);
+                mLastVisitedIconCount++;
                 if (child instanceof BubbleTextView) {
                     action.accept((BubbleTextView) child);
                 }
             }
         }
+        mTotalVisitedIconCount += mLastVisitedIconCount;
+        mIconUpdateCount++;
+    }
+
+    /**
+     * Returns the number of views visited by the last dot or progress update
+     */
+    @VisibleForTesting
+    public int getLastVisitedIconCount() {
+        return mLastVisitedIconCount;
     }
 
     public interface OnUpdateListener {
@@ -259,6 +366,8 @@ public class AllAppsStore<T extends Context & ActivityContext> {
     /** Generate a dumpsys for each app package name and position in the apps list */
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "\tAllAppsStore Apps[] size: " + mApps.length);
+        writer.println(prefix + "\tIcon updates: " + mIconUpdateCount + ", views visited: "
+                + mTotalVisitedIconCount + ", indexed packages: " + mIconIndex.size());
         for (int i = 0; i < mApps.length; i++) {
             writer.println(String.format("%s\tPackage index and name: %d/%s", prefix, i,
                     mApps[i].componentName.getPackageName()));
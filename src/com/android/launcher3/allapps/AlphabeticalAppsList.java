@@ -18,8 +18,11 @@ package com.android.launcher3.allapps;
 import static com.android.launcher3.allapps.SectionDecorationInfo.ROUND_BOTTOM_LEFT;
 import static com.android.launcher3.allapps.SectionDecorationInfo.ROUND_BOTTOM_RIGHT;
 import static com.android.launcher3.allapps.SectionDecorationInfo.ROUND_NOTHING;
+import static com.android.launcher3.config.FeatureFlags.ENABLE_ALL_APPS_BACKGROUND_SORT;
 import static com.android.launcher3.logging.StatsLogManager.LauncherEvent.LAUNCHER_PRIVATE_SPACE_PREINSTALLED_APPS_COUNT;
 import static com.android.launcher3.logging.StatsLogManager.LauncherEvent.LAUNCHER_PRIVATE_SPACE_USER_INSTALLED_APPS_COUNT;
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
 
 import android.content.Context;
 import android.text.Spannable;
@@ -29,6 +32,7 @@ import android.text.style.ImageSpan;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
 import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.DiffUtil.DiffResult;
 
 import com.android.launcher3.Flags;
 import com.android.launcher3.R;
@@ -103,6 +107,10 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
     private Predicate<ItemInfo> mItemFilter;
     private final boolean mSortSections;
 
+    // Incremented for every update, so that background work for older updates can be dropped
+    private volatile int mAppsUpdateId;
+    private volatile int mAdapterItemsUpdateId;
+
     public AlphabeticalAppsList(Context context, @Nullable AllAppsStore<T> appsStore,
             WorkProfileManager workProfileManager, PrivateProfileManager privateProfileManager) {
         mAllAppsStore = appsStore;
@@ -221,19 +229,75 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
                 mPrivateProviderManager.getAnimationRunning())) {
             return;
         }
+        AppInfo[] apps = mAllAppsStore.getApps();
+        Predicate<ItemInfo> itemFilter = null;
+        Predicate<ItemInfo> privateItemFilter = null;
+        if (!hasSearchResults() && mItemFilter != null) {
+            itemFilter = mItemFilter;
+            if (mPrivateProviderManager != null) {
+                privateItemFilter = mPrivateProviderManager.getItemInfoMatcher();
+            }
+        }
+        if (ENABLE_ALL_APPS_BACKGROUND_SORT.get()) {
+            updateAppsAsync(apps, itemFilter, privateItemFilter);
+            return;
+        }
+
         // Sort the list of apps
         mApps.clear();
         mPrivateApps.clear();
+        sortApps(apps, itemFilter, privateItemFilter, mApps, mPrivateApps);
+        // Recompose the set of adapter items from the current set of apps
+        if (mSearchResults.isEmpty()) {
+            updateAdapterItems();
+        }
+    }
 
-        Stream<AppInfo> appSteam = Stream.of(mAllAppsStore.getApps());
-        Stream<AppInfo> privateAppStream = Stream.of(mAllAppsStore.getApps());
-
-        if (!hasSearchResults() && mItemFilter != null) {
-            appSteam = appSteam.filter(mItemFilter);
-            if (mPrivateProviderManager != null) {
-                privateAppStream = privateAppStream
-                        .filter(mPrivateProviderManager.getItemInfoMatcher());
+    /**
+     * Sorts and filters the apps on a background thread, then updates the adapter items with the
+     * result if no newer update was started in the meantime.
+     */
+    private void updateAppsAsync(AppInfo[] apps, @Nullable Predicate<ItemInfo> itemFilter,
+            @Nullable Predicate<ItemInfo> privateItemFilter) {
+        int updateId = ++mAppsUpdateId;
+        UI_HELPER_EXECUTOR.execute(() -> {
+            if (updateId != mAppsUpdateId) {
+                return;
             }
+            List<AppInfo> sortedApps = new ArrayList<>();
+            List<AppInfo> sortedPrivateApps = new ArrayList<>();
+            sortApps(apps, itemFilter, privateItemFilter, sortedApps, sortedPrivateApps);
+            MAIN_EXECUTOR.execute(() -> {
+                if (updateId != mAppsUpdateId || (mPrivateProviderManager != null
+                        && mPrivateProviderManager.getAnimationRunning())) {
+                    return;
+                }
+                mApps.clear();
+                mApps.addAll(sortedApps);
+                mPrivateApps.clear();
+                mPrivateApps.addAll(sortedPrivateApps);
+                if (mSearchResults.isEmpty()) {
+                    updateAdapterItemsAsync();
+                }
+            });
+        });
+    }
+
+    /**
+     * Adds {@param apps} matching the filters to {@param outApps} and {@param outPrivateApps},
+     * sorted by name. This does not use the state of this list and can be called on any thread.
+     */
+    private void sortApps(AppInfo[] apps, @Nullable Predicate<ItemInfo> itemFilter,
+            @Nullable Predicate<ItemInfo> privateItemFilter, List<AppInfo> outApps,
+            List<AppInfo> outPrivateApps) {
+        Stream<AppInfo> appSteam = Stream.of(apps);
+        Stream<AppInfo> privateAppStream = Stream.of(apps);
+
+        if (itemFilter != null) {
+            appSteam = appSteam.filter(itemFilter);
+        }
+        if (privateItemFilter != null) {
+            privateAppStream = privateAppStream.filter(privateItemFilter);
         }
         appSteam = appSteam.sorted(mAppNameComparator);
         privateAppStream = privateAppStream.sorted(mAppNameComparator);
@@ -252,12 +316,8 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
                     .flatMap(ArrayList::stream);
         }
 
-        appSteam.forEachOrdered(mApps::add);
-        privateAppStream.forEachOrdered(mPrivateApps::add);
-        // Recompose the set of adapter items from the current set of apps
-        if (mSearchResults.isEmpty()) {
-            updateAdapterItems();
-        }
+        appSteam.forEachOrdered(outApps::add);
+        privateAppStream.forEachOrdered(outPrivateApps::add);
     }
 
     /**
@@ -265,36 +325,91 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
      * mCachedSectionNames to have been calculated for the set of all apps in mApps.
      */
     public void updateAdapterItems() {
+        mAdapterItemsUpdateId++;
         List<AdapterItem> oldItems = new ArrayList<>(mAdapterItems);
-        // Prepare to update the list of sections, filtered apps, etc.
-        mFastScrollerSections.clear();
-        mAdapterItems.clear();
-        mAccessibilityResultsCount = 0;
+        ArrayList<AdapterItem> items = new ArrayList<>();
+        List<FastScrollSectionInfo> sections = new ArrayList<>();
+        addAdapterItems(items, sections);
+        setAdapterItems(items, sections);
 
+        if (mAdapter != null) {
+            DiffUtil.calculateDiff(new MyDiffCallback(oldItems, mAdapterItems), false)
+                    .dispatchUpdatesTo(mAdapter);
+        }
+    }
+
+    /**
+     * Same as {@link #updateAdapterItems} but computes the changes to dispatch to the adapter on a
+     * background thread. The current items are kept until the changes are dispatched.
+     */
+    private void updateAdapterItemsAsync() {
+        // The private space items notify the adapter while they are added
+        if (mAdapter == null || shouldAddPrivateSpaceItems()) {
+            updateAdapterItems();
+            return;
+        }
+        int updateId = ++mAdapterItemsUpdateId;
+        List<AdapterItem> oldItems = new ArrayList<>(mAdapterItems);
+        ArrayList<AdapterItem> items = new ArrayList<>();
+        List<FastScrollSectionInfo> sections = new ArrayList<>();
+        addAdapterItems(items, sections);
+        UI_HELPER_EXECUTOR.execute(() -> {
+            if (updateId != mAdapterItemsUpdateId) {
+                return;
+            }
+            DiffResult diff = DiffUtil.calculateDiff(new MyDiffCallback(oldItems, items), false);
+            MAIN_EXECUTOR.execute(() -> {
+                if (updateId != mAdapterItemsUpdateId) {
+                    return;
+                }
+                if (!oldItems.equals(mAdapterItems)) {
+                    // The items were changed directly, the diff can not be applied anymore
+                    updateAdapterItems();
+                    return;
+                }
+                setAdapterItems(items, sections);
+                diff.dispatchUpdatesTo(mAdapter);
+            });
+        });
+    }
+
+    /**
+     * Adds the items of the current filtered apps to {@param items} and their fast scroller
+     * sections to {@param sections}
+     */
+    private void addAdapterItems(ArrayList<AdapterItem> items,
+            List<FastScrollSectionInfo> sections) {
         // Recreate the filtered and sectioned apps (for convenience for the grid layout) from the
         // ordered set of sections
         if (hasSearchResults()) {
-            mAdapterItems.addAll(mSearchResults);
+            items.addAll(mSearchResults);
         } else {
             int position = 0;
             boolean addApps = true;
             if (mWorkProviderManager != null) {
-                position += mWorkProviderManager.addWorkItems(mAdapterItems);
+                position += mWorkProviderManager.addWorkItems(items);
                 addApps = mWorkProviderManager.shouldShowWorkApps();
             }
             if (addApps) {
                 if (/* education card was added */ position == 1) {
                     // Add work educard section with "info icon" at 0th position.
-                    mFastScrollerSections.add(new FastScrollSectionInfo(
+                    sections.add(new FastScrollSectionInfo(
                             mActivityContext.getResources().getString(
                                     R.string.work_profile_edu_section), 0));
                 }
-                position = addAppsWithSections(mApps, position);
+                position = addAppsWithSections(mApps, position, items, sections);
             }
             if (Flags.enablePrivateSpace()) {
-                position = addPrivateSpaceItems(position);
+                position = addPrivateSpaceItems(position, items, sections);
             }
         }
+    }
+
+    private void setAdapterItems(List<AdapterItem> items, List<FastScrollSectionInfo> sections) {
+        mAdapterItems.clear();
+        mAdapterItems.addAll(items);
+        mFastScrollerSections.clear();
+        mFastScrollerSections.addAll(sections);
         mAccessibilityResultsCount = (int) mAdapterItems.stream()
                 .filter(AdapterItem::isCountedForAccessibility).count();
 
@@ -323,20 +438,23 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
             }
             mNumAppRowsInAdapter = rowIndex + 1;
         }
+    }
 
-        if (mAdapter != null) {
-            DiffUtil.calculateDiff(new MyDiffCallback(oldItems, mAdapterItems), false)
-                    .dispatchUpdatesTo(mAdapter);
-        }
+    private boolean shouldAddPrivateSpaceItems() {
+        return Flags.enablePrivateSpace()
+                && mPrivateProviderManager != null
+                && !mPrivateProviderManager.isPrivateSpaceHidden()
+                && !mPrivateApps.isEmpty();
     }
 
-    int addPrivateSpaceItems(int position) {
+    int addPrivateSpaceItems(int position, ArrayList<AdapterItem> items,
+            List<FastScrollSectionInfo> sections) {
         if (mPrivateProviderManager != null
                 && !mPrivateProviderManager.isPrivateSpaceHidden()
                 && !mPrivateApps.isEmpty()) {
             // Always add PS Header if Space is present and visible.
-            position = mPrivateProviderManager.addPrivateSpaceHeader(mAdapterItems);
-            mFastScrollerSections.add(new FastScrollSectionInfo(
+            position = mPrivateProviderManager.addPrivateSpaceHeader(items);
+            sections.add(new FastScrollSectionInfo(
                     mPrivateProfileAppScrollerBadge, position));
             int privateSpaceState = mPrivateProviderManager.getCurrentState();
             switch (privateSpaceState) {
@@ -345,17 +463,18 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
                     break;
                 case PrivateProfileManager.STATE_ENABLED:
                     // Add PS Apps only in Enabled State.
-                    position = addPrivateSpaceApps(position);
+                    position = addPrivateSpaceApps(position, items, sections);
                     break;
             }
         }
         return position;
     }
 
-    private int addPrivateSpaceApps(int position) {
+    private int addPrivateSpaceApps(int position, ArrayList<AdapterItem> items,
+            List<FastScrollSectionInfo> sections) {
         // Add Install Apps Button first.
         if (Flags.privateSpaceAppInstallerButton()) {
-            mPrivateProviderManager.addPrivateSpaceInstallAppButton(mAdapterItems);
+            mPrivateProviderManager.addPrivateSpaceInstallAppButton(items);
             position++;
         }
 
@@ -378,18 +497,19 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
                 .log(LAUNCHER_PRIVATE_SPACE_PREINSTALLED_APPS_COUNT);
 
         // Add user installed apps
-        position = addAppsWithSections(split.get(true), position);
+        position = addAppsWithSections(split.get(true), position, items, sections);
         // Add system apps separator.
         if (Flags.privateSpaceSysAppsSeparation()) {
-            position = mPrivateProviderManager.addSystemAppsDivider(mAdapterItems);
+            position = mPrivateProviderManager.addSystemAppsDivider(items);
         }
         // Add system apps.
-        position = addAppsWithSections(split.get(false), position);
+        position = addAppsWithSections(split.get(false), position, items, sections);
 
         return position;
     }
 
-    private int addAppsWithSections(List<AppInfo> appList, int startPosition) {
+    private int addAppsWithSections(List<AppInfo> appList, int startPosition,
+            List<AdapterItem> items, List<FastScrollSectionInfo> sections) {
         String lastSectionName = null;
         boolean hasPrivateApps = false;
         int position = startPosition;
@@ -401,19 +521,19 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
             AppInfo info = appList.get(i);
             // Apply decorator to private apps.
             if (hasPrivateApps) {
-                mAdapterItems.add(AdapterItem.asAppWithDecorationInfo(info,
+                items.add(AdapterItem.asAppWithDecorationInfo(info,
                         new SectionDecorationInfo(mActivityContext.getApplicationContext(),
                                 getRoundRegions(i, appList.size()),
                                 true /* decorateTogether */)));
             } else {
-                mAdapterItems.add(AdapterItem.asApp(info));
+                items.add(AdapterItem.asApp(info));
             }
 
             String sectionName = info.sectionName;
             // Create a new section if the section names do not match
             if (!sectionName.equals(lastSectionName)) {
                 lastSectionName = sectionName;
-                mFastScrollerSections.add(new FastScrollSectionInfo(hasPrivateApps ?
+                sections.add(new FastScrollSectionInfo(hasPrivateApps ?
                         mPrivateProfileAppScrollerBadge : sectionName, position));
             }
             position++;
@@ -458,6 +578,11 @@ public class AlphabeticalAppsList<T extends Context & ActivityContext> implement
         return roundRegion;
     }
 
+    @Nullable
+    AllAppsStore<T> getAppsStore() {
+        return mAllAppsStore;
+    }
+
     public PrivateProfileManager getPrivateProfileManager() {
         return mPrivateProviderManager;
     }
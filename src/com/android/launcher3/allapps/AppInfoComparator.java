@@ -15,6 +15,8 @@
  */
 package com.android.launcher3.allapps;
 
+import static com.android.launcher3.config.FeatureFlags.ENABLE_ALL_APPS_BACKGROUND_SORT;
+
 import android.content.Context;
 import android.os.Process;
 import android.os.UserHandle;
@@ -25,6 +27,8 @@ import com.android.launcher3.pm.UserCache;
 import com.android.launcher3.util.LabelComparator;
 
 import java.util.Comparator;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 /**
  * A comparator to arrange items based on user profiles.
@@ -34,6 +38,8 @@ public class AppInfoComparator implements Comparator<AppInfo> {
     private final UserCache mUserManager;
     private final UserHandle mMyUser;
     private final LabelComparator mLabelComparator;
+    // Sorting keys of the apps, which are computed again when the title of an app changes
+    private final Map<AppInfo, LabelComparator.Key> mSortingKeys = new WeakHashMap<>();
 
     public AppInfoComparator(Context context) {
         mUserManager = UserCache.INSTANCE.get(context);
@@ -44,7 +50,9 @@ public class AppInfoComparator implements Comparator<AppInfo> {
     @Override
     public int compare(AppInfo a, AppInfo b) {
         // Order by the title in the current locale
-        int result = mLabelComparator.compare(getSortingTitle(a), getSortingTitle(b));
+        int result = ENABLE_ALL_APPS_BACKGROUND_SORT.get()
+                ? mLabelComparator.compare(getSortingKey(a), getSortingKey(b))
+                : mLabelComparator.compare(getSortingTitle(a), getSortingTitle(b));
         if (result != 0) {
             return result;
         }
@@ -64,6 +72,18 @@ public class AppInfoComparator implements Comparator<AppInfo> {
         }
     }
 
+    private LabelComparator.Key getSortingKey(AppInfo info) {
+        String title = getSortingTitle(info);
+        synchronized (mSortingKeys) {
+            LabelComparator.Key key = mSortingKeys.get(info);
+            if (key == null || !key.title().equals(title)) {
+                key = mLabelComparator.getKey(title);
+                mSortingKeys.put(info, key);
+            }
+            return key;
+        }
+    }
+
     private String getSortingTitle(AppInfo info) {
         if (!TextUtils.isEmpty(info.appTitle)) {
             return info.appTitle.toString();
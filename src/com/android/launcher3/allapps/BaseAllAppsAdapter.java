@@ -264,6 +264,7 @@ public abstract class BaseAllAppsAdapter<T extends Context & ActivityContext> ex
                 icon.reset();
                 icon.applyFromApplicationInfo(adapterItem.itemInfo);
                 icon.setOnFocusChangeListener(mIconFocusListener);
+                onIconBound(icon);
                 PrivateProfileManager privateProfileManager = mApps.getPrivateProfileManager();
                 if (privateProfileManager != null) {
                     // Set the alpha of the private space icon to 0 upon expanding the header so the
@@ -326,10 +327,28 @@ public abstract class BaseAllAppsAdapter<T extends Context & ActivityContext> ex
             default:
                 if (mAdapterProvider.isViewSupported(holder.getItemViewType())) {
                     mAdapterProvider.onBindView(holder, position);
+                    if (holder.itemView instanceof BubbleTextView icon) {
+                        onIconBound(icon);
+                    }
                 }
         }
     }
 
+    @Override
+    public void onViewRecycled(ViewHolder holder) {
+        AllAppsStore<T> appsStore = mApps.getAppsStore();
+        if (appsStore != null && holder.itemView instanceof BubbleTextView icon) {
+            appsStore.onIconRecycled(icon);
+        }
+    }
+
+    private void onIconBound(BubbleTextView icon) {
+        AllAppsStore<T> appsStore = mApps.getAppsStore();
+        if (appsStore != null) {
+            appsStore.onIconBound(icon);
+        }
+    }
+
     @Override
     public boolean onFailedToRecycleView(ViewHolder holder) {
         // Always recycle and we will reset the view when it is bound
@@ -22,10 +22,12 @@ import android.content.Context;
 import android.os.Handler;
 
 import androidx.annotation.AnyThread;
+import androidx.annotation.WorkerThread;
 
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.allapps.BaseAllAppsAdapter.AdapterItem;
 import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.search.AppTitleSearchIndex;
 import com.android.launcher3.search.SearchAlgorithm;
 import com.android.launcher3.search.SearchCallback;
 import com.android.launcher3.search.StringMatcherUtility;
@@ -64,7 +66,7 @@ public class DefaultAppSearchAlgorithm implements SearchAlgorithm<AdapterItem> {
     @Override
     public void doSearch(String query, SearchCallback<AdapterItem> callback) {
         mAppState.getModel().enqueueModelUpdateTask((taskController, dataModel, apps) ->  {
-            ArrayList<AdapterItem> result = getTitleMatchResult(apps.data, query);
+            ArrayList<AdapterItem> result = getTitleMatchResult(apps.getSearchIndex(), query);
             if (mAddNoResultsMessage && result.isEmpty()) {
                 result.add(getEmptyMessageAdapterItem(query));
             }
@@ -81,6 +83,19 @@ public class DefaultAppSearchAlgorithm implements SearchAlgorithm<AdapterItem> {
         return item;
     }
 
+    /**
+     * Filters {@link AppInfo}s matching specified query using the prebuilt title index
+     */
+    @WorkerThread
+    public static ArrayList<AdapterItem> getTitleMatchResult(
+            AppTitleSearchIndex index, String query) {
+        final ArrayList<AdapterItem> result = new ArrayList<>();
+        for (AppInfo info : index.query(query, MAX_RESULTS_COUNT)) {
+            result.add(AdapterItem.asApp(info));
+        }
+        return result;
+    }
+
     /**
      * Filters {@link AppInfo}s matching specified query
      */
@@ -51,11 +51,13 @@ class ItemConfiguration : CellAndSpan() {
     }
 
     fun getBoundingRectForViews(views: ArrayList<View>, outRect: Rect) {
-        views
-            .mapNotNull { v -> map[v] }
-            .forEachIndexed { i, c ->
-                if (i == 0) outRect.set(c.cellX, c.cellY, c.cellX + c.spanX, c.cellY + c.spanY)
-                else outRect.union(c.cellX, c.cellY, c.cellX + c.spanX, c.cellY + c.spanY)
-            }
+        // Called for every step of a push, so avoid allocating
+        var first = true
+        for (i in views.indices) {
+            val c = map[views[i]] ?: continue
+            if (first) outRect.set(c.cellX, c.cellY, c.cellX + c.spanX, c.cellY + c.spanY)
+            else outRect.union(c.cellX, c.cellY, c.cellX + c.spanX, c.cellY + c.spanY)
+            first = false
+        }
     }
 }
@@ -33,6 +33,11 @@ public class MulticellReorderAlgorithm extends ReorderAlgorithm {
 
     private final View mSeam;
 
+    // Reused between simulations, as the seam is added for every step of a drag
+    private GridOccupancy mSeamOccupied;
+    private GridOccupancy mSeamTmpOccupied;
+    private GridOccupancy mSavedTmpOccupied;
+
     public MulticellReorderAlgorithm(CellLayout cellLayout) {
         super(cellLayout);
         mSeam = new View(cellLayout.getContext());
@@ -77,14 +82,17 @@ public class MulticellReorderAlgorithm extends ReorderAlgorithm {
         mcl.setCountX(mcl.getCountX() + 1);
         mcl.getShortcutsAndWidgets().addViewInLayout(mSeam, lp);
         mcl.setOccupied(createGridOccupancyWithSeam());
-        mcl.mTmpOccupied = new GridOccupancy(mcl.getCountX(), mcl.getCountY());
+        mSavedTmpOccupied = mcl.mTmpOccupied;
+        mSeamTmpOccupied = obtainEmptyGrid(mSeamTmpOccupied);
+        mcl.mTmpOccupied = mSeamTmpOccupied;
     }
 
     void removeSeam() {
         MultipageCellLayout mcl = (MultipageCellLayout) mCellLayout;
         mcl.setCountX(mcl.getCountX() - 1);
         mcl.getShortcutsAndWidgets().removeViewInLayout(mSeam);
-        mcl.mTmpOccupied = new GridOccupancy(mcl.getCountX(), mcl.getCountY());
+        mcl.mTmpOccupied = obtainEmptyGrid(mSavedTmpOccupied);
+        mSavedTmpOccupied = null;
         mcl.setSeamWasAdded(false);
     }
 
@@ -110,7 +118,8 @@ public class MulticellReorderAlgorithm extends ReorderAlgorithm {
 
     GridOccupancy createGridOccupancyWithSeam() {
         ShortcutAndWidgetContainer shortcutAndWidgets = mCellLayout.getShortcutsAndWidgets();
-        GridOccupancy grid = new GridOccupancy(mCellLayout.getCountX(), mCellLayout.getCountY());
+        mSeamOccupied = obtainEmptyGrid(mSeamOccupied);
+        GridOccupancy grid = mSeamOccupied;
         for (int i = 0; i < shortcutAndWidgets.getChildCount(); i++) {
             View view = shortcutAndWidgets.getChildAt(i);
             CellLayoutLayoutParams lp = (CellLayoutLayoutParams) view.getLayoutParams();
@@ -121,4 +130,19 @@ public class MulticellReorderAlgorithm extends ReorderAlgorithm {
         Arrays.fill(grid.cells[mCellLayout.getCountX() / 2], true);
         return grid;
     }
+
+    /**
+     * Returns {@param grid} cleared if it matches the current size of the CellLayout, or a new
+     * empty grid otherwise
+     */
+    private GridOccupancy obtainEmptyGrid(GridOccupancy grid) {
+        int countX = mCellLayout.getCountX();
+        int countY = mCellLayout.getCountY();
+        if (grid == null || grid.cells.length != countX
+                || (countX > 0 && grid.cells[0].length != countY)) {
+            return new GridOccupancy(countX, countY);
+        }
+        grid.clear();
+        return grid;
+    }
 }
@@ -24,7 +24,6 @@ import com.android.launcher3.util.GridOccupancy;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.List;
 import java.util.Map.Entry;
 
 /**
@@ -32,11 +31,37 @@ import java.util.Map.Entry;
  *
  * The content of this class was extracted from {@link CellLayout} and should mimic the exact
  * same behaviour.
+ *
+ * The scratch state used while searching for a solution is kept in the instance, so that a drag
+ * over does not allocate for every candidate. An instance is therefore not reentrant and is
+ * expected to be reused for the same {@link CellLayout}, see
+ * {@link CellLayout#getReorderAlgorithm()}.
  */
 public class ReorderAlgorithm {
 
+    // The views are sorted by their position so that the results are deterministic on the views
+    // positions and not by the views hash which is "random".
+    private static final Comparator<View> POSITION_COMPARATOR = (a, b) -> {
+        CellLayoutLayoutParams lpA = (CellLayoutLayoutParams) a.getLayoutParams();
+        CellLayoutLayoutParams lpB = (CellLayoutLayoutParams) b.getLayoutParams();
+        int result = Integer.compare(lpA.getCellX(), lpB.getCellX());
+        return result != 0 ? result : Integer.compare(lpA.getCellY(), lpB.getCellY());
+    };
+
     CellLayout mCellLayout;
 
+    private final int[] mTmpPoint = new int[2];
+    private final int[] mTmpReorderCell = new int[2];
+    private final int[] mTmpDirection = new int[2];
+    private final Rect mTmpRect = new Rect();
+    private final Rect mTmpOccupiedRect = new Rect();
+    private final Rect mTmpDropRect = new Rect();
+    private final Rect mTmpBoundingRect = new Rect();
+    private final ArrayList<View> mTmpSortedViews = new ArrayList<>();
+    private final ArrayList<View> mTmpIntersectingViews = new ArrayList<>();
+    private GridOccupancy mTmpBlockOccupied;
+    private ViewCluster mTmpCluster;
+
     public ReorderAlgorithm(CellLayout cellLayout) {
         mCellLayout = cellLayout;
     }
@@ -91,8 +116,8 @@ public class ReorderAlgorithm {
 
         // We find the nearest cell into which we would place the dragged item, assuming there's
         // nothing in its way.
-        int[] result = new int[2];
-        result = mCellLayout.findNearestAreaIgnoreOccupied(pixelX, pixelY, spanX, spanY, result);
+        int[] result = mCellLayout.findNearestAreaIgnoreOccupied(pixelX, pixelY, spanX, spanY,
+                mTmpReorderCell);
 
         boolean success;
         // First we try the exact nearest position of the item being dragged,
@@ -126,8 +151,10 @@ public class ReorderAlgorithm {
         // Return early if get invalid cell positions
         if (cellX < 0 || cellY < 0) return false;
 
-        ArrayList<View> intersectingViews = new ArrayList<>();
-        Rect occupiedRect = new Rect(cellX, cellY, cellX + spanX, cellY + spanY);
+        ArrayList<View> intersectingViews = mTmpIntersectingViews;
+        intersectingViews.clear();
+        Rect occupiedRect = mTmpOccupiedRect;
+        occupiedRect.set(cellX, cellY, cellX + spanX, cellY + spanY);
 
         // Mark the desired location of the view currently being dragged.
         if (ignoreView != null) {
@@ -137,32 +164,35 @@ public class ReorderAlgorithm {
                 c.cellY = cellY;
             }
         }
-        Rect r0 = new Rect(cellX, cellY, cellX + spanX, cellY + spanY);
-        Rect r1 = new Rect();
-        // The views need to be sorted so that the results are deterministic on the views positions
-        // and not by the views hash which is "random".
-        // The views are sorted twice, once for the X position and a second time for the Y position
-        // to ensure same order everytime.
-        Comparator comparator = Comparator.comparing(
-                view -> ((CellLayoutLayoutParams) ((View) view).getLayoutParams()).getCellX()
-        ).thenComparing(
-                view -> ((CellLayoutLayoutParams) ((View) view).getLayoutParams()).getCellY()
-        );
-        List<View> views = solution.map.keySet().stream().sorted(comparator).toList();
-        for (View child : views) {
+        Rect r1 = mTmpRect;
+        ArrayList<View> views = mTmpSortedViews;
+        views.clear();
+        for (int i = 0; i < solution.map.size(); i++) {
+            views.add(solution.map.keyAt(i));
+        }
+        views.sort(POSITION_COMPARATOR);
+        for (int i = 0; i < views.size(); i++) {
+            View child = views.get(i);
             if (child == ignoreView) continue;
             CellAndSpan c = solution.map.get(child);
             CellLayoutLayoutParams lp = (CellLayoutLayoutParams) child.getLayoutParams();
             r1.set(c.cellX, c.cellY, c.cellX + c.spanX, c.cellY + c.spanY);
-            if (Rect.intersects(r0, r1)) {
+            if (Rect.intersects(occupiedRect, r1)) {
                 if (!lp.canReorder) {
+                    views.clear();
                     return false;
                 }
                 intersectingViews.add(child);
             }
         }
+        views.clear();
 
-        solution.intersectingViews = intersectingViews;
+        // The solution keeps its own list, as it is read after the reorder
+        solution.intersectingViews.clear();
+        for (int i = 0; i < intersectingViews.size(); i++) {
+            solution.intersectingViews.add(intersectingViews.get(i));
+        }
+        intersectingViews = solution.intersectingViews;
 
         // First we try to find a solution which respects the push mechanic. That is,
         // we try to find a solution such that no displaced item travels through another item
@@ -195,7 +225,7 @@ public class ReorderAlgorithm {
         mCellLayout.mTmpOccupied.markCells(rectOccupiedByPotentialDrop, true);
 
         int[] tmpLocation = findNearestArea(c.cellX, c.cellY, c.spanX, c.spanY, direction,
-                mCellLayout.mTmpOccupied.cells, null, new int[2]);
+                mCellLayout.mTmpOccupied.cells, null, mTmpPoint);
 
         if (tmpLocation[0] >= 0 && tmpLocation[1] >= 0) {
             c.cellX = tmpLocation[0];
@@ -209,7 +239,7 @@ public class ReorderAlgorithm {
     private boolean pushViewsToTempLocation(ArrayList<View> views, Rect rectOccupiedByPotentialDrop,
             int[] direction, View dragView, ItemConfiguration currentState) {
 
-        ViewCluster cluster = new ViewCluster(mCellLayout, views, currentState);
+        ViewCluster cluster = obtainCluster(views, currentState);
         Rect clusterRect = cluster.getBoundingRect();
         int whichEdge;
         int pushDistance;
@@ -353,7 +383,7 @@ public class ReorderAlgorithm {
         if (views.isEmpty()) return true;
 
         boolean success = false;
-        Rect boundingRect = new Rect();
+        Rect boundingRect = mTmpBoundingRect;
         // We construct a rect which represents the entire group of views passed in
         currentState.getBoundingRectForViews(views, boundingRect);
 
@@ -363,7 +393,7 @@ public class ReorderAlgorithm {
             mCellLayout.mTmpOccupied.markCells(c, false);
         }
 
-        GridOccupancy blockOccupied = new GridOccupancy(boundingRect.width(),
+        GridOccupancy blockOccupied = obtainBlockOccupied(boundingRect.width(),
                 boundingRect.height());
         int top = boundingRect.top;
         int left = boundingRect.left;
@@ -378,7 +408,7 @@ public class ReorderAlgorithm {
 
         int[] tmpLocation = findNearestArea(boundingRect.left, boundingRect.top,
                 boundingRect.width(), boundingRect.height(), direction,
-                mCellLayout.mTmpOccupied.cells, blockOccupied.cells, new int[2]);
+                mCellLayout.mTmpOccupied.cells, blockOccupied.cells, mTmpPoint);
 
         // If we successfully found a location by pushing the block of views, we commit it
         if (tmpLocation[0] >= 0 && tmpLocation[1] >= 0) {
@@ -530,23 +560,24 @@ public class ReorderAlgorithm {
             int[] resultDirection) {
 
         //TODO(adamcohen) b/151776141 use the items visual center for the direction vector
-        int[] targetDestination = new int[2];
+        int[] targetDestination = mTmpPoint;
 
         mCellLayout.findNearestAreaIgnoreOccupied(reorderParameters.getPixelX(),
                 reorderParameters.getPixelY(), reorderParameters.getSpanX(),
                 reorderParameters.getSpanY(), targetDestination);
-        Rect dragRect = new Rect();
+        Rect dragRect = mTmpRect;
         mCellLayout.cellToRect(targetDestination[0], targetDestination[1],
                 reorderParameters.getSpanX(), reorderParameters.getSpanY(), dragRect);
         dragRect.offset(reorderParameters.getPixelX() - dragRect.centerX(),
                 reorderParameters.getPixelY() - dragRect.centerY());
 
-        Rect region = new Rect(targetDestination[0], targetDestination[1],
+        Rect region = mTmpDropRect;
+        region.set(targetDestination[0], targetDestination[1],
                 targetDestination[0] + reorderParameters.getSpanX(),
                 targetDestination[1] + reorderParameters.getSpanY());
         Rect dropRegionRect = mCellLayout.getIntersectingRectanglesInRegion(region,
                 reorderParameters.getDragView());
-        if (dropRegionRect == null) dropRegionRect = new Rect(region);
+        if (dropRegionRect == null) dropRegionRect = region;
 
         int dropRegionSpanX = dropRegionRect.width();
         int dropRegionSpanY = dropRegionRect.height();
@@ -577,6 +608,31 @@ public class ReorderAlgorithm {
         }
     }
 
+    /**
+     * Returns the cluster used to push {@param views}, reusing the previous one if possible
+     */
+    private ViewCluster obtainCluster(ArrayList<View> views, ItemConfiguration config) {
+        if (mTmpCluster == null || !mTmpCluster.reset(views, config)) {
+            mTmpCluster = new ViewCluster(mCellLayout, views, config);
+        }
+        return mTmpCluster;
+    }
+
+    /**
+     * Returns an empty occupancy of at least the given size, reusing the previous one if possible
+     */
+    private GridOccupancy obtainBlockOccupied(int countX, int countY) {
+        if (mTmpBlockOccupied == null || mTmpBlockOccupied.cells.length < countX
+                || mTmpBlockOccupied.cells[0].length < countY) {
+            mTmpBlockOccupied = new GridOccupancy(
+                    Math.max(countX, mCellLayout.getCountX()),
+                    Math.max(countY, mCellLayout.getCountY()));
+        } else {
+            mTmpBlockOccupied.markCells(0, 0, countX, countY, false);
+        }
+        return mTmpBlockOccupied;
+    }
+
     /**
      * Find a vacant area that will fit the given bounds nearest the requested
      * cell location, and will also weigh in a suggested direction vector of the
@@ -622,7 +678,7 @@ public class ReorderAlgorithm {
                 }
 
                 float distance = (float) Math.hypot(x - cellX, y - cellY);
-                int[] curDirection = new int[2];
+                int[] curDirection = mTmpDirection;
                 computeDirectionVector(x - cellX, y - cellY, curDirection);
                 // The direction score is just the dot product of the two candidate direction
                 // and that passed in.
@@ -18,6 +18,7 @@ package com.android.launcher3.celllayout
 import android.graphics.Rect
 import android.view.View
 import com.android.launcher3.CellLayout
+import com.android.launcher3.util.CellAndSpan
 import java.util.Collections
 
 /**
@@ -29,10 +30,14 @@ import java.util.Collections
 class ViewCluster(
     private val mCellLayout: CellLayout,
     views: ArrayList<View>,
-    val config: ItemConfiguration
+    config: ItemConfiguration
 ) {
 
     @JvmField val views = ArrayList<View>(views)
+
+    var config: ItemConfiguration = config
+        private set
+
     private val boundingRect = Rect()
 
     private val leftEdge = IntArray(mCellLayout.countY)
@@ -48,6 +53,24 @@ class ViewCluster(
     init {
         resetEdges()
     }
+
+    /**
+     * Reuses this cluster for another group of views. Returns false if the size of the grid has
+     * changed since the cluster was created, in which case it can not be reused.
+     */
+    fun reset(views: ArrayList<View>, config: ItemConfiguration): Boolean {
+        if (leftEdge.size != mCellLayout.countY || topEdge.size != mCellLayout.countX) {
+            return false
+        }
+        this.views.clear()
+        for (i in views.indices) {
+            this.views.add(views[i])
+        }
+        this.config = config
+        resetEdges()
+        return true
+    }
+
     private fun resetEdges() {
         for (i in 0 until mCellLayout.countX) {
             topEdge[i] = -1
@@ -62,40 +85,38 @@ class ViewCluster(
     }
 
     private fun computeEdge(which: Int) =
-        views
-            .mapNotNull { v -> config.map[v] }
-            .forEach { cs ->
-                val left = cs.cellX
-                val right = cs.cellX + cs.spanX
-                val top = cs.cellY
-                val bottom = cs.cellY + cs.spanY
-                when (which) {
-                    LEFT ->
-                        for (j in top until bottom) {
-                            if (left < leftEdge[j] || leftEdge[j] < 0) {
-                                leftEdge[j] = left
-                            }
+        forEachCell { cs ->
+            val left = cs.cellX
+            val right = cs.cellX + cs.spanX
+            val top = cs.cellY
+            val bottom = cs.cellY + cs.spanY
+            when (which) {
+                LEFT ->
+                    for (j in top until bottom) {
+                        if (left < leftEdge[j] || leftEdge[j] < 0) {
+                            leftEdge[j] = left
                         }
-                    RIGHT ->
-                        for (j in top until bottom) {
-                            if (right > rightEdge[j]) {
-                                rightEdge[j] = right
-                            }
+                    }
+                RIGHT ->
+                    for (j in top until bottom) {
+                        if (right > rightEdge[j]) {
+                            rightEdge[j] = right
                         }
-                    TOP ->
-                        for (j in left until right) {
-                            if (top < topEdge[j] || topEdge[j] < 0) {
-                                topEdge[j] = top
-                            }
+                    }
+                TOP ->
+                    for (j in left until right) {
+                        if (top < topEdge[j] || topEdge[j] < 0) {
+                            topEdge[j] = top
                         }
-                    BOTTOM ->
-                        for (j in left until right) {
-                            if (bottom > bottomEdge[j]) {
-                                bottomEdge[j] = bottom
-                            }
+                    }
+                BOTTOM ->
+                    for (j in left until right) {
+                        if (bottom > bottomEdge[j]) {
+                            bottomEdge[j] = bottom
                         }
-                }
+                    }
             }
+        }
 
     fun isViewTouchingEdge(v: View?, whichEdge: Int): Boolean {
         val cs = config.map[v] ?: return false
@@ -119,6 +140,13 @@ class ViewCluster(
         }
     }
 
+    /** Runs [action] on the cell of every view of the cluster, without allocating. */
+    private inline fun forEachCell(action: (CellAndSpan) -> Unit) {
+        for (i in views.indices) {
+            config.map[views[i]]?.let(action)
+        }
+    }
+
     private fun edgeContainsValue(start: Int, end: Int, edge: IntArray, value: Int): Boolean {
         for (i in start until end) {
             if (edge[i] == value) {
@@ -129,17 +157,15 @@ class ViewCluster(
     }
 
     fun shift(whichEdge: Int, delta: Int) {
-        views
-            .mapNotNull { v -> config.map[v] }
-            .forEach { c ->
-                when (whichEdge) {
-                    LEFT -> c.cellX -= delta
-                    RIGHT -> c.cellX += delta
-                    TOP -> c.cellY -= delta
-                    BOTTOM -> c.cellY += delta
-                    else -> c.cellY += delta
-                }
+        forEachCell { c ->
+            when (whichEdge) {
+                LEFT -> c.cellX -= delta
+                RIGHT -> c.cellX += delta
+                TOP -> c.cellY -= delta
+                BOTTOM -> c.cellY += delta
+                else -> c.cellY += delta
             }
+        }
         resetEdges()
     }
 
@@ -356,6 +356,76 @@ public final class FeatureFlags {
             "ALL_APPS_GONE_VISIBILITY", ENABLED,
             "Set all apps container view's hidden visibility to GONE instead of INVISIBLE.");
 
+    // Performance modes, enabled per device once validated.
+    public static final BooleanFlag ENABLE_ICON_CACHE_LOCK_FREE_READS = getDebugFlag(0,
+            "ENABLE_ICON_CACHE_LOCK_FREE_READS", DISABLED,
+            "Serve already cached high-res icons without taking the icon cache lock");
+
+    public static final BooleanFlag ENABLE_ICON_BITMAP_PACK = getDebugFlag(0,
+            "ENABLE_ICON_BITMAP_PACK", DISABLED,
+            "Load first screen icons from a memory-mapped bitmap pack instead of the icon DB");
+
+    public static final BooleanFlag ENABLE_PARALLEL_MODEL_LOADING = getDebugFlag(0,
+            "ENABLE_PARALLEL_MODEL_LOADING", DISABLED,
+            "Query deep shortcuts and widget providers in parallel with the all apps load");
+
+    public static final BooleanFlag ENABLE_WIDGET_PREVIEW_CACHE = getDebugFlag(0,
+            "ENABLE_WIDGET_PREVIEW_CACHE", DISABLED,
+            "Persist rendered widget previews on disk instead of rendering them on every open");
+
+    public static final BooleanFlag ENABLE_MODEL_WRITE_BATCHING = getDebugFlag(0,
+            "ENABLE_MODEL_WRITE_BATCHING", DISABLED,
+            "Coalesce item position updates and write them in a single transaction");
+
+    public static final BooleanFlag ENABLE_THUMBNAIL_CACHE_BYTE_BUDGET = getDebugFlag(0,
+            "ENABLE_THUMBNAIL_CACHE_BYTE_BUDGET", DISABLED,
+            "Limit the task thumbnail cache by the size of the low-res and high-res thumbnails");
+
+    public static final BooleanFlag ENABLE_OVERVIEW_THUMBNAIL_PREFETCH = getDebugFlag(0,
+            "ENABLE_OVERVIEW_THUMBNAIL_PREFETCH", DISABLED,
+            "Prefetch the thumbnails of the tasks an Overview fling will settle on");
+
+    public static final BooleanFlag ENABLE_TASK_VIEW_POOL_PREWARM = getDebugFlag(0,
+            "ENABLE_TASK_VIEW_POOL_PREWARM", DISABLED,
+            "Inflate the Overview task views when a swipe up starts, sized from the recent tasks");
+
+    public static final BooleanFlag ENABLE_INCREMENTAL_RECENT_TASKS = getDebugFlag(0,
+            "ENABLE_INCREMENTAL_RECENT_TASKS", DISABLED,
+            "Apply task moves to the loaded recent tasks and update the Overview task views in"
+                    + " place");
+
+    public static final BooleanFlag ENABLE_DEVICE_PROFILE_CACHE = getDebugFlag(0,
+            "ENABLE_DEVICE_PROFILE_CACHE", DISABLED,
+            "Keep the device profiles of the last display states, like folded and unfolded");
+
+    public static final BooleanFlag ENABLE_RESOURCE_PARSE_CACHE = getDebugFlag(0,
+            "ENABLE_RESOURCE_PARSE_CACHE", DISABLED,
+            "Reuse the grid options and responsive specs parsed from XML");
+
+    public static final BooleanFlag ENABLE_PREVIEW_RENDERER_POOL = getDebugFlag(0,
+            "ENABLE_PREVIEW_RENDERER_POOL", DISABLED,
+            "Keep the grid previews inflated while the grid picker is open");
+
+    public static final BooleanFlag ENABLE_ALL_APPS_BACKGROUND_SORT = getDebugFlag(0,
+            "ENABLE_ALL_APPS_BACKGROUND_SORT", DISABLED,
+            "Sort the all apps list and compute its changes on a background thread");
+
+    public static final BooleanFlag ENABLE_ALL_APPS_ICON_INDEX = getDebugFlag(0,
+            "ENABLE_ALL_APPS_ICON_INDEX", DISABLED,
+            "Find the all apps icons to update for a package without visiting all of them");
+
+    public static final BooleanFlag ENABLE_NOTIFICATION_DOT_COALESCING = getDebugFlag(0,
+            "ENABLE_NOTIFICATION_DOT_COALESCING", DISABLED,
+            "Merge the notification changes of a frame into a single dots update");
+
+    public static final BooleanFlag ENABLE_STATS_LOG_QUEUE = getDebugFlag(0,
+            "ENABLE_STATS_LOG_QUEUE", DISABLED,
+            "Write the stats logs in batches on their own thread instead of the model thread");
+
+    public static final BooleanFlag ENABLE_GESTURE_EVENT_RING = getDebugFlag(0,
+            "ENABLE_GESTURE_EVENT_RING", DISABLED,
+            "Log the events of every touch event of a gesture without allocating");
+
     public static BooleanFlag getDebugFlag(
             int bugId, String key, BooleanFlag flagState, String description) {
         return flagState;
@@ -16,12 +16,14 @@
 package com.android.launcher3.graphics;
 
 import static com.android.launcher3.LauncherPrefs.THEMED_ICONS;
+import static com.android.launcher3.config.FeatureFlags.ENABLE_PREVIEW_RENDERER_POOL;
 import static com.android.launcher3.util.Executors.UI_HELPER_EXECUTOR;
 import static com.android.launcher3.util.Themes.isThemedIconEnabled;
 
 import android.content.ContentProvider;
 import android.content.ContentValues;
 import android.content.pm.PackageManager;
+import android.content.res.Configuration;
 import android.database.Cursor;
 import android.database.MatrixCursor;
 import android.net.Uri;
@@ -36,11 +38,15 @@ import android.util.ArrayMap;
 import android.util.Log;
 import android.util.Pair;
 
+import androidx.annotation.Nullable;
+
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.InvariantDeviceProfile.GridOption;
 import com.android.launcher3.LauncherPrefs;
 import com.android.launcher3.util.Executors;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Exposes various launcher grid options and allows the caller to change them.
  * APIs:
@@ -83,17 +89,47 @@ public class GridCustomizationsProvider extends ContentProvider {
 
     private static final int MESSAGE_ID_UPDATE_PREVIEW = 1337;
 
+    // Time to wait for a new preview, like when switching grids, before clearing the pool
+    private static final long CLEAR_POOL_DELAY_MS = TimeUnit.SECONDS.toMillis(2);
+
     /**
      * Here we use the IBinder and the screen ID as the key of the active previews.
      */
     private final ArrayMap<Pair<IBinder, Integer>, PreviewLifecycleObserver> mActivePreviews =
             new ArrayMap<>();
 
+    @Nullable
+    private PreviewRendererPool mRendererPool;
+    private final Runnable mClearRendererPool = () -> mRendererPool.clear();
+
     @Override
     public boolean onCreate() {
+        if (ENABLE_PREVIEW_RENDERER_POOL.get()) {
+            mRendererPool = new PreviewRendererPool(getContext());
+        }
         return true;
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        if (level == TRIM_MEMORY_RUNNING_LOW || level == TRIM_MEMORY_RUNNING_CRITICAL
+                || level >= TRIM_MEMORY_MODERATE) {
+            clearRendererPool();
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        clearRendererPool();
+    }
+
+    private void clearRendererPool() {
+        if (mRendererPool != null) {
+            Executors.MAIN_EXECUTOR.getHandler().removeCallbacks(mClearRendererPool);
+            Executors.MAIN_EXECUTOR.execute(mClearRendererPool);
+        }
+    }
+
     @Override
     public Cursor query(Uri uri, String[] projection, String selection,
             String[] selectionArgs, String sortOrder) {
@@ -190,7 +226,11 @@ public class GridCustomizationsProvider extends ContentProvider {
     private synchronized Bundle getPreview(Bundle request) {
         PreviewLifecycleObserver observer = null;
         try {
-            PreviewSurfaceRenderer renderer = new PreviewSurfaceRenderer(getContext(), request);
+            if (mRendererPool != null) {
+                Executors.MAIN_EXECUTOR.getHandler().removeCallbacks(mClearRendererPool);
+            }
+            PreviewSurfaceRenderer renderer =
+                    new PreviewSurfaceRenderer(getContext(), request, mRendererPool);
 
             observer = new PreviewLifecycleObserver(renderer);
             // Destroy previous
@@ -229,6 +269,11 @@ public class GridCustomizationsProvider extends ContentProvider {
         if (cached == observer) {
             mActivePreviews.remove(observer.getIdentifier());
         }
+        if (mRendererPool != null && mActivePreviews.isEmpty()) {
+            // The picker is closed
+            Executors.MAIN_EXECUTOR.getHandler()
+                    .postDelayed(mClearRendererPool, CLEAR_POOL_DELAY_MS);
+        }
     }
 
     private class PreviewLifecycleObserver implements Handler.Callback, DeathRecipient {
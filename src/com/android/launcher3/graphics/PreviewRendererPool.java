@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.graphics;
+
+import static com.android.launcher3.LauncherSettings.Favorites.CONTAINER_HOTSEAT_PREDICTION;
+import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
+import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
+
+import android.app.ActivityManager;
+import android.app.WallpaperColors;
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.UiThread;
+import androidx.annotation.WorkerThread;
+
+import com.android.launcher3.InvariantDeviceProfile;
+import com.android.launcher3.InvariantDeviceProfile.GridOption;
+import com.android.launcher3.model.BgDataModel;
+import com.android.launcher3.model.BgDataModel.FixedContainerItems;
+import com.android.launcher3.model.data.ItemInfo;
+import com.android.launcher3.model.data.ItemInfoWithIcon;
+import com.android.launcher3.model.data.LauncherAppWidgetInfo;
+import com.android.launcher3.util.RunnableList;
+import com.android.launcher3.util.Themes;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+
+/**
+ * Keeps the inflated grid previews which are not attached to a surface, so that going back to a
+ * grid option in the picker does not inflate the workspace again.
+ *
+ * A pooled preview is only reused when the home screen data it was rendered from did not change,
+ * which is checked using {@link #getModelSignature}. Once a preview is shown, the other grid
+ * options are rendered ahead of time, one at a time, up to the size of the pool. The pool is
+ * limited to a few previews and is cleared when the picker goes away or on memory pressure.
+ *
+ * All methods, other than {@link #getModelSignature}, are called on the main thread.
+ */
+public class PreviewRendererPool {
+
+    private static final String TAG = "PreviewRendererPool";
+
+    private static final int MAX_POOLED_PREVIEWS = 3;
+
+    private final Context mContext;
+    private final LruCache<Key, Preview> mPreviews;
+    private final ArrayDeque<String> mPendingPrerenders = new ArrayDeque<>();
+
+    @Nullable
+    private PreviewSurfaceRenderer mPrerenderSource;
+    private boolean mIsPrerendering;
+
+    public PreviewRendererPool(Context context) {
+        mContext = context;
+        mPreviews = new LruCache<>(context.getSystemService(ActivityManager.class)
+                .isLowRamDevice() ? 1 : MAX_POOLED_PREVIEWS) {
+            @Override
+            protected void entryRemoved(boolean evicted, Key key, Preview oldValue,
+                    Preview newValue) {
+                // Removing an entry hands the preview over to the caller of acquire
+                if (evicted || (newValue != null && newValue != oldValue)) {
+                    oldValue.onEvict.executeAllAndDestroy();
+                }
+            }
+        };
+    }
+
+    /**
+     * Removes and returns the pooled preview for {@param key} if it was rendered from data with
+     * the same {@param signature}, destroying it otherwise.
+     */
+    @UiThread
+    @Nullable
+    public Preview acquire(Key key, long signature) {
+        Preview preview = mPreviews.get(key);
+        if (preview == null) {
+            return null;
+        }
+        mPreviews.remove(key);
+        // The view is detached from its last surface asynchronously
+        if (preview.signature != signature || preview.view.getParent() != null) {
+            Log.d(TAG, "Dropping stale preview for " + key.gridName);
+            preview.onEvict.executeAllAndDestroy();
+            return null;
+        }
+        return preview;
+    }
+
+    /**
+     * Adds a preview which is not attached to a surface anymore to the pool
+     */
+    @UiThread
+    public void release(Key key, Preview preview) {
+        mPreviews.put(key, preview);
+    }
+
+    @UiThread
+    public boolean contains(Key key) {
+        // Unlike get, this does not count as using the preview
+        return mPreviews.snapshot().containsKey(key);
+    }
+
+    /**
+     * Renders the grid options other than the one shown by {@param source}, with the same size and
+     * colors, until the pool is full.
+     */
+    @UiThread
+    public void prerenderOtherGrids(PreviewSurfaceRenderer source) {
+        mPrerenderSource = source;
+        mPendingPrerenders.clear();
+        MODEL_EXECUTOR.execute(() -> {
+            InvariantDeviceProfile idp = InvariantDeviceProfile.INSTANCE.get(mContext);
+            ArrayDeque<String> gridNames = new ArrayDeque<>();
+            for (GridOption option : idp.parseAllGridOptions(mContext)) {
+                if (!option.name.equals(source.getGridName())) {
+                    gridNames.add(option.name);
+                }
+            }
+            MAIN_EXECUTOR.execute(() -> {
+                if (mPrerenderSource != source) {
+                    return;
+                }
+                mPendingPrerenders.addAll(gridNames);
+                prerenderNext();
+            });
+        });
+    }
+
+    /**
+     * Called when a preview started by {@link #prerenderOtherGrids} is done, with a null
+     * {@param preview} if it failed
+     */
+    @UiThread
+    void onPrerenderFinished(Key key, @Nullable Preview preview) {
+        mIsPrerendering = false;
+        if (preview == null) {
+            return;
+        }
+        if (mPrerenderSource == null) {
+            // The pool was cleared while rendering
+            preview.onEvict.executeAllAndDestroy();
+            return;
+        }
+        release(key, preview);
+        prerenderNext();
+    }
+
+    private void prerenderNext() {
+        if (mIsPrerendering || mPrerenderSource == null) {
+            return;
+        }
+        // Keep a slot for the preview currently shown
+        while (!mPendingPrerenders.isEmpty() && mPreviews.size() < mPreviews.maxSize() - 1) {
+            PreviewSurfaceRenderer renderer =
+                    mPrerenderSource.newPrerenderer(mPendingPrerenders.poll());
+            if (!contains(renderer.getPoolKey())) {
+                mIsPrerendering = true;
+                renderer.loadAsync();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Destroys all the pooled previews and stops rendering ahead of time
+     */
+    @UiThread
+    public void clear() {
+        mPrerenderSource = null;
+        mPendingPrerenders.clear();
+        mPreviews.evictAll();
+    }
+
+    /**
+     * Returns a value which changes when anything shown by a preview of {@param dataModel}
+     * changes, like the position, title or icon of an item, or the current grid.
+     */
+    @WorkerThread
+    public static long getModelSignature(Context context, @NonNull BgDataModel dataModel) {
+        long signature = Objects.hash(InvariantDeviceProfile.getCurrentGridName(context),
+                Themes.isThemedIconEnabled(context));
+        synchronized (dataModel) {
+            for (ItemInfo info : dataModel.itemsIdMap) {
+                signature = 31 * signature + getItemSignature(info);
+            }
+            FixedContainerItems predictions =
+                    dataModel.extraItems.get(CONTAINER_HOTSEAT_PREDICTION);
+            if (predictions != null) {
+                for (ItemInfo info : predictions.items) {
+                    signature = 31 * signature + getItemSignature(info);
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static int getItemSignature(ItemInfo info) {
+        return Objects.hash(info.id, info.itemType, info.container, info.screenId, info.cellX,
+                info.cellY, info.spanX, info.spanY, info.rank, info.title,
+                info.getTargetComponent(),
+                info instanceof ItemInfoWithIcon iconInfo
+                        ? System.identityHashCode(iconInfo.bitmap) : 0,
+                info instanceof LauncherAppWidgetInfo widgetInfo ? widgetInfo.appWidgetId : 0);
+    }
+
+    /**
+     * Identifies the previews which can replace each other
+     */
+    public record Key(String gridName, int displayId, int width, int height,
+            @Nullable WallpaperColors wallpaperColors) { }
+
+    /**
+     * An inflated preview along with the data needed to reuse it
+     */
+    public static class Preview {
+
+        public final LauncherPreviewRenderer renderer;
+        public final View view;
+        public final long signature;
+        /** Called when the preview is destroyed */
+        public final RunnableList onEvict = new RunnableList();
+
+        public Preview(LauncherPreviewRenderer renderer, View view, long signature) {
+            this.renderer = renderer;
+            this.view = view;
+            this.signature = signature;
+        }
+    }
+}
@@ -50,6 +50,7 @@ import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.Workspace;
 import com.android.launcher3.graphics.LauncherPreviewRenderer.PreviewContext;
+import com.android.launcher3.graphics.PreviewRendererPool.Preview;
 import com.android.launcher3.model.BaseLauncherBinder;
 import com.android.launcher3.model.BgDataModel;
 import com.android.launcher3.model.BgDataModel.Callbacks;
@@ -91,14 +92,22 @@ public class PreviewSurfaceRenderer {
     private final WallpaperColors mWallpaperColors;
     private final RunnableList mOnDestroyCallbacks = new RunnableList();
 
+    // Null when the preview is rendered ahead of time for the pool
+    @Nullable
     private final SurfaceControlViewHost mSurfaceControlViewHost;
+    @Nullable
+    private final PreviewRendererPool mPool;
 
     private boolean mDestroyed = false;
     private LauncherPreviewRenderer mRenderer;
+    @Nullable
+    private Preview mPreview;
     private boolean mHideQsb;
 
-    public PreviewSurfaceRenderer(Context context, Bundle bundle) throws Exception {
+    public PreviewSurfaceRenderer(Context context, Bundle bundle,
+            @Nullable PreviewRendererPool pool) throws Exception {
         mContext = context;
+        mPool = pool;
         mGridName = bundle.getString("name");
         bundle.remove("name");
         if (mGridName == null) {
@@ -124,6 +133,43 @@ public class PreviewSurfaceRenderer {
         mOnDestroyCallbacks.add(mSurfaceControlViewHost::release);
     }
 
+    /**
+     * Creates a renderer which adds a preview of {@param gridName} to the pool, with the same
+     * size and colors as {@param source}
+     */
+    private PreviewSurfaceRenderer(PreviewSurfaceRenderer source, String gridName) {
+        mContext = source.mContext;
+        mPool = source.mPool;
+        mGridName = gridName;
+        mWallpaperColors = source.mWallpaperColors;
+        mHideQsb = source.mHideQsb;
+        mHostToken = null;
+        mWidth = source.mWidth;
+        mHeight = source.mHeight;
+        mDisplayId = source.mDisplayId;
+        mDisplay = source.mDisplay;
+        mSurfaceControlViewHost = null;
+    }
+
+    /**
+     * Returns a renderer which renders {@param gridName} ahead of time for the pool
+     */
+    PreviewSurfaceRenderer newPrerenderer(String gridName) {
+        return new PreviewSurfaceRenderer(this, gridName);
+    }
+
+    public String getGridName() {
+        return mGridName;
+    }
+
+    /**
+     * Returns the key of the previews in the pool which can be shown by this renderer
+     */
+    public PreviewRendererPool.Key getPoolKey() {
+        return new PreviewRendererPool.Key(mGridName, mDisplayId, mWidth, mHeight,
+                mWallpaperColors);
+    }
+
     public int getDisplayId() {
         return mDisplayId;
     }
@@ -143,6 +189,15 @@ public class PreviewSurfaceRenderer {
     public void destroy() {
         mDestroyed = true;
         mOnDestroyCallbacks.executeAllAndDestroy();
+        if (mPreview != null) {
+            // The surface is released above, so the preview can be shown again by another one
+            if (mPool != null) {
+                mPool.release(getPoolKey(), mPreview);
+            } else {
+                mPreview.onEvict.executeAllAndDestroy();
+            }
+            mPreview = null;
+        }
     }
 
     /**
@@ -222,6 +277,34 @@ public class PreviewSurfaceRenderer {
 
     @WorkerThread
     private void loadModelData() {
+        if (mPool == null) {
+            loadModelData(0);
+            return;
+        }
+        // Check if a pooled preview of the same data can be shown before inflating a new one
+        LauncherAppState.getInstance(mContext).getModel().loadAsync(dataModel -> {
+            if (dataModel == null) {
+                loadModelData(0);
+                return;
+            }
+            long signature = PreviewRendererPool.getModelSignature(mContext, dataModel);
+            if (mSurfaceControlViewHost == null) {
+                loadModelData(signature);
+                return;
+            }
+            MAIN_EXECUTOR.execute(() -> {
+                Preview preview = mDestroyed ? null : mPool.acquire(getPoolKey(), signature);
+                if (preview != null) {
+                    showPreview(preview);
+                } else {
+                    MODEL_EXECUTOR.execute(() -> loadModelData(signature));
+                }
+            });
+        });
+    }
+
+    @WorkerThread
+    private void loadModelData(long signature) {
         final Context inflationContext = getPreviewContext();
         final InvariantDeviceProfile idp = new InvariantDeviceProfile(inflationContext, mGridName);
         if (GridSizeMigrationUtil.needsToMigrate(inflationContext, idp)) {
@@ -263,20 +346,21 @@ public class PreviewSurfaceRenderer {
                     final SparseArray<Size> spanInfo =
                             getLoadedLauncherWidgetInfo(previewContext.getBaseContext());
 
-                    MAIN_EXECUTOR.execute(() -> {
-                        renderView(previewContext, mBgDataModel, mWidgetProvidersMap, spanInfo,
-                                idp);
-                        mOnDestroyCallbacks.add(previewContext::onDestroy);
-                    });
+                    MAIN_EXECUTOR.execute(() -> renderView(previewContext, mBgDataModel,
+                            mWidgetProvidersMap, spanInfo, idp, signature,
+                            previewContext::onDestroy));
                 }
             }.run();
         } else {
             LauncherAppState.getInstance(inflationContext).getModel().loadAsync(dataModel -> {
                 if (dataModel != null) {
                     MAIN_EXECUTOR.execute(() -> renderView(inflationContext, dataModel, null,
-                            null, idp));
+                            null, idp, signature, null));
                 } else {
                     Log.e(TAG, "Model loading failed");
+                    if (mSurfaceControlViewHost == null) {
+                        MAIN_EXECUTOR.execute(() -> mPool.onPrerenderFinished(getPoolKey(), null));
+                    }
                 }
             });
         }
@@ -285,14 +369,36 @@ public class PreviewSurfaceRenderer {
     @UiThread
     private void renderView(Context inflationContext, BgDataModel dataModel,
             Map<ComponentKey, AppWidgetProviderInfo> widgetProviderInfoMap,
-            @Nullable final SparseArray<Size> launcherWidgetSpanInfo, InvariantDeviceProfile idp) {
+            @Nullable final SparseArray<Size> launcherWidgetSpanInfo, InvariantDeviceProfile idp,
+            long signature, @Nullable Runnable onDestroy) {
         if (mDestroyed) {
+            if (onDestroy != null) {
+                onDestroy.run();
+            }
             return;
         }
-        mRenderer = new LauncherPreviewRenderer(inflationContext, idp,
+        LauncherPreviewRenderer renderer = new LauncherPreviewRenderer(inflationContext, idp,
                 mWallpaperColors, launcherWidgetSpanInfo);
+        Preview preview = new Preview(renderer,
+                renderer.getRenderedView(dataModel, widgetProviderInfoMap), signature);
+        preview.onEvict.add(onDestroy);
+        showPreview(preview);
+    }
+
+    @UiThread
+    private void showPreview(Preview preview) {
+        if (mSurfaceControlViewHost == null) {
+            mPool.onPrerenderFinished(getPoolKey(), preview);
+            return;
+        }
+        if (mDestroyed) {
+            preview.onEvict.executeAllAndDestroy();
+            return;
+        }
+        mPreview = preview;
+        mRenderer = preview.renderer;
         mRenderer.hideBottomRow(mHideQsb);
-        View view = mRenderer.getRenderedView(dataModel, widgetProviderInfoMap);
+        View view = preview.view;
         // This aspect scales the view to fit in the surface and centers it
         final float scale = Math.min(mWidth / (float) view.getMeasuredWidth(),
                 mHeight / (float) view.getMeasuredHeight());
@@ -308,5 +414,8 @@ public class PreviewSurfaceRenderer {
                 .setDuration(FADE_IN_ANIMATION_DURATION)
                 .start();
         mSurfaceControlViewHost.setView(view, view.getMeasuredWidth(), view.getMeasuredHeight());
+        if (mPool != null) {
+            mPool.prerenderOtherGrids(this);
+        }
     }
 }
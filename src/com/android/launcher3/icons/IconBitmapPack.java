@@ -0,0 +1,298 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.icons;
+
+import android.content.ComponentName;
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-optimized copy of a small set of icon cache entries, stored as a single memory-mapped file
+ * of uncompressed ARGB_8888 pixels preceded by an index. This allows materializing the icons
+ * needed for the first frame without iterating a database cursor or decoding PNG blobs.
+ *
+ * The pack is only a shortcut for entries which are already in the icon database: it is deleted
+ * whenever the database changes and is ignored if the icon size or the icon system state differ
+ * from the ones it was written with.
+ */
+public class IconBitmapPack {
+
+    private static final String TAG = "IconBitmapPack";
+
+    private static final int MAGIC = 0x4c494250;
+    private static final int VERSION = 1;
+
+    @VisibleForTesting
+    static final int MAX_ENTRIES = 64;
+
+    private final File mFile;
+
+    private int mIconBitmapSize;
+
+    // Incremented on every invalidation, so that a pack built from stale items is never written
+    private int mGeneration = 0;
+    private boolean mLoadAttempted = false;
+    @Nullable
+    private Map<ComponentName, Entry> mEntries;
+    @Nullable
+    private ByteBuffer mPixels;
+
+    public IconBitmapPack(@NonNull File file, int iconBitmapSize) {
+        mFile = file;
+        mIconBitmapSize = iconBitmapSize;
+    }
+
+    /**
+     * Updates the expected icon size. Any existing pack is dropped.
+     */
+    public synchronized void setIconBitmapSize(int iconBitmapSize) {
+        mIconBitmapSize = iconBitmapSize;
+        invalidate();
+    }
+
+    /**
+     * Drops the loaded pack and deletes the backing file.
+     */
+    public synchronized void invalidate() {
+        mGeneration++;
+        mEntries = null;
+        mPixels = null;
+        // Nothing left to read until the pack is written again
+        mLoadAttempted = true;
+        if (mFile.exists() && !mFile.delete()) {
+            Log.w(TAG, "Unable to delete " + mFile);
+        }
+    }
+
+    /**
+     * Returns the current generation, to be passed to {@link #write} once the entries are ready.
+     */
+    public synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    /**
+     * Returns the title stored for the component or null if it is not in the pack.
+     */
+    @Nullable
+    public synchronized String getTitle(@NonNull String systemState, @NonNull ComponentName cn) {
+        Map<ComponentName, Entry> entries = getEntries(systemState);
+        Entry entry = entries == null ? null : entries.get(cn);
+        return entry == null ? null : entry.title;
+    }
+
+    /**
+     * Returns the icon stored for the component or null if it is not in the pack.
+     */
+    @Nullable
+    public synchronized BitmapInfo getIcon(@NonNull String systemState, @NonNull ComponentName cn) {
+        Map<ComponentName, Entry> entries = getEntries(systemState);
+        Entry entry = entries == null ? null : entries.get(cn);
+        if (entry == null || mPixels == null) {
+            return null;
+        }
+        ByteBuffer pixels = mPixels.duplicate();
+        pixels.limit(entry.offset + entry.length);
+        pixels.position(entry.offset);
+        Bitmap bitmap = Bitmap.createBitmap(entry.width, entry.height, Config.ARGB_8888);
+        try {
+            bitmap.copyPixelsFromBuffer(pixels);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Corrupt pack entry for " + cn, e);
+            invalidate();
+            return null;
+        }
+        return BitmapInfo.of(bitmap, entry.color);
+    }
+
+    /**
+     * Rewrites the pack with the provided entries, replacing any existing pack. Nothing is written
+     * if the pack was invalidated since {@param generation} was obtained.
+     */
+    @WorkerThread
+    public synchronized void write(@NonNull String systemState,
+            @NonNull List<PackEntry> packEntries, int generation) {
+        if (generation != mGeneration) {
+            return;
+        }
+        mEntries = null;
+        mPixels = null;
+        mLoadAttempted = false;
+
+        int count = Math.min(packEntries.size(), MAX_ENTRIES);
+        File tmpFile = new File(mFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+            byte[][] pixels = new byte[count][];
+            int[] widths = new int[count];
+            int[] heights = new int[count];
+            for (int i = 0; i < count; i++) {
+                Bitmap bitmap = packEntries.get(i).icon;
+                if (bitmap.getConfig() != Config.ARGB_8888) {
+                    // Hardware bitmaps can not be read directly
+                    bitmap = bitmap.copy(Config.ARGB_8888, false);
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(bitmap.getByteCount());
+                bitmap.copyPixelsToBuffer(buffer);
+                pixels[i] = buffer.array();
+                widths[i] = bitmap.getWidth();
+                heights[i] = bitmap.getHeight();
+            }
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(mIconBitmapSize);
+            writeString(out, systemState);
+            out.writeInt(count);
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                PackEntry entry = packEntries.get(i);
+                writeString(out, entry.component.flattenToString());
+                writeString(out, entry.title);
+                out.writeInt(entry.color);
+                out.writeInt(widths[i]);
+                out.writeInt(heights[i]);
+                out.writeInt(offset);
+                out.writeInt(pixels[i].length);
+                offset += pixels[i].length;
+            }
+            for (int i = 0; i < count; i++) {
+                out.write(pixels[i]);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to write icon pack", e);
+            tmpFile.delete();
+            return;
+        }
+        if (!tmpFile.renameTo(mFile)) {
+            Log.e(TAG, "Unable to replace icon pack");
+            tmpFile.delete();
+        }
+    }
+
+    @Nullable
+    private Map<ComponentName, Entry> getEntries(@NonNull String systemState) {
+        if (!mLoadAttempted) {
+            mLoadAttempted = true;
+            load(systemState);
+        }
+        return mEntries;
+    }
+
+    private void load(@NonNull String systemState) {
+        if (!mFile.exists()) {
+            return;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(mFile, "r");
+                FileChannel channel = file.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getInt() != mIconBitmapSize
+                    || !systemState.equals(readString(buffer))) {
+                Log.d(TAG, "Discarding stale icon pack");
+                invalidate();
+                return;
+            }
+            int count = buffer.getInt();
+            Map<ComponentName, Entry> entries = new HashMap<>(count);
+            for (int i = 0; i < count; i++) {
+                ComponentName cn = ComponentName.unflattenFromString(readString(buffer));
+                Entry entry = new Entry(readString(buffer), buffer.getInt(), buffer.getInt(),
+                        buffer.getInt(), buffer.getInt(), buffer.getInt());
+                if (cn != null) {
+                    entries.put(cn, entry);
+                }
+            }
+            // The mapping stays valid after the channel is closed
+            mPixels = buffer.slice();
+            mEntries = entries;
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            Log.e(TAG, "Unable to read icon pack", e);
+            invalidate();
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A single icon to be written to the pack
+     */
+    public static class PackEntry {
+
+        public final ComponentName component;
+        public final String title;
+        public final Bitmap icon;
+        public final int color;
+
+        public PackEntry(@NonNull ComponentName component, @NonNull String title,
+                @NonNull Bitmap icon, int color) {
+            this.component = component;
+            this.title = title;
+            this.icon = icon;
+            this.color = color;
+        }
+    }
+
+    private static class Entry {
+
+        final String title;
+        final int color;
+        final int width;
+        final int height;
+        final int offset;
+        final int length;
+
+        Entry(String title, int color, int width, int height, int offset, int length) {
+            this.title = title;
+            this.color = color;
+            this.width = width;
+            this.height = height;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.android.launcher3.icons;
 
+import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_APPLICATION;
 import static com.android.launcher3.LauncherSettings.Favorites.ITEM_TYPE_DEEP_SHORTCUT;
 import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
@@ -39,6 +40,7 @@ import android.database.sqlite.SQLiteException;
 import android.graphics.drawable.Drawable;
 import android.os.Looper;
 import android.os.Process;
+import android.os.SystemClock;
 import android.os.Trace;
 import android.os.UserHandle;
 import android.text.TextUtils;
@@ -49,17 +51,20 @@ import androidx.annotation.AnyThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
 import androidx.core.util.Pair;
 
 import com.android.launcher3.Flags;
 import com.android.launcher3.InvariantDeviceProfile;
 import com.android.launcher3.Utilities;
+import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.icons.ComponentWithLabel.ComponentCachingLogic;
 import com.android.launcher3.icons.cache.BaseIconCache;
 import com.android.launcher3.icons.cache.CachingLogic;
 import com.android.launcher3.logging.FileLog;
 import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.IconRequestInfo;
+import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.model.data.ItemInfoWithIcon;
 import com.android.launcher3.model.data.PackageItemInfo;
 import com.android.launcher3.model.data.WorkspaceItemInfo;
@@ -67,15 +72,22 @@ import com.android.launcher3.pm.InstallSessionHelper;
 import com.android.launcher3.pm.UserCache;
 import com.android.launcher3.shortcuts.ShortcutKey;
 import com.android.launcher3.util.CancellableTask;
+import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.InstantAppResolver;
 import com.android.launcher3.util.PackageUserKey;
+import com.android.launcher3.util.Themes;
 import com.android.launcher3.widget.WidgetSections;
 import com.android.launcher3.widget.WidgetSections.WidgetSection;
 
+import java.io.File;
+import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
@@ -92,6 +104,9 @@ public class IconCache extends BaseIconCache {
 
     private static final String TAG = "Launcher.IconCache";
 
+    // Lock waits longer than this are reported as contended
+    private static final long CONTENTION_THRESHOLD_NANOS = 100_000;
+
     private final Predicate<ItemInfoWithIcon> mIsUsingFallbackOrNonDefaultIconCheck = w ->
             w.bitmap != null && (w.bitmap.isNullOrLowRes() || !isDefaultIcon(w.bitmap, w.user));
 
@@ -109,6 +124,19 @@ public class IconCache extends BaseIconCache {
 
     private int mPendingIconRequestCount = 0;
 
+    private final boolean mLockFreeReads;
+    // High-res entries which can be applied without holding the cache lock. Entries are only
+    // published while holding the lock and are dropped whenever the underlying entry can change.
+    private final Map<ComponentKey, CacheEntry> mPublishedEntries = new ConcurrentHashMap<>();
+
+    private final AtomicLong mLockFreeHits = new AtomicLong();
+    private final AtomicLong mLockAcquisitions = new AtomicLong();
+    private final AtomicLong mContendedAcquisitions = new AtomicLong();
+    private final AtomicLong mLockWaitNanos = new AtomicLong();
+
+    @Nullable
+    private final IconBitmapPack mBitmapPack;
+
     public IconCache(Context context, InvariantDeviceProfile idp, String dbFileName,
             IconProvider iconProvider) {
         super(context, dbFileName, MODEL_EXECUTOR.getLooper(),
@@ -121,6 +149,11 @@ public class IconCache extends BaseIconCache {
         mInstantAppResolver = InstantAppResolver.newInstance(mContext);
         mIconProvider = iconProvider;
         mWidgetCategoryBitmapInfos = new SparseArray<>();
+        mLockFreeReads = FeatureFlags.ENABLE_ICON_CACHE_LOCK_FREE_READS.get();
+        mBitmapPack = FeatureFlags.ENABLE_ICON_BITMAP_PACK.get() && dbFileName != null
+                ? new IconBitmapPack(new File(context.getCacheDir(), dbFileName + ".pack"),
+                        idp.iconBitmapSize)
+                : null;
 
         mCancelledTask = new CancellableTask(() -> null, MAIN_EXECUTOR, c -> { });
         mCancelledTask.cancel();
@@ -145,22 +178,60 @@ public class IconCache extends BaseIconCache {
     /**
      * Updates the entries related to the given package in memory and persistent DB.
      */
-    public synchronized void updateIconsForPkg(@NonNull final String packageName,
+    public void updateIconsForPkg(@NonNull final String packageName,
             @NonNull final UserHandle user) {
-        removeIconsForPkg(packageName, user);
-        try {
-            PackageInfo info = mPackageManager.getPackageInfo(packageName,
-                    PackageManager.GET_UNINSTALLED_PACKAGES);
-            long userSerial = mUserManager.getSerialNumberForUser(user);
-            for (LauncherActivityInfo app : mLauncherApps.getActivityList(packageName, user)) {
-                addIconToDBAndMemCache(app, mLauncherActivityInfoCachingLogic, info, userSerial,
-                        false /*replace existing*/);
+        long waitStart = SystemClock.elapsedRealtimeNanos();
+        synchronized (this) {
+            onLockAcquired(waitStart);
+            removeIconsForPkg(packageName, user);
+            try {
+                PackageInfo info = mPackageManager.getPackageInfo(packageName,
+                        PackageManager.GET_UNINSTALLED_PACKAGES);
+                long userSerial = mUserManager.getSerialNumberForUser(user);
+                for (LauncherActivityInfo app : mLauncherApps.getActivityList(packageName, user)) {
+                    addIconToDBAndMemCache(app, mLauncherActivityInfoCachingLogic, info,
+                            userSerial, false /*replace existing*/);
+                }
+            } catch (NameNotFoundException e) {
+                Log.d(TAG, "Package not found", e);
             }
-        } catch (NameNotFoundException e) {
-            Log.d(TAG, "Package not found", e);
         }
     }
 
+    @Override
+    public synchronized void remove(@NonNull ComponentName componentName,
+            @NonNull UserHandle user) {
+        mPublishedEntries.remove(new ComponentKey(componentName, user));
+        invalidateBitmapPack();
+        super.remove(componentName, user);
+    }
+
+    @Override
+    public synchronized void removeIconsForPkg(@NonNull String packageName,
+            @NonNull UserHandle user) {
+        invalidatePublishedEntries(packageName, user);
+        invalidateBitmapPack();
+        super.removeIconsForPkg(packageName, user);
+    }
+
+    @Override
+    public synchronized <T> void addIconToDBAndMemCache(@NonNull T object,
+            @NonNull CachingLogic<T> cachingLogic, @NonNull PackageInfo info, long userSerial,
+            boolean replaceExisting) {
+        invalidatePublishedEntries(info.packageName, null);
+        invalidateBitmapPack();
+        super.addIconToDBAndMemCache(object, cachingLogic, info, userSerial, replaceExisting);
+    }
+
+    @Override
+    public synchronized void updateIconParams(int iconDpi, int iconPixelSize) {
+        mPublishedEntries.clear();
+        if (mBitmapPack != null) {
+            mBitmapPack.setIconBitmapSize(iconPixelSize);
+        }
+        super.updateIconParams(iconDpi, iconPixelSize);
+    }
+
     /**
      * Closes the cache DB. This will clear any in-memory cache.
      */
@@ -168,6 +239,7 @@ public class IconCache extends BaseIconCache {
         // This will clear all pending updates
         getUpdateHandler();
 
+        mPublishedEntries.clear();
         mIconDb.close();
     }
 
@@ -223,24 +295,29 @@ public class IconCache extends BaseIconCache {
     /**
      * Updates {@param application} only if a valid entry is found.
      */
-    public synchronized void updateTitleAndIcon(AppInfo application) {
-        boolean preferPackageIcon = application.isArchived();
-        CacheEntry entry = cacheLocked(application.componentName,
-                application.user, () -> null, mLauncherActivityInfoCachingLogic,
-                false, application.usingLowResIcon());
-        if (entry.bitmap == null || isDefaultIcon(entry.bitmap, application.user)) {
-            return;
-        }
+    public void updateTitleAndIcon(AppInfo application) {
+        long waitStart = SystemClock.elapsedRealtimeNanos();
+        synchronized (this) {
+            onLockAcquired(waitStart);
+            boolean preferPackageIcon = application.isArchived();
+            CacheEntry entry = cacheLocked(application.componentName,
+                    application.user, () -> null, mLauncherActivityInfoCachingLogic,
+                    false, application.usingLowResIcon());
+            if (entry.bitmap == null || isDefaultIcon(entry.bitmap, application.user)) {
+                return;
+            }
 
-        if (preferPackageIcon) {
-            String packageName = application.getTargetPackage();
-            CacheEntry packageEntry =
-                    cacheLocked(new ComponentName(packageName, packageName + EMPTY_CLASS_NAME),
-                            application.user, () -> null, mLauncherActivityInfoCachingLogic,
-                            true, application.usingLowResIcon());
-            applyPackageEntry(packageEntry, application, entry);
-        } else {
-            applyCacheEntry(entry, application);
+            if (preferPackageIcon) {
+                String packageName = application.getTargetPackage();
+                CacheEntry packageEntry =
+                        cacheLocked(new ComponentName(packageName, packageName + EMPTY_CLASS_NAME),
+                                application.user, () -> null, mLauncherActivityInfoCachingLogic,
+                                true, application.usingLowResIcon());
+                applyPackageEntry(packageEntry, application, entry);
+            } else {
+                publishEntry(application.componentName, application.user, entry);
+                applyCacheEntry(entry, application);
+            }
         }
     }
 
@@ -248,7 +325,7 @@ public class IconCache extends BaseIconCache {
      * Fill in {@param info} with the icon and label for {@param activityInfo}
      */
     @SuppressWarnings("NewApi")
-    public synchronized void getTitleAndIcon(ItemInfoWithIcon info,
+    public void getTitleAndIcon(ItemInfoWithIcon info,
             LauncherActivityInfo activityInfo, boolean useLowResIcon) {
         boolean isAppArchived = Flags.enableSupportForArchiving() && activityInfo != null
                 && activityInfo.getActivityInfo().isArchived;
@@ -323,7 +400,7 @@ public class IconCache extends BaseIconCache {
      * Fill in {@param info} with the icon and label. If the
      * corresponding activity is not found, it reverts to the package icon.
      */
-    public synchronized void getTitleAndIcon(ItemInfoWithIcon info, boolean useLowResIcon) {
+    public void getTitleAndIcon(ItemInfoWithIcon info, boolean useLowResIcon) {
         // null info means not installed, but if we have a component from the intent then
         // we should still look in the cache for restored app icons.
         if (info.getTargetComponent() == null) {
@@ -347,40 +424,57 @@ public class IconCache extends BaseIconCache {
     /**
      * Fill in {@param mWorkspaceItemInfo} with the icon and label for {@param info}
      */
-    public synchronized void getTitleAndIcon(
+    public void getTitleAndIcon(
             @NonNull ItemInfoWithIcon infoInOut,
             @NonNull Supplier<LauncherActivityInfo> activityInfoProvider,
             boolean usePkgIcon, boolean useLowResIcon) {
-        CacheEntry entry = cacheLocked(infoInOut.getTargetComponent(), infoInOut.user,
-                activityInfoProvider, mLauncherActivityInfoCachingLogic, usePkgIcon,
-                useLowResIcon);
-        applyCacheEntry(entry, infoInOut);
+        if (applyPublishedEntry(infoInOut)) {
+            return;
+        }
+        long waitStart = SystemClock.elapsedRealtimeNanos();
+        synchronized (this) {
+            onLockAcquired(waitStart);
+            CacheEntry entry = cacheLocked(infoInOut.getTargetComponent(), infoInOut.user,
+                    activityInfoProvider, mLauncherActivityInfoCachingLogic, usePkgIcon,
+                    useLowResIcon);
+            publishEntry(infoInOut.getTargetComponent(), infoInOut.user, entry);
+            applyCacheEntry(entry, infoInOut);
+        }
     }
 
     /**
      * Fill in {@param mWorkspaceItemInfo} with the icon and label for {@param info}
      */
-    public synchronized void getTitleAndIcon(
+    public void getTitleAndIcon(
             @NonNull ItemInfoWithIcon infoInOut,
             @NonNull Supplier<LauncherActivityInfo> activityInfoProvider,
             boolean usePkgIcon, boolean useLowResIcon, boolean preferPackageEntry) {
-        CacheEntry entry = cacheLocked(infoInOut.getTargetComponent(), infoInOut.user,
-                activityInfoProvider, mLauncherActivityInfoCachingLogic, usePkgIcon,
-                useLowResIcon);
-        if (preferPackageEntry) {
-            String packageName = infoInOut.getTargetPackage();
-            CacheEntry packageEntry = cacheLocked(
-                    new ComponentName(packageName, packageName + EMPTY_CLASS_NAME),
-                    infoInOut.user, activityInfoProvider, mLauncherActivityInfoCachingLogic,
-                    usePkgIcon, useLowResIcon);
-            applyPackageEntry(packageEntry, infoInOut, entry);
-        } else if (useLowResIcon || !entry.bitmap.isNullOrLowRes()
-                || infoInOut.bitmap.isNullOrLowRes()) {
-            // Only use cache entry if it will not downgrade the current bitmap in infoInOut
-            applyCacheEntry(entry, infoInOut);
-        } else {
-            Log.d(TAG, "getTitleAndIcon: Cache entry bitmap was a downgrade of existing bitmap"
-                    + " in ItemInfo. Skipping.");
+        // Published entries are always high-res, so they can never downgrade infoInOut
+        if (!preferPackageEntry && applyPublishedEntry(infoInOut)) {
+            return;
+        }
+        long waitStart = SystemClock.elapsedRealtimeNanos();
+        synchronized (this) {
+            onLockAcquired(waitStart);
+            CacheEntry entry = cacheLocked(infoInOut.getTargetComponent(), infoInOut.user,
+                    activityInfoProvider, mLauncherActivityInfoCachingLogic, usePkgIcon,
+                    useLowResIcon);
+            if (preferPackageEntry) {
+                String packageName = infoInOut.getTargetPackage();
+                CacheEntry packageEntry = cacheLocked(
+                        new ComponentName(packageName, packageName + EMPTY_CLASS_NAME),
+                        infoInOut.user, activityInfoProvider, mLauncherActivityInfoCachingLogic,
+                        usePkgIcon, useLowResIcon);
+                applyPackageEntry(packageEntry, infoInOut, entry);
+            } else if (useLowResIcon || !entry.bitmap.isNullOrLowRes()
+                    || infoInOut.bitmap.isNullOrLowRes()) {
+                // Only use cache entry if it will not downgrade the current bitmap in infoInOut
+                publishEntry(infoInOut.getTargetComponent(), infoInOut.user, entry);
+                applyCacheEntry(entry, infoInOut);
+            } else {
+                Log.d(TAG, "getTitleAndIcon: Cache entry bitmap was a downgrade of existing"
+                        + " bitmap in ItemInfo. Skipping.");
+            }
         }
     }
 
@@ -415,7 +509,16 @@ public class IconCache extends BaseIconCache {
     /**
      * Load and fill icons requested in iconRequestInfos using a single bulk sql query.
      */
-    public synchronized <T extends ItemInfoWithIcon> void getTitlesAndIconsInBulk(
+    public <T extends ItemInfoWithIcon> void getTitlesAndIconsInBulk(
+            List<IconRequestInfo<T>> iconRequestInfos) {
+        long waitStart = SystemClock.elapsedRealtimeNanos();
+        synchronized (this) {
+            onLockAcquired(waitStart);
+            getTitlesAndIconsInBulkLocked(iconRequestInfos);
+        }
+    }
+
+    private <T extends ItemInfoWithIcon> void getTitlesAndIconsInBulkLocked(
             List<IconRequestInfo<T>> iconRequestInfos) {
         Map<Pair<UserHandle, Boolean>, List<IconRequestInfo<T>>> iconLoadSubsectionsMap =
                 iconRequestInfos.stream()
@@ -486,6 +589,9 @@ public class IconCache extends BaseIconCache {
                                 /* usePackageIcon= */ false,
                                 /* useLowResIcons = */ sectionKey.second);
 
+                        if (!sectionKey.second) {
+                            publishEntry(cn, sectionKey.first, entry);
+                        }
                         for (IconRequestInfo<T> iconRequest : duplicateIconRequests) {
                             applyCacheEntry(entry, iconRequest.itemInfo);
                         }
@@ -553,10 +659,107 @@ public class IconCache extends BaseIconCache {
         Trace.endSection();
     }
 
+    /**
+     * Returns the generation of the icon bitmap pack, to be passed to {@link #updateBitmapPack}
+     * once the items to pack have been loaded.
+     */
+    public int getBitmapPackGeneration() {
+        return mBitmapPack == null ? 0 : mBitmapPack.getGeneration();
+    }
+
+    /**
+     * Fills the requests which have an entry in the icon bitmap pack, without querying the icon
+     * database, and returns the requests which still need to be loaded.
+     */
+    public <T extends ItemInfoWithIcon> List<IconRequestInfo<T>> getTitlesAndIconsFromPack(
+            List<IconRequestInfo<T>> iconRequestInfos) {
+        if (mBitmapPack == null || Themes.isThemedIconEnabled(mContext)) {
+            return iconRequestInfos;
+        }
+        Trace.beginSection("loadIconsFromPack");
+        String systemState = mSystemState;
+        UserHandle myUser = Process.myUserHandle();
+        List<IconRequestInfo<T>> remaining = new ArrayList<>();
+        for (IconRequestInfo<T> request : iconRequestInfos) {
+            T info = request.itemInfo;
+            ComponentName cn = info.getTargetComponent();
+            if (request.useLowResIcon || request.iconBlob != null || cn == null
+                    || info.itemType != ITEM_TYPE_APPLICATION || !myUser.equals(info.user)) {
+                remaining.add(request);
+                continue;
+            }
+            String title = mBitmapPack.getTitle(systemState, cn);
+            BitmapInfo icon = title == null ? null : mBitmapPack.getIcon(systemState, cn);
+            if (icon == null) {
+                remaining.add(request);
+                continue;
+            }
+            info.title = title;
+            info.contentDescription = getUserBadgedLabel(title, info.user);
+            info.bitmap = icon;
+        }
+        Trace.endSection();
+        return remaining;
+    }
+
+    /**
+     * Writes the high-res app icons of {@param items} to the icon bitmap pack, unless the pack
+     * already contains all of them or the icon database changed since {@param generation}.
+     */
+    @WorkerThread
+    public void updateBitmapPack(List<? extends ItemInfo> items, int generation) {
+        if (mBitmapPack == null) {
+            return;
+        }
+        if (Themes.isThemedIconEnabled(mContext)) {
+            // Monochrome icons are not part of the pack
+            mBitmapPack.invalidate();
+            return;
+        }
+        String systemState = mSystemState;
+        UserHandle myUser = Process.myUserHandle();
+        List<IconBitmapPack.PackEntry> entries = new ArrayList<>();
+        boolean upToDate = true;
+        for (ItemInfo item : items) {
+            if (entries.size() >= IconBitmapPack.MAX_ENTRIES) {
+                break;
+            }
+            if (!(item instanceof WorkspaceItemInfo info)
+                    || info.itemType != ITEM_TYPE_APPLICATION || !myUser.equals(info.user)
+                    || info.getTargetComponent() == null || info.bitmap == null
+                    || info.bitmap.isNullOrLowRes() || TextUtils.isEmpty(info.title)
+                    || info.hasPromiseIconUi() || isDefaultIcon(info.bitmap, info.user)) {
+                continue;
+            }
+            ComponentName cn = info.getTargetComponent();
+            upToDate &= mBitmapPack.getTitle(systemState, cn) != null;
+            entries.add(new IconBitmapPack.PackEntry(cn, info.title.toString(), info.bitmap.icon,
+                    info.bitmap.color));
+        }
+        if (!upToDate) {
+            mBitmapPack.write(systemState, entries, generation);
+        }
+    }
+
+    private void invalidateBitmapPack() {
+        if (mBitmapPack != null) {
+            mBitmapPack.invalidate();
+        }
+    }
+
     /**
      * Fill in {@param infoInOut} with the corresponding icon and label.
      */
-    public synchronized void getTitleAndIconForApp(
+    public void getTitleAndIconForApp(
+            @NonNull final PackageItemInfo infoInOut, final boolean useLowResIcon) {
+        long waitStart = SystemClock.elapsedRealtimeNanos();
+        synchronized (this) {
+            onLockAcquired(waitStart);
+            getTitleAndIconForAppLocked(infoInOut, useLowResIcon);
+        }
+    }
+
+    private void getTitleAndIconForAppLocked(
             @NonNull final PackageItemInfo infoInOut, final boolean useLowResIcon) {
         CacheEntry entry = getEntryForPackageLocked(
                 infoInOut.packageName, infoInOut.user, useLowResIcon);
@@ -625,6 +828,7 @@ public class IconCache extends BaseIconCache {
     }
 
     public void updateSessionCache(PackageUserKey key, PackageInstaller.SessionInfo info) {
+        invalidatePublishedEntries(key.mPackageName, key.mUser);
         cachePackageInstallInfo(key.mPackageName, key.mUser, info.getAppIcon(),
                 info.getAppLabel());
     }
@@ -635,6 +839,77 @@ public class IconCache extends BaseIconCache {
         return mIconProvider.getSystemStateForPackage(mSystemState, packageName);
     }
 
+    /**
+     * Applies a published entry to {@param info} without taking the cache lock.
+     *
+     * @return true if an entry was found and applied
+     */
+    private boolean applyPublishedEntry(@NonNull ItemInfoWithIcon info) {
+        if (!mLockFreeReads) {
+            return false;
+        }
+        ComponentName cn = info.getTargetComponent();
+        if (cn == null || info.user == null) {
+            return false;
+        }
+        CacheEntry entry = mPublishedEntries.get(new ComponentKey(cn, info.user));
+        if (entry == null) {
+            return false;
+        }
+        mLockFreeHits.incrementAndGet();
+        applyCacheEntry(entry, info);
+        return true;
+    }
+
+    /**
+     * Makes {@param entry} available to lock-free readers if it is a final high-res entry. Must be
+     * called while holding the cache lock.
+     */
+    private void publishEntry(@Nullable ComponentName cn, @Nullable UserHandle user,
+            @NonNull CacheEntry entry) {
+        if (!mLockFreeReads || cn == null || user == null || entry.bitmap == null
+                || entry.bitmap.isNullOrLowRes() || TextUtils.isEmpty(entry.title)
+                || isDefaultIcon(entry.bitmap, user)) {
+            return;
+        }
+        mPublishedEntries.put(new ComponentKey(cn, user), entry);
+    }
+
+    /**
+     * Drops all published entries of the package, for all users if {@param user} is null.
+     */
+    private void invalidatePublishedEntries(@NonNull String packageName,
+            @Nullable UserHandle user) {
+        if (mPublishedEntries.isEmpty()) {
+            return;
+        }
+        mPublishedEntries.keySet().removeIf(key ->
+                packageName.equals(key.componentName.getPackageName())
+                        && (user == null || user.equals(key.user)));
+    }
+
+    private void onLockAcquired(long waitStartNanos) {
+        long waitNanos = SystemClock.elapsedRealtimeNanos() - waitStartNanos;
+        mLockAcquisitions.incrementAndGet();
+        mLockWaitNanos.addAndGet(waitNanos);
+        if (waitNanos > CONTENTION_THRESHOLD_NANOS) {
+            mContendedAcquisitions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Dumps the lock contention counters
+     */
+    public void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "IconCache:");
+        writer.println(prefix + "  lockFreeReads=" + mLockFreeReads
+                + " publishedEntries=" + mPublishedEntries.size()
+                + " lockFreeHits=" + mLockFreeHits.get());
+        writer.println(prefix + "  lockAcquisitions=" + mLockAcquisitions.get()
+                + " contended=" + mContendedAcquisitions.get()
+                + " totalWaitMs=" + mLockWaitNanos.get() / 1_000_000);
+    }
+
     /**
      * Interface for receiving itemInfo with high-res icon.
      */
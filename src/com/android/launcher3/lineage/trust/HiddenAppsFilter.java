@@ -23,7 +23,7 @@ import com.android.launcher3.lineage.trust.db.TrustDatabaseHelper;
 
 @SuppressWarnings("unused")
 public class HiddenAppsFilter extends AppFilter {
-    private TrustDatabaseHelper mDbHelper;
+    private final TrustDatabaseHelper mDbHelper;
 
     public HiddenAppsFilter(Context context) {
         super(context);
@@ -20,11 +20,18 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
 public class TrustDatabaseHelper extends SQLiteOpenHelper {
+    private static final String TAG = "TrustDatabaseHelper";
     private static final int DATABASE_VERSION = 1;
     private static final String DATABASE_NAME = "trust_apps_db";
 
@@ -37,6 +44,13 @@ public class TrustDatabaseHelper extends SQLiteOpenHelper {
     @Nullable
     private static TrustDatabaseHelper sSingleton;
 
+    /**
+     * Immutable view of the hidden and protected packages. Writers replace it under the instance
+     * lock after their transaction commits, readers only ever perform a volatile read.
+     */
+    @Nullable
+    private volatile Snapshot mSnapshot;
+
     private TrustDatabaseHelper(@NonNull Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
     }
@@ -65,13 +79,14 @@ public class TrustDatabaseHelper extends SQLiteOpenHelper {
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
     }
 
-    public void addHiddenApp(@NonNull String packageName) {
+    public synchronized void addHiddenApp(@NonNull String packageName) {
         if (isPackageHidden(packageName)) {
             return;
         }
 
         SQLiteDatabase db = getWritableDatabase();
         db.beginTransaction();
+        boolean committed = false;
 
         try {
             ContentValues values = new ContentValues();
@@ -79,26 +94,32 @@ public class TrustDatabaseHelper extends SQLiteOpenHelper {
             values.put(KEY_HIDDEN, 1);
 
             int rows = db.update(TABLE_NAME, values, KEY_PKGNAME + " = ?",
-                    new String[]{KEY_PKGNAME});
+                    new String[]{packageName});
             if (rows != 1) {
                 // Entry doesn't exist, create a new one
                 db.insertOrThrow(TABLE_NAME, null, values);
             }
             db.setTransactionSuccessful();
+            committed = true;
         } catch (Exception e) {
             // Ignored
         } finally {
             db.endTransaction();
         }
+
+        if (committed) {
+            updateSnapshot(snapshot -> snapshot.withHidden(packageName, true));
+        }
     }
 
-    public void addProtectedApp(@NonNull String packageName) {
+    public synchronized void addProtectedApp(@NonNull String packageName) {
         if (isPackageProtected(packageName)) {
             return;
         }
 
         SQLiteDatabase db = getWritableDatabase();
         db.beginTransaction();
+        boolean committed = false;
 
         try {
             ContentValues values = new ContentValues();
@@ -106,27 +127,33 @@ public class TrustDatabaseHelper extends SQLiteOpenHelper {
             values.put(KEY_PROTECTED, 1);
 
             int rows = db.update(TABLE_NAME, values, KEY_PKGNAME + " = ?",
-                    new String[]{KEY_PKGNAME});
+                    new String[]{packageName});
             if (rows != 1) {
                 // Entry doesn't exist, create a new one
                 db.insertOrThrow(TABLE_NAME, null, values);
             }
             db.setTransactionSuccessful();
+            committed = true;
         } catch (Exception e) {
             // Ignored
         } finally {
             db.endTransaction();
         }
+
+        if (committed) {
+            updateSnapshot(snapshot -> snapshot.withProtected(packageName, true));
+        }
     }
 
 
-    public void removeHiddenApp(@NonNull String packageName) {
+    public synchronized void removeHiddenApp(@NonNull String packageName) {
         if (!isPackageHidden(packageName)) {
             return;
         }
 
         SQLiteDatabase db = getWritableDatabase();
         db.beginTransaction();
+        boolean committed = false;
 
         try {
             ContentValues values = new ContentValues();
@@ -134,20 +161,26 @@ public class TrustDatabaseHelper extends SQLiteOpenHelper {
 
             db.update(TABLE_NAME, values, KEY_PKGNAME + " = ?", new String[]{packageName});
             db.setTransactionSuccessful();
+            committed = true;
         } catch (Exception e) {
             // Ignored
         } finally {
             db.endTransaction();
         }
+
+        if (committed) {
+            updateSnapshot(snapshot -> snapshot.withHidden(packageName, false));
+        }
     }
 
-    public void removeProtectedApp(@NonNull String packageName) {
+    public synchronized void removeProtectedApp(@NonNull String packageName) {
         if (!isPackageProtected(packageName)) {
             return;
         }
 
         SQLiteDatabase db = getWritableDatabase();
         db.beginTransaction();
+        boolean committed = false;
 
         try {
             ContentValues values = new ContentValues();
@@ -155,48 +188,121 @@ public class TrustDatabaseHelper extends SQLiteOpenHelper {
 
             db.update(TABLE_NAME, values, KEY_PKGNAME + " = ?", new String[]{packageName});
             db.setTransactionSuccessful();
+            committed = true;
         } catch (Exception e) {
             // Ignored
         } finally {
             db.endTransaction();
         }
+
+        if (committed) {
+            updateSnapshot(snapshot -> snapshot.withProtected(packageName, false));
+        }
     }
 
+    /**
+     * Returns whether the package is hidden. This never touches the database once the snapshot
+     * has been loaded and is safe to call from any thread.
+     */
     public boolean isPackageHidden(@NonNull String packageName) {
-        String query = String.format("SELECT * FROM %s WHERE %s = ? AND %s = ?", TABLE_NAME,
-                KEY_PKGNAME, KEY_HIDDEN);
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.rawQuery(query, new String[]{packageName, String.valueOf(1)});
-        boolean result = false;
+        return getSnapshot().hidden.contains(packageName);
+    }
+
+    /**
+     * Returns whether the package is protected. See {@link #isPackageHidden(String)}.
+     */
+    public boolean isPackageProtected(@NonNull String packageName) {
+        return getSnapshot().protectedApps.contains(packageName);
+    }
+
+    @NonNull
+    private Snapshot getSnapshot() {
+        Snapshot snapshot = mSnapshot;
+        return snapshot != null ? snapshot : loadSnapshot();
+    }
+
+    /**
+     * Applies a committed change to the snapshot. If it is not loaded yet, the change is read
+     * from the database along with the rest on the next access.
+     */
+    private synchronized void updateSnapshot(@NonNull UnaryOperator<Snapshot> update) {
+        Snapshot snapshot = mSnapshot;
+        if (snapshot != null) {
+            mSnapshot = update.apply(snapshot);
+        }
+    }
+
+    @NonNull
+    private synchronized Snapshot loadSnapshot() {
+        if (mSnapshot != null) {
+            return mSnapshot;
+        }
+
+        Set<String> hidden = new HashSet<>();
+        Set<String> protectedApps = new HashSet<>();
+        String query = String.format("SELECT %s, %s, %s FROM %s WHERE %s = 1 OR %s = 1",
+                KEY_PKGNAME, KEY_HIDDEN, KEY_PROTECTED, TABLE_NAME, KEY_HIDDEN, KEY_PROTECTED);
+        Cursor cursor = null;
+        boolean loaded = false;
         try {
-            result = cursor.getCount() != 0;
+            cursor = getReadableDatabase().rawQuery(query, null);
+            while (cursor.moveToNext()) {
+                String packageName = cursor.getString(0);
+                if (packageName == null) {
+                    continue;
+                }
+                if (cursor.getInt(1) != 0) {
+                    hidden.add(packageName);
+                }
+                if (cursor.getInt(2) != 0) {
+                    protectedApps.add(packageName);
+                }
+            }
+            loaded = true;
         } catch (Exception e) {
-            // Ignored
+            Log.e(TAG, "Failed to load hidden and protected apps", e);
         } finally {
             if (cursor != null && !cursor.isClosed()) {
                 cursor.close();
             }
         }
 
-        return result;
+        Snapshot snapshot = new Snapshot(hidden, protectedApps);
+        // Do not cache a partial result, so that the next access retries
+        if (loaded) {
+            mSnapshot = snapshot;
+        }
+        return snapshot;
     }
 
-    public boolean isPackageProtected(@NonNull String packageName) {
-        String query = String.format("SELECT * FROM %s WHERE %s = ? AND %s = ?", TABLE_NAME,
-                KEY_PKGNAME, KEY_PROTECTED);
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.rawQuery(query, new String[]{packageName, String.valueOf(1)});
-        boolean result = false;
-        try {
-            result = cursor.getCount() != 0;
-        } catch (Exception e) {
-            // Ignored
-        } finally {
-            if (cursor != null && !cursor.isClosed()) {
-                cursor.close();
-            }
+    private static final class Snapshot {
+        final Set<String> hidden;
+        final Set<String> protectedApps;
+
+        Snapshot(@NonNull Set<String> hidden, @NonNull Set<String> protectedApps) {
+            this.hidden = Collections.unmodifiableSet(hidden);
+            this.protectedApps = Collections.unmodifiableSet(protectedApps);
+        }
+
+        @NonNull
+        Snapshot withHidden(@NonNull String packageName, boolean isHidden) {
+            return new Snapshot(toggle(hidden, packageName, isHidden), new HashSet<>(protectedApps));
+        }
+
+        @NonNull
+        Snapshot withProtected(@NonNull String packageName, boolean isProtected) {
+            return new Snapshot(new HashSet<>(hidden), toggle(protectedApps, packageName,
+                    isProtected));
         }
 
-        return result;
+        private static Set<String> toggle(Set<String> source, String packageName, boolean add) {
+            Set<String> copy = new HashSet<>(source);
+            if (add) {
+                copy.add(packageName);
+            } else {
+                copy.remove(packageName);
+            }
+            return copy;
+        }
     }
 }
@@ -39,15 +39,22 @@ import com.android.launcher3.model.data.AppInfo;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.pm.PackageInstallInfo;
 import com.android.launcher3.pm.UserCache;
+import com.android.launcher3.search.AppTitleSearchIndex;
 import com.android.launcher3.util.ApiWrapper;
+import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.FlagOp;
 import com.android.launcher3.util.PackageManagerHelper;
+import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.SafeCloseable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
@@ -64,9 +71,13 @@ public class AllAppsList {
 
     public static final int DEFAULT_APPLICATIONS_NUMBER = 42;
 
-    /** The list off all apps. */
+    /** The list off all apps. Must only be modified through this class. */
     public final ArrayList<AppInfo> data = new ArrayList<>(DEFAULT_APPLICATIONS_NUMBER);
 
+    // Lookup indexes over data, updated along with it
+    private final HashMap<ComponentKey, AppInfo> mComponentIndex = new HashMap<>();
+    private final HashMap<PackageUserKey, ArrayList<AppInfo>> mPackageIndex = new HashMap<>();
+
     @NonNull
     private IconCache mIconCache;
 
@@ -78,6 +89,8 @@ public class AllAppsList {
 
     private AlphabeticIndexCompat mIndex;
 
+    private final AppTitleSearchIndex mSearchIndex = new AppTitleSearchIndex();
+
     /**
      * @see Callbacks#FLAG_HAS_SHORTCUT_PERMISSION
      * @see Callbacks#FLAG_QUIET_MODE_ENABLED
@@ -151,12 +164,13 @@ public class AllAppsList {
         }
         if (loadIcon) {
             mIconCache.getTitleAndIcon(info, activityInfo, false /* useLowResIcon */);
-            info.sectionName = mIndex.computeSectionName(info.title);
+            updateSectionName(info);
         } else {
             info.title = "";
+            mSearchIndex.update(info);
         }
 
-        data.add(info);
+        addToData(info);
         mDataChanged = true;
     }
 
@@ -177,28 +191,41 @@ public class AllAppsList {
 
         if (loadIcon) {
             mIconCache.getTitleAndIcon(promiseAppInfo, promiseAppInfo.usingLowResIcon());
-            promiseAppInfo.sectionName = mIndex.computeSectionName(promiseAppInfo.title);
+            updateSectionName(promiseAppInfo);
         } else {
             promiseAppInfo.title = "";
+            mSearchIndex.update(promiseAppInfo);
         }
 
-        data.add(promiseAppInfo);
+        addToData(promiseAppInfo);
         mDataChanged = true;
 
         return promiseAppInfo;
     }
 
+    /**
+     * Updates the section name and search index entry of the app after its title has changed
+     */
     public void updateSectionName(AppInfo appInfo) {
         appInfo.sectionName = mIndex.computeSectionName(appInfo.title);
+        mSearchIndex.update(appInfo);
+    }
 
+    /**
+     * Returns the title search index over {@link #data}. Must only be accessed on the model
+     * thread.
+     */
+    public AppTitleSearchIndex getSearchIndex() {
+        return mSearchIndex;
     }
 
     /** Updates the given PackageInstallInfo's associated AppInfo's installation info. */
     public List<AppInfo> updatePromiseInstallInfo(PackageInstallInfo installInfo) {
         List<AppInfo> updatedAppInfos = new ArrayList<>();
         UserHandle user = installInfo.user;
-        for (int i = data.size() - 1; i >= 0; i--) {
-            final AppInfo appInfo = data.get(i);
+        List<AppInfo> packageApps = getPackageApps(installInfo.packageName, user);
+        for (int i = packageApps.size() - 1; i >= 0; i--) {
+            final AppInfo appInfo = packageApps.get(i);
             final ComponentName tgtComp = appInfo.getTargetComponent();
             if (tgtComp != null && tgtComp.getPackageName().equals(installInfo.packageName)
                     && appInfo.user.equals(user)) {
@@ -225,26 +252,94 @@ public class AllAppsList {
                                 + " failure and appInfo not startable."
                                 + " package=" + appInfo.getTargetPackage());
                     }
-                    removeApp(i);
+                    removeApp(appInfo);
                 }
             }
         }
         return updatedAppInfos;
     }
 
-    private void removeApp(int index) {
-        AppInfo removed = data.remove(index);
-        if (removed != null) {
+    private void addToData(AppInfo info) {
+        data.add(info);
+        mComponentIndex.putIfAbsent(new ComponentKey(info.componentName, info.user), info);
+        mPackageIndex.computeIfAbsent(
+                new PackageUserKey(info.componentName.getPackageName(), info.user),
+                k -> new ArrayList<>()).add(info);
+    }
+
+    private void removeApp(AppInfo info) {
+        removeApps(Collections.singletonList(info));
+    }
+
+    /**
+     * Removes {@param apps} in a single pass over the data, instead of searching and shifting the
+     * data for each app
+     */
+    private void removeApps(List<AppInfo> apps) {
+        if (apps.isEmpty()) {
+            return;
+        }
+        Set<AppInfo> toRemove = Collections.newSetFromMap(new IdentityHashMap<>());
+        toRemove.addAll(apps);
+        List<AppInfo> removed = new ArrayList<>(apps.size());
+        data.removeIf(info -> {
+            if (toRemove.contains(info)) {
+                removed.add(info);
+                return true;
+            }
+            return false;
+        });
+        for (AppInfo info : removed) {
+            removeFromIndex(info);
+            mSearchIndex.remove(info);
             mDataChanged = true;
-            mRemoveListener.accept(removed);
+            mRemoveListener.accept(info);
         }
     }
 
+    private void removeFromIndex(AppInfo info) {
+        PackageUserKey packageKey =
+                new PackageUserKey(info.componentName.getPackageName(), info.user);
+        ArrayList<AppInfo> packageApps = mPackageIndex.get(packageKey);
+        if (packageApps != null) {
+            packageApps.removeIf(app -> app == info);
+            if (packageApps.isEmpty()) {
+                mPackageIndex.remove(packageKey);
+            }
+        }
+
+        ComponentKey key = new ComponentKey(info.componentName, info.user);
+        if (mComponentIndex.get(key) == info) {
+            mComponentIndex.remove(key);
+            // Promise apps can be added more than once, fall back to a remaining duplicate
+            if (packageApps != null) {
+                for (AppInfo app : packageApps) {
+                    if (app.componentName.equals(info.componentName)) {
+                        mComponentIndex.put(key, app);
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the apps of the package for the user, in the order they were added. The returned
+     * list is a copy and can be iterated while modifying this list.
+     */
+    private List<AppInfo> getPackageApps(String packageName, UserHandle user) {
+        ArrayList<AppInfo> packageApps = mPackageIndex.get(new PackageUserKey(packageName, user));
+        return packageApps == null ? new ArrayList<>() : new ArrayList<>(packageApps);
+    }
+
     public void clear() {
         data.clear();
+        mComponentIndex.clear();
+        mPackageIndex.clear();
         mDataChanged = false;
         // Reset the index as locales might have changed
         mIndex = new AlphabeticIndexCompat(LocaleList.getDefault());
+        mSearchIndex.clear();
     }
 
     /**
@@ -266,13 +361,7 @@ public class AllAppsList {
      * Remove the apps for the given apk identified by packageName.
      */
     public void removePackage(String packageName, UserHandle user) {
-        final List<AppInfo> data = this.data;
-        for (int i = data.size() - 1; i >= 0; i--) {
-            AppInfo info = data.get(i);
-            if (info.user.equals(user) && packageName.equals(info.componentName.getPackageName())) {
-                removeApp(i);
-            }
-        }
+        removeApps(getPackageApps(packageName, user));
     }
 
     /**
@@ -290,10 +379,15 @@ public class AllAppsList {
     }
 
     public void updateIconsAndLabels(HashSet<String> packages, UserHandle user) {
-        for (AppInfo info : data) {
-            if (info.user.equals(user) && packages.contains(info.componentName.getPackageName())) {
+        for (String packageName : packages) {
+            ArrayList<AppInfo> packageApps =
+                    mPackageIndex.get(new PackageUserKey(packageName, user));
+            if (packageApps == null) {
+                continue;
+            }
+            for (AppInfo info : packageApps) {
                 mIconCache.updateTitleAndIcon(info);
-                info.sectionName = mIndex.computeSectionName(info.title);
+                updateSectionName(info);
                 mDataChanged = true;
             }
         }
@@ -312,19 +406,18 @@ public class AllAppsList {
         if (matches.size() > 0) {
             // Find disabled/removed activities and remove them from data and add them
             // to the removed list.
-            for (int i = data.size() - 1; i >= 0; i--) {
-                final AppInfo applicationInfo = data.get(i);
-                if (user.equals(applicationInfo.user)
-                        && packageName.equals(applicationInfo.componentName.getPackageName())) {
-                    if (!findActivity(matches, applicationInfo.componentName)) {
-                        if (DEBUG) {
-                            Log.w(TAG, "Changing shortcut target due to app component name change."
-                                    + " package=" + packageName);
-                        }
-                        removeApp(i);
-                    }
+            List<AppInfo> packageApps = getPackageApps(packageName, user);
+            packageApps.removeIf(applicationInfo -> {
+                if (findActivity(matches, applicationInfo.componentName)) {
+                    return true;
                 }
-            }
+                if (DEBUG) {
+                    Log.w(TAG, "Changing shortcut target due to app component name change."
+                            + " package=" + packageName);
+                }
+                return false;
+            });
+            removeApps(packageApps);
 
             // Find enabled activities and add them to the adapter
             // Also updates existing activities with new labels/icons
@@ -336,7 +429,7 @@ public class AllAppsList {
                     Intent launchIntent = AppInfo.makeLaunchIntent(info);
 
                     mIconCache.getTitleAndIcon(applicationInfo, info, false /* useLowResIcon */);
-                    applicationInfo.sectionName = mIndex.computeSectionName(applicationInfo.title);
+                    updateSectionName(applicationInfo);
                     applicationInfo.intent = launchIntent;
                     AppInfo.updateRuntimeFlagsForActivityTarget(applicationInfo, info,
                             userCache.getUserInfo(user), apiWrapper, pmHelper);
@@ -349,14 +442,11 @@ public class AllAppsList {
                 Log.w(TAG, "updatePromiseInstallInfo: no Activities matched updated package,"
                         + " removing all apps from package=" + packageName);
             }
-            for (int i = data.size() - 1; i >= 0; i--) {
-                final AppInfo applicationInfo = data.get(i);
-                if (user.equals(applicationInfo.user)
-                        && packageName.equals(applicationInfo.componentName.getPackageName())) {
-                    mIconCache.remove(applicationInfo.componentName, user);
-                    removeApp(i);
-                }
+            List<AppInfo> packageApps = getPackageApps(packageName, user);
+            for (AppInfo applicationInfo : packageApps) {
+                mIconCache.remove(applicationInfo.componentName, user);
             }
+            removeApps(packageApps);
         }
 
         return matches;
@@ -382,12 +472,7 @@ public class AllAppsList {
      */
     public @Nullable AppInfo findAppInfo(@NonNull ComponentName componentName,
                                           @NonNull UserHandle user) {
-        for (AppInfo info: data) {
-            if (componentName.equals(info.componentName) && user.equals(info.user)) {
-                return info;
-            }
-        }
-        return null;
+        return mComponentIndex.get(new ComponentKey(componentName, user));
     }
 
     public AppInfo[] copyData() {
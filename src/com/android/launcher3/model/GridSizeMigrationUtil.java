@@ -50,8 +50,8 @@ import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.pm.InstallSessionHelper;
 import com.android.launcher3.provider.LauncherDbUtils.SQLiteTransaction;
 import com.android.launcher3.util.ContentWriter;
-import com.android.launcher3.util.GridOccupancy;
 import com.android.launcher3.util.IntArray;
+import com.android.launcher3.util.PackedGridOccupancy;
 import com.android.launcher3.widget.LauncherAppWidgetProviderInfo;
 import com.android.launcher3.widget.WidgetManagerHelper;
 
@@ -344,7 +344,7 @@ public class GridSizeMigrationUtil {
             @NonNull final DbReader srcReader, @NonNull final DbReader destReader,
             final int screenId, final int trgX, final int trgY,
             @NonNull final List<DbEntry> sortedItemsToPlace) {
-        final GridOccupancy occupied = new GridOccupancy(trgX, trgY);
+        final PackedGridOccupancy occupied = new PackedGridOccupancy(trgX, trgY);
         final Point trg = new Point(trgX, trgY);
         final Point next = new Point(0, screenId == 0
                 && (FeatureFlags.QSB_ON_FIRST_SCREEN
@@ -377,9 +377,10 @@ public class GridSizeMigrationUtil {
      * a memoization of last placement, we can start our search for next placement from there
      * to speed up the search.
      */
-    private static boolean findPlacementForEntry(@NonNull final DbEntry entry,
+    @VisibleForTesting
+    static boolean findPlacementForEntry(@NonNull final DbEntry entry,
             @NonNull final Point next, @NonNull final Point trg,
-            @NonNull final GridOccupancy occupied, final int screenId) {
+            @NonNull final PackedGridOccupancy occupied, final int screenId) {
         for (int y = next.y; y <  trg.y; y++) {
             for (int x = next.x; x < trg.x; x++) {
                 boolean fits = occupied.isRegionVacant(x, y, entry.spanX, entry.spanY);
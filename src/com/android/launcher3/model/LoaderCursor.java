@@ -54,10 +54,10 @@ import com.android.launcher3.pm.UserCache;
 import com.android.launcher3.shortcuts.ShortcutKey;
 import com.android.launcher3.util.ApiWrapper;
 import com.android.launcher3.util.ContentWriter;
-import com.android.launcher3.util.GridOccupancy;
 import com.android.launcher3.util.IntArray;
 import com.android.launcher3.util.IntSparseArrayMap;
 import com.android.launcher3.util.PackageManagerHelper;
+import com.android.launcher3.util.PackedGridOccupancy;
 import com.android.launcher3.util.UserIconInfo;
 
 import java.net.URISyntaxException;
@@ -81,7 +81,7 @@ public class LoaderCursor extends CursorWrapper {
 
     private final IntArray mItemsToRemove = new IntArray();
     private final IntArray mRestoredRows = new IntArray();
-    private final IntSparseArrayMap<GridOccupancy> mOccupied = new IntSparseArrayMap<>();
+    private final IntSparseArrayMap<PackedGridOccupancy> mOccupied = new IntSparseArrayMap<>();
 
     private final int mIconIndex;
     public final int mTitleIndex;
@@ -508,10 +508,11 @@ public class LoaderCursor extends CursorWrapper {
     protected boolean checkItemPlacement(ItemInfo item, boolean isFirstPagePinnedItemEnabled) {
         int containerIndex = item.screenId;
         if (item.container == Favorites.CONTAINER_HOTSEAT) {
-            final GridOccupancy hotseatOccupancy =
+            final PackedGridOccupancy hotseatOccupancy =
                     mOccupied.get(Favorites.CONTAINER_HOTSEAT);
 
-            if (item.screenId >= mIDP.numDatabaseHotseatIcons) {
+            // The packed occupancy ignores cells out of its bounds, so check both ends here
+            if (item.screenId < 0 || item.screenId >= mIDP.numDatabaseHotseatIcons) {
                 Log.e(TAG, "Error loading shortcut " + item
                         + " into hotseat position " + item.screenId
                         + ", position out of bounds: (0 to " + (mIDP.numDatabaseHotseatIcons - 1)
@@ -520,18 +521,19 @@ public class LoaderCursor extends CursorWrapper {
             }
 
             if (hotseatOccupancy != null) {
-                if (hotseatOccupancy.cells[(int) item.screenId][0]) {
+                if (hotseatOccupancy.isOccupied(item.screenId, 0)) {
                     Log.e(TAG, "Error loading shortcut into hotseat " + item
                             + " into position (" + item.screenId + ":" + item.cellX + ","
                             + item.cellY + ") already occupied");
                     return false;
                 } else {
-                    hotseatOccupancy.cells[item.screenId][0] = true;
+                    hotseatOccupancy.markCells(item.screenId, 0, 1, 1, true);
                     return true;
                 }
             } else {
-                final GridOccupancy occupancy = new GridOccupancy(mIDP.numDatabaseHotseatIcons, 1);
-                occupancy.cells[item.screenId][0] = true;
+                final PackedGridOccupancy occupancy =
+                        new PackedGridOccupancy(mIDP.numDatabaseHotseatIcons, 1);
+                occupancy.markCells(item.screenId, 0, 1, 1, true);
                 mOccupied.put(Favorites.CONTAINER_HOTSEAT, occupancy);
                 return true;
             }
@@ -552,7 +554,7 @@ public class LoaderCursor extends CursorWrapper {
         }
 
         if (!mOccupied.containsKey(item.screenId)) {
-            GridOccupancy screen = new GridOccupancy(countX + 1, countY + 1);
+            PackedGridOccupancy screen = new PackedGridOccupancy(countX + 1, countY + 1);
             if (item.screenId == Workspace.FIRST_SCREEN_ID && (FeatureFlags.QSB_ON_FIRST_SCREEN
                     && !SHOULD_SHOW_FIRST_PAGE_WIDGET
                     && isFirstPagePinnedItemEnabled)) {
@@ -565,7 +567,7 @@ public class LoaderCursor extends CursorWrapper {
             }
             mOccupied.put(item.screenId, screen);
         }
-        final GridOccupancy occupancy = mOccupied.get(item.screenId);
+        final PackedGridOccupancy occupancy = mOccupied.get(item.screenId);
 
         // Check if any workspace icons overlap with each other
         if (occupancy.isRegionVacant(item.cellX, item.cellY, item.spanX, item.spanY)) {
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static com.android.launcher3.util.Executors.THREAD_POOL_EXECUTOR;
+
+import android.os.SystemClock;
+import android.util.TimingLogger;
+
+import androidx.annotation.NonNull;
+
+import com.android.launcher3.logging.FileLog;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Tracks the phases of a single model load.
+ *
+ * Phases which only query the system and do not touch the model can be started ahead of time on
+ * the {@link com.android.launcher3.util.Executors#THREAD_POOL_EXECUTOR}. Their result is awaited
+ * on the loader thread at the point where it used to be computed, so the model is still only
+ * modified on the loader thread and the bind order is unchanged. When parallel loading is
+ * disabled, a phase is run inline when it is awaited.
+ */
+class LoaderPhases {
+
+    private final String mTag;
+    private final boolean mParallel;
+    private final TimingLogger mTimingLogger;
+    private final long mStartTime = SystemClock.elapsedRealtime();
+    private final ArrayList<Phase<?>> mPhases = new ArrayList<>();
+
+    LoaderPhases(@NonNull String tag, boolean parallel) {
+        mTag = tag;
+        mParallel = parallel;
+        mTimingLogger = new TimingLogger(tag, "load");
+    }
+
+    /**
+     * Records the end of a step executed on the loader thread
+     */
+    void addSplit(@NonNull String label) {
+        mTimingLogger.addSplit(label);
+    }
+
+    /**
+     * Creates a new phase which runs {@param task} independently of the loader thread
+     */
+    @NonNull
+    <T> Phase<T> start(@NonNull String name, @NonNull Callable<T> task) {
+        Phase<T> phase = new Phase<>(name, task);
+        mPhases.add(phase);
+        if (mParallel) {
+            THREAD_POOL_EXECUTOR.execute(phase.mFuture);
+        }
+        return phase;
+    }
+
+    /**
+     * Returns the result of the phase, blocking until it is available
+     */
+    <T> T await(@NonNull Phase<T> phase) throws CancellationException {
+        long waitStart = SystemClock.elapsedRealtime();
+        // No-op if the phase is already running or done
+        phase.mFuture.run();
+        try {
+            return phase.mFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for " + phase.mName);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            phase.mWaitMs = SystemClock.elapsedRealtime() - waitStart;
+            mTimingLogger.addSplit("await " + phase.mName);
+        }
+    }
+
+    /**
+     * Cancels all the phases which have not started yet
+     */
+    void cancel() {
+        for (Phase<?> phase : mPhases) {
+            phase.mFuture.cancel(false);
+        }
+    }
+
+    /**
+     * Logs the timings of the completed load
+     */
+    void finish() {
+        mTimingLogger.dumpToLog();
+        StringBuilder sb = new StringBuilder("Model loaded in ")
+                .append(SystemClock.elapsedRealtime() - mStartTime)
+                .append("ms, parallel=").append(mParallel);
+        for (Phase<?> phase : mPhases) {
+            sb.append(", ").append(phase.mName)
+                    .append("=").append(phase.mDurationMs).append("ms")
+                    .append(" (blocked ").append(phase.mWaitMs).append("ms)");
+        }
+        FileLog.d(mTag, sb.toString());
+    }
+
+    /**
+     * A unit of work started ahead of the step which consumes its result
+     */
+    static class Phase<T> {
+
+        private final String mName;
+        private final FutureTask<T> mFuture;
+
+        private volatile long mDurationMs;
+        private long mWaitMs;
+
+        private Phase(String name, Callable<T> task) {
+            mName = name;
+            mFuture = new FutureTask<>(() -> {
+                long start = SystemClock.elapsedRealtime();
+                try {
+                    return task.call();
+                } finally {
+                    mDurationMs = SystemClock.elapsedRealtime() - start;
+                }
+            });
+        }
+    }
+}
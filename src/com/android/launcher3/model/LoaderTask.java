@@ -100,10 +100,12 @@ import com.android.launcher3.util.PackageManagerHelper;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.TraceHelper;
 import com.android.launcher3.widget.WidgetInflater;
+import com.android.launcher3.widget.WidgetManagerHelper;
 
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -150,6 +152,8 @@ public class LoaderTask implements Runnable {
     private HashMap<PackageUserKey, SessionInfo> mInstallingPkgsCached;
 
     private boolean mStopped;
+    @Nullable
+    private LoaderPhases mPhases;
 
     private final Set<PackageUserKey> mPendingPackages = new HashSet<>();
     private boolean mItemsDeleted = false;
@@ -233,6 +237,7 @@ public class LoaderTask implements Runnable {
         }
 
         TraceHelper.INSTANCE.beginSection(TAG);
+        mPhases = new LoaderPhases(TAG, FeatureFlags.ENABLE_PARALLEL_MODEL_LOADING.get());
         LoaderMemoryLogger memoryLogger = new LoaderMemoryLogger();
         mIsRestoreFromBackup =
                 (Boolean) LauncherPrefs.get(mApp.getContext()).get(IS_FIRST_LOAD_AFTER_RESTORE);
@@ -244,6 +249,7 @@ public class LoaderTask implements Runnable {
         try (LauncherModel.LoaderTransaction transaction = mApp.getModel().beginLoader(this)) {
 
             List<ShortcutInfo> allShortcuts = new ArrayList<>();
+            int iconPackGeneration = mIconCache.getBitmapPackGeneration();
             loadWorkspace(allShortcuts, "", memoryLogger, restoreEventLogger);
 
             // Sanitize data re-syncs widgets/shortcuts based on the workspace loaded from db.
@@ -262,6 +268,13 @@ public class LoaderTask implements Runnable {
             mLauncherBinder.bindWorkspace(true /* incrementBindId */, /* isBindSync= */ false);
             logASplit("bindWorkspace");
 
+            // These only query the system and are not needed before the workspace is bound, start
+            // them now so that they overlap with the idle wait and the all apps load.
+            LoaderPhases.Phase<Map<UserHandle, List<ShortcutInfo>>> deepShortcutsPhase =
+                    mPhases.start("queryDeepShortcuts", this::queryDeepShortcuts);
+            LoaderPhases.Phase<List<AppWidgetProviderInfo>> widgetProvidersPhase =
+                    mPhases.start("queryWidgetProviders", this::queryWidgetProviders);
+
             mModelDelegate.workspaceLoadComplete();
             // Notify the installer packages of packages with active installs on the first screen.
             sendFirstScreenActiveInstallsBroadcast();
@@ -310,7 +323,8 @@ public class LoaderTask implements Runnable {
             verifyNotStopped();
 
             // third step
-            List<ShortcutInfo> allDeepShortcuts = loadDeepShortcuts();
+            List<ShortcutInfo> allDeepShortcuts =
+                    loadDeepShortcuts(mPhases.await(deepShortcutsPhase));
             logASplit("loadDeepShortcuts");
 
             verifyNotStopped();
@@ -329,7 +343,8 @@ public class LoaderTask implements Runnable {
 
             // fourth step
             List<ComponentWithLabelAndIcon> allWidgetsList =
-                    mBgDataModel.widgetsModel.update(mApp, null);
+                    mBgDataModel.widgetsModel.update(
+                            mApp, null, mPhases.await(widgetProvidersPhase));
             logASplit("load widgets");
 
             verifyNotStopped();
@@ -368,8 +383,12 @@ public class LoaderTask implements Runnable {
             updateHandler.finish();
             logASplit("finish icon update");
 
+            mIconCache.updateBitmapPack(mBgDataModel.getAllWorkspaceItems(), iconPackGeneration);
+            logASplit("update icon bitmap pack");
+
             mModelDelegate.modelLoadComplete();
             transaction.commit();
+            mPhases.finish();
             memoryLogger.clearLogs();
             if (mIsRestoreFromBackup) {
                 mIsRestoreFromBackup = false;
@@ -384,6 +403,8 @@ public class LoaderTask implements Runnable {
         } catch (Exception e) {
             memoryLogger.printLogs();
             throw e;
+        } finally {
+            mPhases.cancel();
         }
         TraceHelper.INSTANCE.endSection();
     }
@@ -601,7 +622,8 @@ public class LoaderTask implements Runnable {
             List<IconRequestInfo<WorkspaceItemInfo>> iconRequestInfos) {
         Trace.beginSection("LoadWorkspaceIconsInBulk");
         try {
-            mIconCache.getTitlesAndIconsInBulk(iconRequestInfos);
+            mIconCache.getTitlesAndIconsInBulk(
+                    mIconCache.getTitlesAndIconsFromPack(iconRequestInfos));
             for (IconRequestInfo<WorkspaceItemInfo> iconRequestInfo : iconRequestInfos) {
                 WorkspaceItemInfo wai = iconRequestInfo.itemInfo;
                 if (mIconCache.isDefaultIcon(wai.bitmap, wai.user)) {
@@ -783,23 +805,52 @@ public class LoaderTask implements Runnable {
         return allActivityList;
     }
 
-    private List<ShortcutInfo> loadDeepShortcuts() {
-        List<ShortcutInfo> allShortcuts = new ArrayList<>();
-        mBgDataModel.deepShortcutMap.clear();
-
-        if (mBgAllAppsList.hasShortcutHostPermission()) {
+    /**
+     * Queries the deep shortcuts of all unlocked users. This does not access the model and can be
+     * called on any thread.
+     */
+    private Map<UserHandle, List<ShortcutInfo>> queryDeepShortcuts() {
+        Map<UserHandle, List<ShortcutInfo>> shortcutsByUser = new LinkedHashMap<>();
+        if (hasShortcutsPermission(mApp.getContext())) {
             for (UserHandle user : mUserCache.getUserProfiles()) {
                 if (mUserManager.isUserUnlocked(user)) {
-                    List<ShortcutInfo> shortcuts = new ShortcutRequest(mApp.getContext(), user)
-                            .query(ShortcutRequest.ALL);
-                    allShortcuts.addAll(shortcuts);
-                    mBgDataModel.updateDeepShortcutCounts(null, user, shortcuts);
+                    shortcutsByUser.put(user, new ShortcutRequest(mApp.getContext(), user)
+                            .query(ShortcutRequest.ALL));
                 }
             }
         }
+        return shortcutsByUser;
+    }
+
+    private List<ShortcutInfo> loadDeepShortcuts(
+            Map<UserHandle, List<ShortcutInfo>> shortcutsByUser) {
+        List<ShortcutInfo> allShortcuts = new ArrayList<>();
+        mBgDataModel.deepShortcutMap.clear();
+
+        if (mBgAllAppsList.hasShortcutHostPermission()) {
+            shortcutsByUser.forEach((user, shortcuts) -> {
+                allShortcuts.addAll(shortcuts);
+                mBgDataModel.updateDeepShortcutCounts(null, user, shortcuts);
+            });
+        }
         return allShortcuts;
     }
 
+    /**
+     * Queries all widget providers, or returns null if they should be queried again by the
+     * widgets model. This does not access the model and can be called on any thread.
+     */
+    @Nullable
+    private List<AppWidgetProviderInfo> queryWidgetProviders() {
+        try {
+            return new WidgetManagerHelper(mApp.getContext()).getAllProviders(null);
+        } catch (Exception e) {
+            // Let the widgets model handle the failure on the loader thread
+            Log.w(TAG, "Unable to query widget providers", e);
+            return null;
+        }
+    }
+
     private void loadFolderNames() {
         FolderNameProvider provider = FolderNameProvider.newInstance(mApp.getContext(),
                 mBgAllAppsList.data, mBgDataModel.collections);
@@ -822,7 +873,10 @@ public class LoaderTask implements Runnable {
                 && (provider.provider.getPackageName() != null);
     }
 
-    private static void logASplit(String label) {
+    private void logASplit(String label) {
+        if (mPhases != null) {
+            mPhases.addSplit(label);
+        }
         if (DEBUG) {
             Log.d(TAG, label);
         }
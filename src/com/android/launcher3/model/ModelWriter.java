@@ -22,6 +22,7 @@ import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
 
 import android.content.ContentValues;
 import android.content.Context;
+import android.os.Handler;
 import android.text.TextUtils;
 import android.util.Log;
 
@@ -48,11 +49,15 @@ import com.android.launcher3.util.ItemInfoMatcher;
 import com.android.launcher3.util.LooperExecutor;
 import com.android.launcher3.widget.LauncherWidgetHolder;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -65,6 +70,19 @@ public class ModelWriter {
 
     private static final String TAG = "ModelWriter";
 
+    // Time during which item updates are collected before being written in a single transaction
+    private static final long BATCH_WINDOW_MS = 50;
+
+    // Item updates written to the database through a batch
+    private static final AtomicLong sBatchedWrites = new AtomicLong();
+    // Item updates merged into an update of the same item which was still pending
+    private static final AtomicLong sCoalescedWrites = new AtomicLong();
+    private static final AtomicLong sBatchTransactions = new AtomicLong();
+
+    // Writers with item updates waiting to be written, guarded by itself
+    private static final LinkedHashSet<ModelWriter> sWritersWithPendingUpdates =
+            new LinkedHashSet<>();
+
     private final Context mContext;
     private final LauncherModel mModel;
     private final BgDataModel mBgDataModel;
@@ -80,6 +98,14 @@ public class ModelWriter {
     private boolean mPreparingToUndo;
     private final CellPosMapper mCellPosMapper;
 
+    // Item updates waiting to be written, by item id, guarded by itself. Updates are only added
+    // on the UI thread, but can be flushed from any thread posting a model task.
+    private final LinkedHashMap<Integer, PendingUpdate> mPendingUpdates = new LinkedHashMap<>();
+    // Verifier of the pending updates, created along with the first one
+    @Nullable
+    private ModelVerifier mPendingVerifier;
+    private final Runnable mFlushPendingUpdates = this::flushPendingUpdates;
+
     public ModelWriter(Context context, LauncherModel model, BgDataModel dataModel,
             boolean verifyChanges, CellPosMapper cellPosMapper, @Nullable Callbacks owner) {
         mContext = context;
@@ -162,13 +188,16 @@ public class ModelWriter {
         updateItemInfoProps(item, container, screenId, cellX, cellY);
         notifyItemModified(item);
 
-        enqueueDeleteRunnable(new UpdateItemRunnable(item, () ->
+        Supplier<ContentWriter> writer = () ->
                 new ContentWriter(mContext)
                         .put(Favorites.CONTAINER, item.container)
                         .put(Favorites.CELLX, item.cellX)
                         .put(Favorites.CELLY, item.cellY)
                         .put(Favorites.RANK, item.rank)
-                        .put(Favorites.SCREEN, item.screenId)));
+                        .put(Favorites.SCREEN, item.screenId);
+        if (mPreparingToUndo || !enqueueBatchedUpdate(item, writer)) {
+            enqueueDeleteRunnable(new UpdateItemRunnable(item, writer));
+        }
     }
 
     /**
@@ -205,7 +234,7 @@ public class ModelWriter {
         item.spanX = spanX;
         item.spanY = spanY;
         notifyItemModified(item);
-        new UpdateItemRunnable(item, () ->
+        Supplier<ContentWriter> writer = () ->
                 new ContentWriter(mContext)
                         .put(Favorites.CONTAINER, item.container)
                         .put(Favorites.CELLX, item.cellX)
@@ -213,8 +242,10 @@ public class ModelWriter {
                         .put(Favorites.RANK, item.rank)
                         .put(Favorites.SPANX, item.spanX)
                         .put(Favorites.SPANY, item.spanY)
-                        .put(Favorites.SCREEN, item.screenId))
-                .executeOnModelThread();
+                        .put(Favorites.SCREEN, item.screenId);
+        if (!enqueueBatchedUpdate(item, writer)) {
+            new UpdateItemRunnable(item, writer).executeOnModelThread();
+        }
     }
 
     /**
@@ -229,6 +260,92 @@ public class ModelWriter {
         }).executeOnModelThread();
     }
 
+    /**
+     * Adds the update to the pending batch, merging it with a pending update of the same item.
+     *
+     * @return false if the update can not be batched and should be written directly
+     */
+    private boolean enqueueBatchedUpdate(ItemInfo item, Supplier<ContentWriter> writer) {
+        if (!FeatureFlags.ENABLE_MODEL_WRITE_BATCHING.get() || !isOnUiThread()) {
+            return false;
+        }
+        synchronized (mPendingUpdates) {
+            PendingUpdate pending = mPendingUpdates.get(item.id);
+            if (pending != null && pending.mItem != item) {
+                // A different object for the same id, keep both updates in order
+                flushPendingUpdates();
+                pending = null;
+            }
+            if (pending == null) {
+                if (mPendingUpdates.isEmpty()) {
+                    mPendingVerifier = new ModelVerifier();
+                    synchronized (sWritersWithPendingUpdates) {
+                        sWritersWithPendingUpdates.add(this);
+                    }
+                }
+                mPendingUpdates.put(item.id, new PendingUpdate(item, writer));
+            } else {
+                pending.mWriters.add(writer);
+                sCoalescedWrites.incrementAndGet();
+            }
+        }
+        Handler handler = mUiExecutor.getHandler();
+        handler.removeCallbacks(mFlushPendingUpdates);
+        handler.postDelayed(mFlushPendingUpdates, BATCH_WINDOW_MS);
+        return true;
+    }
+
+    /**
+     * Writes all pending updates. This is also called before any other task of this writer is
+     * posted to the model thread, so that tasks still execute in the order they were requested.
+     */
+    private void flushPendingUpdates() {
+        synchronized (mPendingUpdates) {
+            if (mPendingUpdates.isEmpty()) {
+                return;
+            }
+            mUiExecutor.getHandler().removeCallbacks(mFlushPendingUpdates);
+            ArrayList<PendingUpdate> updates = new ArrayList<>(mPendingUpdates.values());
+            mPendingUpdates.clear();
+            synchronized (sWritersWithPendingUpdates) {
+                sWritersWithPendingUpdates.remove(this);
+            }
+            // Posted while holding the lock, so that batches flushed concurrently stay in order
+            MODEL_EXECUTOR.execute(new UpdateItemsBatchRunnable(updates, mPendingVerifier));
+            mPendingVerifier = null;
+        }
+    }
+
+    /**
+     * Writes the pending updates of all writers. This must be called before posting any task
+     * to the model thread, so that the task does not run ahead of the updates requested before it.
+     */
+    public static void flushAllPendingUpdates() {
+        ModelWriter[] writers;
+        synchronized (sWritersWithPendingUpdates) {
+            if (sWritersWithPendingUpdates.isEmpty()) {
+                return;
+            }
+            writers = sWritersWithPendingUpdates.toArray(new ModelWriter[0]);
+        }
+        for (ModelWriter writer : writers) {
+            writer.flushPendingUpdates();
+        }
+    }
+
+    private boolean isOnUiThread() {
+        return mUiExecutor.getLooper().isCurrentThread();
+    }
+
+    /**
+     * Dumps the write batching counters, shared by all writers
+     */
+    public static void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "ModelWriter: batchedWrites=" + sBatchedWrites.get()
+                + " coalescedWrites=" + sCoalescedWrites.get()
+                + " batchTransactions=" + sBatchTransactions.get());
+    }
+
     private void notifyItemModified(ItemInfo item) {
         notifyOtherCallbacks(c -> c.bindItemsModified(Collections.singletonList(item)));
     }
@@ -416,6 +533,55 @@ public class ModelWriter {
         }
     }
 
+    /**
+     * An item update waiting to be written as part of a batch
+     */
+    private class PendingUpdate {
+        private final ItemInfo mItem;
+        private final int mItemId;
+        private final int mLoadId = mBgDataModel.lastLoadId;
+        private final StackTraceElement[] mStackTrace = new Throwable().getStackTrace();
+        private final ArrayList<Supplier<ContentWriter>> mWriters = new ArrayList<>(1);
+
+        PendingUpdate(ItemInfo item, Supplier<ContentWriter> writer) {
+            mItem = item;
+            mItemId = item.id;
+            mWriters.add(writer);
+        }
+    }
+
+    private class UpdateItemsBatchRunnable extends UpdateItemBaseRunnable {
+        private final ArrayList<PendingUpdate> mUpdates;
+
+        UpdateItemsBatchRunnable(ArrayList<PendingUpdate> updates, ModelVerifier verifier) {
+            super(verifier);
+            mUpdates = updates;
+        }
+
+        @Override
+        public void runImpl() {
+            int lastLoadId = mModel.getLastLoadId();
+            mUpdates.removeIf(update -> update.mLoadId != lastLoadId);
+            try (SQLiteTransaction t = mModel.getModelDbController().newTransaction()) {
+                for (PendingUpdate update : mUpdates) {
+                    // Later updates of the same item override the columns of earlier ones
+                    ContentValues values = new ContentValues();
+                    for (Supplier<ContentWriter> writer : update.mWriters) {
+                        values.putAll(writer.get().getValues(mContext));
+                    }
+                    mModel.getModelDbController().update(
+                            TABLE_NAME, values, itemIdMatch(update.mItemId), null);
+                }
+                t.commit();
+            }
+            sBatchedWrites.addAndGet(mUpdates.size());
+            sBatchTransactions.incrementAndGet();
+            for (PendingUpdate update : mUpdates) {
+                updateItemArrays(update.mItem, update.mItemId, update.mStackTrace);
+            }
+        }
+    }
+
     private class UpdateItemsRunnable extends UpdateItemBaseRunnable {
         private final ArrayList<ContentValues> mValues;
         private final ArrayList<ItemInfo> mItems;
@@ -445,16 +611,29 @@ public class ModelWriter {
 
     private abstract class UpdateItemBaseRunnable extends ModelTask {
         private final StackTraceElement[] mStackTrace;
-        private final ModelVerifier mVerifier = new ModelVerifier();
+        private final ModelVerifier mVerifier;
 
         UpdateItemBaseRunnable() {
+            this(new ModelVerifier());
+        }
+
+        /**
+         * @param verifier created when the update was requested, which can be before this
+         */
+        UpdateItemBaseRunnable(ModelVerifier verifier) {
             mStackTrace = new Throwable().getStackTrace();
+            mVerifier = verifier;
         }
 
         protected void updateItemArrays(ItemInfo item, int itemId) {
+            updateItemArrays(item, itemId, mStackTrace);
+        }
+
+        protected void updateItemArrays(ItemInfo item, int itemId,
+                StackTraceElement[] stackTrace) {
             // Lock on mBgLock *after* the db operation
             synchronized (mBgDataModel) {
-                checkItemInfoLocked(itemId, item, mStackTrace);
+                checkItemInfoLocked(itemId, item, stackTrace);
 
                 if (item.container != Favorites.CONTAINER_DESKTOP &&
                         item.container != Favorites.CONTAINER_HOTSEAT) {
@@ -509,6 +688,7 @@ public class ModelWriter {
         }
 
         public final void executeOnModelThread() {
+            flushAllPendingUpdates();
             MODEL_EXECUTOR.execute(this);
         }
 
@@ -32,12 +32,14 @@ import com.android.launcher3.icons.ComponentWithLabelAndIcon;
 import com.android.launcher3.icons.IconCache;
 import com.android.launcher3.model.data.PackageItemInfo;
 import com.android.launcher3.pm.ShortcutConfigActivityInfo;
+import com.android.launcher3.pm.UserCache;
 import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.IntSet;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.Preconditions;
 import com.android.launcher3.widget.LauncherAppWidgetProviderInfo;
 import com.android.launcher3.widget.WidgetManagerHelper;
+import com.android.launcher3.widget.WidgetPreviewCache;
 import com.android.launcher3.widget.WidgetSections;
 import com.android.launcher3.widget.model.WidgetsListBaseEntry;
 import com.android.launcher3.widget.model.WidgetsListContentEntry;
@@ -153,6 +155,16 @@ public class WidgetsModel {
      */
     public List<ComponentWithLabelAndIcon> update(
             LauncherAppState app, @Nullable PackageUserKey packageUser) {
+        return update(app, packageUser, null);
+    }
+
+    /**
+     * Same as {@link #update(LauncherAppState, PackageUserKey)}, but uses {@param providers} as
+     * the result of {@link WidgetManagerHelper#getAllProviders} if they were already queried.
+     */
+    public List<ComponentWithLabelAndIcon> update(LauncherAppState app,
+            @Nullable PackageUserKey packageUser,
+            @Nullable List<AppWidgetProviderInfo> providers) {
         if (!WIDGETS_ENABLED) {
             return Collections.emptyList();
         }
@@ -167,7 +179,10 @@ public class WidgetsModel {
 
             // Widgets
             WidgetManagerHelper widgetManager = new WidgetManagerHelper(context);
-            for (AppWidgetProviderInfo widgetInfo : widgetManager.getAllProviders(packageUser)) {
+            if (providers == null) {
+                providers = widgetManager.getAllProviders(packageUser);
+            }
+            for (AppWidgetProviderInfo widgetInfo : providers) {
                 LauncherAppWidgetProviderInfo launcherWidgetInfo =
                         LauncherAppWidgetProviderInfo.fromProviderInfo(context, widgetInfo);
 
@@ -236,6 +251,10 @@ public class WidgetsModel {
         if (!WIDGETS_ENABLED) {
             return;
         }
+        if (FeatureFlags.ENABLE_WIDGET_PREVIEW_CACHE.get()) {
+            WidgetPreviewCache.INSTANCE.get(app.getContext()).removePackages(packageNames,
+                    UserCache.INSTANCE.get(app.getContext()).getSerialNumberForUser(user));
+        }
         WidgetManagerHelper widgetManager = new WidgetManagerHelper(app.getContext());
         for (Entry<PackageItemInfo, List<WidgetItem>> entry : mWidgetsList.entrySet()) {
             if (packageNames.contains(entry.getKey().packageName)) {
@@ -25,9 +25,9 @@ import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.LauncherSettings;
 import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.model.data.ItemInfo;
-import com.android.launcher3.util.GridOccupancy;
 import com.android.launcher3.util.IntArray;
 import com.android.launcher3.util.IntSet;
+import com.android.launcher3.util.PackedGridOccupancy;
 
 import java.util.ArrayList;
 
@@ -104,7 +104,8 @@ public class WorkspaceItemSpaceFinder {
             int[] xy, int spanX, int spanY) {
         InvariantDeviceProfile profile = app.getInvariantDeviceProfile();
 
-        GridOccupancy occupied = new GridOccupancy(profile.numColumns, profile.numRows);
+        PackedGridOccupancy occupied =
+                new PackedGridOccupancy(profile.numColumns, profile.numRows);
         if (occupiedPos != null) {
             for (ItemInfo r : occupiedPos) {
                 occupied.markCells(r, true);
@@ -16,6 +16,7 @@
 
 package com.android.launcher3.notification;
 
+import static com.android.launcher3.config.FeatureFlags.ENABLE_NOTIFICATION_DOT_COALESCING;
 import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 import static com.android.launcher3.util.Executors.MODEL_EXECUTOR;
 import static com.android.launcher3.util.SettingsCache.NOTIFICATION_BADGING_URI;
@@ -41,10 +42,12 @@ import androidx.annotation.WorkerThread;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.SettingsCache;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -64,6 +67,10 @@ public class NotificationListener extends NotificationListenerService {
     private static final int MSG_NOTIFICATION_REMOVED = 2;
     private static final int MSG_NOTIFICATION_FULL_REFRESH = 3;
     private static final int MSG_RANKING_UPDATE = 4;
+    private static final int MSG_NOTIFICATIONS_CHANGED = 5;
+
+    // Time during which the posted and removed notifications are merged into one update
+    private static final long CHANGES_WINDOW_MS = 16;
 
     private static NotificationListener sNotificationListenerInstance = null;
     private static final ArraySet<NotificationsChangedListener> sNotificationsChangedListeners =
@@ -79,6 +86,11 @@ public class NotificationListener extends NotificationListenerService {
     /** Maps keys to their corresponding current group key */
     private final Map<String, String> mNotificationGroupKeyMap = new HashMap<>();
 
+    // Changes not sent to the listeners yet by notification key, only used on the worker thread
+    private final Map<String, NotificationChange> mPendingChanges = new LinkedHashMap<>();
+    private volatile int mReceivedChangeCount;
+    private volatile int mDispatchedChangeCount;
+
     private SettingsCache mSettingsCache;
     private SettingsCache.OnChangeListener mNotificationSettingsChangedListener;
 
@@ -119,6 +131,10 @@ public class NotificationListener extends NotificationListenerService {
         switch (message.what) {
             case MSG_NOTIFICATION_POSTED: {
                 StatusBarNotification sbn = (StatusBarNotification) message.obj;
+                if (ENABLE_NOTIFICATION_DOT_COALESCING.get()) {
+                    addPendingChange(sbn, notificationIsValidForUI(sbn));
+                    return true;
+                }
                 mUiHandler.obtainMessage(notificationIsValidForUI(sbn)
                                 ? MSG_NOTIFICATION_POSTED : MSG_NOTIFICATION_REMOVED,
                         toKeyPair(sbn)).sendToTarget();
@@ -126,8 +142,12 @@ public class NotificationListener extends NotificationListenerService {
             }
             case MSG_NOTIFICATION_REMOVED: {
                 StatusBarNotification sbn = (StatusBarNotification) message.obj;
-                mUiHandler.obtainMessage(MSG_NOTIFICATION_REMOVED,
-                        toKeyPair(sbn)).sendToTarget();
+                if (ENABLE_NOTIFICATION_DOT_COALESCING.get()) {
+                    addPendingChange(sbn, false /* posted */);
+                } else {
+                    mUiHandler.obtainMessage(MSG_NOTIFICATION_REMOVED,
+                            toKeyPair(sbn)).sendToTarget();
+                }
 
                 NotificationGroup notificationGroup = mNotificationGroupMap.get(sbn.getGroupKey());
                 String key = sbn.getKey();
@@ -139,7 +159,19 @@ public class NotificationListener extends NotificationListenerService {
                 }
                 return true;
             }
+            case MSG_NOTIFICATIONS_CHANGED: {
+                if (!mPendingChanges.isEmpty()) {
+                    mDispatchedChangeCount += mPendingChanges.size();
+                    mUiHandler.obtainMessage(MSG_NOTIFICATIONS_CHANGED,
+                            new ArrayList<>(mPendingChanges.values())).sendToTarget();
+                    mPendingChanges.clear();
+                }
+                return true;
+            }
             case MSG_NOTIFICATION_FULL_REFRESH:
+                // The active notifications already include the pending changes
+                mPendingChanges.clear();
+                mWorkerHandler.removeMessages(MSG_NOTIFICATIONS_CHANGED);
                 List<StatusBarNotification> activeNotifications = null;
                 if (sIsConnected) {
                     activeNotifications = Arrays.stream(getActiveNotificationsSafely(null))
@@ -180,6 +212,11 @@ public class NotificationListener extends NotificationListenerService {
                     }
                 }
                 break;
+            case MSG_NOTIFICATIONS_CHANGED:
+                for (NotificationsChangedListener listener : sNotificationsChangedListeners) {
+                    listener.onNotificationsChanged((List<NotificationChange>) message.obj);
+                }
+                break;
             case MSG_NOTIFICATION_FULL_REFRESH:
                 if (sNotificationsChangedListeners.size() > 0) {
                     for (NotificationsChangedListener listener : sNotificationsChangedListeners) {
@@ -192,6 +229,22 @@ public class NotificationListener extends NotificationListenerService {
         return true;
     }
 
+    /**
+     * Adds a change to send to the listeners at the end of the current window. Only the last
+     * change of a notification is kept, so a notification updated many times in a window only
+     * updates the dots once.
+     */
+    @WorkerThread
+    private void addPendingChange(StatusBarNotification sbn, boolean posted) {
+        mReceivedChangeCount++;
+        mPendingChanges.put(sbn.getKey(), new NotificationChange(
+                PackageUserKey.fromNotification(sbn), NotificationKeyData.fromNotification(sbn),
+                posted));
+        if (!mWorkerHandler.hasMessages(MSG_NOTIFICATIONS_CHANGED)) {
+            mWorkerHandler.sendEmptyMessageDelayed(MSG_NOTIFICATIONS_CHANGED, CHANGES_WINDOW_MS);
+        }
+    }
+
     private @NonNull StatusBarNotification[] getActiveNotificationsSafely(@Nullable String[] keys) {
         StatusBarNotification[] result = null;
         try {
@@ -320,11 +373,43 @@ public class NotificationListener extends NotificationListenerService {
                 NotificationKeyData.fromNotification(sbn));
     }
 
+    /**
+     * Prints the number of notification changes received and sent to the listeners
+     */
+    public static void dump(String prefix, PrintWriter writer) {
+        NotificationListener listener = sNotificationListenerInstance;
+        if (listener != null) {
+            writer.println(prefix + "NotificationListener: changes received="
+                    + listener.mReceivedChangeCount + " dispatched="
+                    + listener.mDispatchedChangeCount);
+        }
+    }
+
+    /**
+     * The last change of a notification in a window, see {@link #addPendingChange}
+     */
+    public record NotificationChange(PackageUserKey packageUserKey,
+            NotificationKeyData notificationKey, boolean posted) { }
+
     public interface NotificationsChangedListener {
         void onNotificationPosted(PackageUserKey postedPackageUserKey,
                 NotificationKeyData notificationKey);
         void onNotificationRemoved(PackageUserKey removedPackageUserKey,
                 NotificationKeyData notificationKey);
         void onNotificationFullRefresh(List<StatusBarNotification> activeNotifications);
+
+        /**
+         * Called with the notifications posted or removed during a window, when the changes are
+         * merged
+         */
+        default void onNotificationsChanged(List<NotificationChange> changes) {
+            for (NotificationChange change : changes) {
+                if (change.posted()) {
+                    onNotificationPosted(change.packageUserKey(), change.notificationKey());
+                } else {
+                    onNotificationRemoved(change.packageUserKey(), change.notificationKey());
+                }
+            }
+        }
     }
 }
@@ -28,6 +28,7 @@ import com.android.launcher3.model.WidgetItem;
 import com.android.launcher3.model.data.ItemInfo;
 import com.android.launcher3.notification.NotificationKeyData;
 import com.android.launcher3.notification.NotificationListener;
+import com.android.launcher3.notification.NotificationListener.NotificationChange;
 import com.android.launcher3.util.ComponentKey;
 import com.android.launcher3.util.PackageUserKey;
 import com.android.launcher3.util.ShortcutUtil;
@@ -39,6 +40,7 @@ import com.android.launcher3.widget.picker.WidgetRecommendationCategory;
 import java.io.PrintWriter;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -80,12 +82,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     @Override
     public void onNotificationPosted(PackageUserKey postedPackageUserKey,
             NotificationKeyData notificationKey) {
-        DotInfo dotInfo = mPackageUserToDotInfos.get(postedPackageUserKey);
-        if (dotInfo == null) {
-            dotInfo = new DotInfo();
-            mPackageUserToDotInfos.put(postedPackageUserKey, dotInfo);
-        }
-        if (dotInfo.addOrUpdateNotificationKey(notificationKey)) {
+        if (addNotification(postedPackageUserKey, notificationKey)) {
             updateNotificationDots(postedPackageUserKey::equals);
         }
     }
@@ -93,13 +90,53 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     @Override
     public void onNotificationRemoved(PackageUserKey removedPackageUserKey,
             NotificationKeyData notificationKey) {
-        DotInfo oldDotInfo = mPackageUserToDotInfos.get(removedPackageUserKey);
+        if (removeNotification(removedPackageUserKey, notificationKey)) {
+            updateNotificationDots(removedPackageUserKey::equals);
+        }
+    }
+
+    @Override
+    public void onNotificationsChanged(List<NotificationChange> changes) {
+        HashSet<PackageUserKey> updatedDots = new HashSet<>();
+        for (NotificationChange change : changes) {
+            boolean updated = change.posted()
+                    ? addNotification(change.packageUserKey(), change.notificationKey())
+                    : removeNotification(change.packageUserKey(), change.notificationKey());
+            if (updated) {
+                updatedDots.add(change.packageUserKey());
+            }
+        }
+        if (!updatedDots.isEmpty()) {
+            updateNotificationDots(updatedDots::contains);
+        }
+    }
+
+    /**
+     * Adds or updates a notification, returning whether the dot of the package changed
+     */
+    private boolean addNotification(PackageUserKey packageUserKey,
+            NotificationKeyData notificationKey) {
+        DotInfo dotInfo = mPackageUserToDotInfos.get(packageUserKey);
+        if (dotInfo == null) {
+            dotInfo = new DotInfo();
+            mPackageUserToDotInfos.put(packageUserKey, dotInfo);
+        }
+        return dotInfo.addOrUpdateNotificationKey(notificationKey);
+    }
+
+    /**
+     * Removes a notification, returning whether the dot of the package changed
+     */
+    private boolean removeNotification(PackageUserKey packageUserKey,
+            NotificationKeyData notificationKey) {
+        DotInfo oldDotInfo = mPackageUserToDotInfos.get(packageUserKey);
         if (oldDotInfo != null && oldDotInfo.removeNotificationKey(notificationKey)) {
             if (oldDotInfo.getNotificationKeys().size() == 0) {
-                mPackageUserToDotInfos.remove(removedPackageUserKey);
+                mPackageUserToDotInfos.remove(packageUserKey);
             }
-            updateNotificationDots(removedPackageUserKey::equals);
+            return true;
         }
+        return false;
     }
 
     @Override
@@ -270,6 +307,7 @@ public class PopupDataProvider implements NotificationListener.NotificationsChan
     public void dump(String prefix, PrintWriter writer) {
         writer.println(prefix + "PopupDataProvider:");
         writer.println(prefix + "\tmPackageUserToDotInfos:" + mPackageUserToDotInfos);
+        NotificationListener.dump(prefix + "\t", writer);
     }
 
     public interface PopupDataChangeListener {
@@ -68,8 +68,11 @@ class HotseatSpecsProvider(groupOfSpecs: List<ResponsiveSpecGroup<HotseatSpec>>)
     companion object {
         @JvmStatic
         fun create(resourceHelper: ResourceHelper): HotseatSpecsProvider {
-            val parser = ResponsiveSpecsParser(resourceHelper)
-            val specs = parser.parseXML(ResponsiveSpecType.Hotseat, ::HotseatSpec)
+            val specs =
+                resourceHelper.getOrParse(ResponsiveSpecType.Hotseat.xmlTag) {
+                    val parser = ResponsiveSpecsParser(resourceHelper)
+                    parser.parseXML(ResponsiveSpecType.Hotseat, ::HotseatSpec)
+                }
             return HotseatSpecsProvider(specs)
         }
     }
@@ -68,8 +68,11 @@ class ResponsiveCellSpecsProvider(groupOfSpecs: List<ResponsiveSpecGroup<CellSpe
         private const val LOG_TAG = "ResponsiveCellSpecsProvider"
         @JvmStatic
         fun create(resourceHelper: ResourceHelper): ResponsiveCellSpecsProvider {
-            val parser = ResponsiveSpecsParser(resourceHelper)
-            val specs = parser.parseXML(ResponsiveSpecType.Cell, ::CellSpec)
+            val specs =
+                resourceHelper.getOrParse(ResponsiveSpecType.Cell.xmlTag) {
+                    val parser = ResponsiveSpecsParser(resourceHelper)
+                    parser.parseXML(ResponsiveSpecType.Cell, ::CellSpec)
+                }
             return ResponsiveCellSpecsProvider(specs)
         }
     }
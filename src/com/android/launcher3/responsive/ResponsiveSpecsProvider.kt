@@ -130,8 +130,11 @@ class ResponsiveSpecsProvider(
             resourceHelper: ResourceHelper,
             type: ResponsiveSpecType
         ): ResponsiveSpecsProvider {
-            val parser = ResponsiveSpecsParser(resourceHelper)
-            val specs = parser.parseXML(type, ::ResponsiveSpec)
+            val specs =
+                resourceHelper.getOrParse(type.xmlTag) {
+                    val parser = ResponsiveSpecsParser(resourceHelper)
+                    parser.parseXML(type, ::ResponsiveSpec)
+                }
             return ResponsiveSpecsProvider(type, specs)
         }
     }
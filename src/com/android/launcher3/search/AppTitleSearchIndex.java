@@ -0,0 +1,265 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.search;
+
+import static com.android.launcher3.search.StringMatcherUtility.requestSimpleFuzzySearch;
+
+import androidx.annotation.NonNull;
+
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.search.StringMatcherUtility.StringMatcher;
+import com.android.launcher3.util.IntArray;
+
+import java.text.CollationKey;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Incrementally maintained index over app titles which answers the same queries as
+ * {@link StringMatcherUtility#matches} without collating every title for every query.
+ *
+ * For every title the match offsets and the collation key of the suffix starting at each offset
+ * are computed once. All suffix keys are kept sorted, so the titles a query can be a prefix of
+ * form a contiguous range which is found with two binary searches. Only the candidates in that
+ * range are then verified with the regular matcher. For locales with contractions, where that
+ * range can miss matches, every title is verified instead.
+ *
+ * This class is not thread safe and is expected to be used on the model thread.
+ */
+public class AppTitleSearchIndex {
+
+    private static final Comparator<Entry> ORDER_COMPARATOR =
+            (a, b) -> Long.compare(a.order, b.order);
+
+    private final IdentityHashMap<AppInfo, Entry> mEntries = new IdentityHashMap<>();
+    private final ArrayList<Term> mTerms = new ArrayList<>();
+
+    private StringMatcher mMatcher = StringMatcher.getInstance();
+    private long mNextOrder = 0;
+
+    /**
+     * Adds the app to the index or re-indexes it if its title has changed. Apps keep their
+     * original position in the results order across updates.
+     */
+    public void update(@NonNull AppInfo info) {
+        String title = info.title == null ? "" : info.title.toString();
+        Entry entry = mEntries.get(info);
+        if (entry != null) {
+            if (entry.title.equals(title)) {
+                return;
+            }
+            removeTerms(entry);
+        } else {
+            entry = new Entry(info, mNextOrder++);
+            mEntries.put(info, entry);
+        }
+        entry.setTitle(title, mMatcher);
+        addTerms(entry);
+    }
+
+    /**
+     * Removes the app from the index
+     */
+    public void remove(@NonNull AppInfo info) {
+        Entry entry = mEntries.remove(info);
+        if (entry != null) {
+            removeTerms(entry);
+        }
+    }
+
+    /**
+     * Removes all apps from the index. The collator is recreated as the locale might have changed.
+     */
+    public void clear() {
+        mEntries.clear();
+        mTerms.clear();
+        mNextOrder = 0;
+        mMatcher = StringMatcher.getInstance();
+    }
+
+    /**
+     * Returns the number of indexed apps
+     */
+    public int size() {
+        return mEntries.size();
+    }
+
+    /**
+     * Returns up to {@param maxResults} apps matching the query, in the order they were first
+     * added to the index.
+     */
+    @NonNull
+    public List<AppInfo> query(@NonNull String query, int maxResults) {
+        ArrayList<AppInfo> result = new ArrayList<>();
+        int queryLength = query.length();
+        if (queryLength <= 0 || maxResults <= 0) {
+            return result;
+        }
+
+        String queryTextLower = query.toLowerCase();
+        ArrayList<Entry> candidates = new ArrayList<>();
+        if (requestSimpleFuzzySearch(queryTextLower)) {
+            for (Entry entry : mEntries.values()) {
+                if (entry.title.length() >= queryLength
+                        && entry.titleLower.contains(queryTextLower)) {
+                    candidates.add(entry);
+                }
+            }
+            candidates.sort(ORDER_COMPARATOR);
+            for (int i = 0; i < candidates.size() && result.size() < maxResults; i++) {
+                result.add(candidates.get(i).info);
+            }
+            return result;
+        }
+
+        if (mMatcher.hasContractions()) {
+            // The matcher compares the query with a prefix of the title of the same length, which
+            // can collate before the whole suffix: in Czech "c" matches "Chrome", but "ch" sorts
+            // after "h" and out of the range of "c".
+            for (Entry entry : mEntries.values()) {
+                if (entry.title.length() >= queryLength) {
+                    candidates.add(entry);
+                }
+            }
+        } else {
+            int start = lowerBound(mMatcher.getCollationKey(queryTextLower));
+            CollationKey upperBound = mMatcher.getPrefixUpperBound(queryTextLower);
+            int termCount = mTerms.size();
+            for (int i = start; i < termCount; i++) {
+                Term term = mTerms.get(i);
+                if (term.key.compareTo(upperBound) > 0) {
+                    break;
+                }
+                if (term.entry.title.length() - term.offset >= queryLength) {
+                    candidates.add(term.entry);
+                }
+            }
+        }
+        candidates.sort(ORDER_COMPARATOR);
+
+        Entry lastEntry = null;
+        for (int i = 0; i < candidates.size() && result.size() < maxResults; i++) {
+            Entry entry = candidates.get(i);
+            if (entry == lastEntry) {
+                continue;
+            }
+            lastEntry = entry;
+            if (entry.matches(queryTextLower, queryLength, mMatcher)) {
+                result.add(entry.info);
+            }
+        }
+        return result;
+    }
+
+    private void addTerms(Entry entry) {
+        IntArray offsets = entry.offsets;
+        Term[] terms = new Term[offsets.size()];
+        for (int i = 0; i < terms.length; i++) {
+            int offset = offsets.get(i);
+            Term term = new Term(entry, offset,
+                    mMatcher.getCollationKey(entry.title.substring(offset)));
+            terms[i] = term;
+            mTerms.add(lowerBound(term.key), term);
+        }
+        entry.terms = terms;
+    }
+
+    private void removeTerms(Entry entry) {
+        for (Term term : entry.terms) {
+            int index = lowerBound(term.key);
+            int termCount = mTerms.size();
+            while (index < termCount && mTerms.get(index) != term) {
+                index++;
+            }
+            if (index < termCount) {
+                mTerms.remove(index);
+            }
+        }
+        entry.terms = new Term[0];
+    }
+
+    /**
+     * Returns the index of the first term whose key is not less than {@param key}
+     */
+    private int lowerBound(CollationKey key) {
+        int low = 0;
+        int high = mTerms.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (mTerms.get(mid).key.compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static class Entry {
+
+        final AppInfo info;
+        final long order;
+
+        String title = "";
+        String titleLower = "";
+        IntArray offsets = new IntArray(0);
+        Term[] terms = new Term[0];
+
+        Entry(AppInfo info, long order) {
+            this.info = info;
+            this.order = order;
+        }
+
+        void setTitle(String title, StringMatcher matcher) {
+            this.title = title;
+            this.titleLower = title.toLowerCase();
+            this.offsets = StringMatcherUtility.getMatchOffsets(title, matcher);
+        }
+
+        /**
+         * Verifies the match against the original title, same as
+         * {@link StringMatcherUtility#matches}
+         */
+        boolean matches(String queryTextLower, int queryLength, StringMatcher matcher) {
+            int end = title.length() - queryLength;
+            for (int i = 0; i < offsets.size(); i++) {
+                int offset = offsets.get(i);
+                if (offset > end) {
+                    break;
+                }
+                if (matcher.matches(queryTextLower, title.substring(offset, offset + queryLength))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class Term {
+
+        final Entry entry;
+        final int offset;
+        final CollationKey key;
+
+        Term(Entry entry, int offset, CollationKey key) {
+            this.entry = entry;
+            this.offset = offset;
+            this.key = key;
+        }
+    }
+}
@@ -16,13 +16,16 @@
 
 package com.android.launcher3.search;
 
+import android.icu.text.RuleBasedCollator;
 import android.text.TextUtils;
 
 import androidx.annotation.Nullable;
 
 import com.android.launcher3.util.IntArray;
 
+import java.text.CollationKey;
 import java.text.Collator;
+import java.util.Locale;
 import java.util.stream.IntStream;
 
 /**
@@ -67,6 +70,33 @@ public class StringMatcherUtility {
         return false;
     }
 
+    /**
+     * Returns every offset in {@code target} at which {@link #matches} would attempt a prefix
+     * comparison, ignoring the query length. This allows callers to precompute the candidate
+     * offsets once per target instead of once per query.
+     */
+    public static IntArray getMatchOffsets(String target, StringMatcher matcher) {
+        IntArray offsets = new IntArray();
+        int targetLength = target.length();
+        if (targetLength <= 0) {
+            return offsets;
+        }
+
+        int lastType;
+        int thisType = Character.UNASSIGNED;
+        int nextType = Character.getType(target.codePointAt(0));
+        for (int i = 0; i < targetLength; i++) {
+            lastType = thisType;
+            thisType = nextType;
+            nextType = i < (targetLength - 1)
+                    ? Character.getType(target.codePointAt(i + 1)) : Character.UNASSIGNED;
+            if (matcher.isBreak(thisType, lastType, nextType)) {
+                offsets.add(i);
+            }
+        }
+        return offsets;
+    }
+
     /**
      * Returns a list of breakpoints wherever the string contains a break. For example:
      * "t-mobile" would have breakpoints at [0, 1]
@@ -110,6 +140,7 @@ public class StringMatcherUtility {
         private static final char MAX_UNICODE = '\uFFFF';
 
         private final Collator mCollator;
+        private Boolean mHasContractions;
 
         StringMatcher() {
             // On android N and above, Collator uses ICU implementation which has a much better
@@ -141,6 +172,36 @@ public class StringMatcherUtility {
             }
         }
 
+        /**
+         * Returns a collation key which orders consistently with {@link #matches}.
+         */
+        CollationKey getCollationKey(String source) {
+            return mCollator.getCollationKey(source);
+        }
+
+        /**
+         * Returns a collation key which is greater than or equal to the key of every target
+         * {@param query} is a prefix of.
+         */
+        CollationKey getPrefixUpperBound(String query) {
+            return mCollator.getCollationKey(query + MAX_UNICODE);
+        }
+
+        /**
+         * Returns true if the collation of the locale treats a sequence of characters as a single
+         * letter, like "ch" in Czech which sorts after "h". The key of a target is then not bound
+         * by the keys of the queries which {@link #matches} a prefix of it.
+         */
+        boolean hasContractions() {
+            if (mHasContractions == null) {
+                android.icu.text.Collator collator =
+                        android.icu.text.Collator.getInstance(Locale.getDefault());
+                mHasContractions = collator instanceof RuleBasedCollator
+                        && !((RuleBasedCollator) collator).getTailoredSet().strings().isEmpty();
+            }
+            return mHasContractions;
+        }
+
         public static StringMatcher getInstance() {
             return new StringMatcher();
         }
@@ -222,7 +283,7 @@ public class StringMatcherUtility {
     /**
      * Matching optimization to search in Chinese.
      */
-    private static boolean requestSimpleFuzzySearch(String s) {
+    static boolean requestSimpleFuzzySearch(String s) {
         for (int i = 0; i < s.length(); ) {
             int codepoint = s.codePointAt(i);
             i += Character.charCount(codepoint);
@@ -15,6 +15,7 @@
  */
 package com.android.launcher3.util;
 
+import java.text.CollationKey;
 import java.text.Collator;
 import java.util.Comparator;
 
@@ -30,10 +31,8 @@ public class LabelComparator implements Comparator<String> {
     public int compare(String titleA, String titleB) {
         // Ensure that we de-prioritize any titles that don't start with a
         // linguistic letter or digit
-        boolean aStartsWithLetter = (titleA.length() > 0) &&
-                Character.isLetterOrDigit(titleA.codePointAt(0));
-        boolean bStartsWithLetter = (titleB.length() > 0) &&
-                Character.isLetterOrDigit(titleB.codePointAt(0));
+        boolean aStartsWithLetter = startsWithLetterOrDigit(titleA);
+        boolean bStartsWithLetter = startsWithLetterOrDigit(titleB);
         if (aStartsWithLetter && !bStartsWithLetter) {
             return -1;
         } else if (!aStartsWithLetter && bStartsWithLetter) {
@@ -43,4 +42,34 @@ public class LabelComparator implements Comparator<String> {
         // Order by the title in the current locale
         return mCollator.compare(titleA, titleB);
     }
+
+    /**
+     * Returns a key which orders {@param title} like {@link #compare}, which is faster to compare
+     * when the same title is compared many times. Keys are compared using {@link #compare(Key,
+     * Key)}.
+     */
+    public Key getKey(String title) {
+        return new Key(title, startsWithLetterOrDigit(title), mCollator.getCollationKey(title));
+    }
+
+    /**
+     * Compares two keys returned by {@link #getKey}, same as comparing their titles
+     */
+    public int compare(Key keyA, Key keyB) {
+        if (keyA.startsWithLetter && !keyB.startsWithLetter) {
+            return -1;
+        } else if (!keyA.startsWithLetter && keyB.startsWithLetter) {
+            return 1;
+        }
+        return keyA.collationKey.compareTo(keyB.collationKey);
+    }
+
+    private static boolean startsWithLetterOrDigit(String title) {
+        return title.length() > 0 && Character.isLetterOrDigit(title.codePointAt(0));
+    }
+
+    /**
+     * A precomputed sorting key of a title
+     */
+    public record Key(String title, boolean startsWithLetter, CollationKey collationKey) { }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import android.graphics.Rect;
+
+import com.android.launcher3.model.data.ItemInfo;
+
+import java.util.Arrays;
+
+/**
+ * Same as {@link GridOccupancy}, but each row is packed in a single long where bit x is set if
+ * the cell in column x is occupied.
+ *
+ * Checking if a region is vacant is a mask test per row instead of a test per cell, finding a
+ * vacant cell tests all the columns of a row at once and {@link #copyTo} is an array copy. The
+ * grid can have at most {@link #MAX_COLUMNS} columns.
+ */
+public class PackedGridOccupancy {
+
+    public static final int MAX_COLUMNS = Long.SIZE;
+
+    private final int mCountX;
+    private final int mCountY;
+    // Bits of all the columns of a row
+    private final long mRowMask;
+    private final long[] mRows;
+
+    public PackedGridOccupancy(int countX, int countY) {
+        if (countX > MAX_COLUMNS) {
+            throw new IllegalArgumentException("Too many columns: " + countX);
+        }
+        mCountX = countX;
+        mCountY = countY;
+        mRowMask = spanMask(0, countX);
+        mRows = new long[countY];
+    }
+
+    public int getCountX() {
+        return mCountX;
+    }
+
+    public int getCountY() {
+        return mCountY;
+    }
+
+    /**
+     * Returns true if the cell is inside the grid and occupied
+     */
+    public boolean isOccupied(int x, int y) {
+        return x >= 0 && y >= 0 && x < mCountX && y < mCountY && (mRows[y] & (1L << x)) != 0;
+    }
+
+    /**
+     * Find the first vacant cell, if there is one.
+     *
+     * @param vacantOut Holds the x and y coordinate of the vacant cell
+     * @param spanX Horizontal cell span.
+     * @param spanY Vertical cell span.
+     *
+     * @return true if a vacant cell was found
+     */
+    public boolean findVacantCell(int[] vacantOut, int spanX, int spanY) {
+        for (int y = 0; (y + spanY) <= mCountY; y++) {
+            long free = mRowMask;
+            for (int j = y; j < y + spanY; j++) {
+                free &= ~mRows[j];
+            }
+            // Keep the columns followed by at least spanX - 1 free columns. Columns past the end
+            // of the row are never free, so spans which do not fit are dropped as well.
+            long origins = free;
+            for (int i = 1; i < spanX && origins != 0; i++) {
+                origins &= free >>> i;
+            }
+            if (origins != 0) {
+                vacantOut[0] = Long.numberOfTrailingZeros(origins);
+                vacantOut[1] = y;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the occupancy to {@param dest}, which must have the same size
+     */
+    public void copyTo(PackedGridOccupancy dest) {
+        System.arraycopy(mRows, 0, dest.mRows, 0, mCountY);
+    }
+
+    public boolean isRegionVacant(int x, int y, int spanX, int spanY) {
+        int x2 = x + spanX - 1;
+        int y2 = y + spanY - 1;
+        if (x < 0 || y < 0 || x2 >= mCountX || y2 >= mCountY) {
+            return false;
+        }
+        long mask = spanMask(x, spanX);
+        for (int j = y; j <= y2; j++) {
+            if ((mRows[j] & mask) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void markCells(int cellX, int cellY, int spanX, int spanY, boolean value) {
+        if (cellX < 0 || cellY < 0 || cellX >= mCountX) return;
+        long mask = spanMask(cellX, Math.min(spanX, mCountX - cellX));
+        for (int y = cellY; y < cellY + spanY && y < mCountY; y++) {
+            if (value) {
+                mRows[y] |= mask;
+            } else {
+                mRows[y] &= ~mask;
+            }
+        }
+    }
+
+    public void markCells(Rect r, boolean value) {
+        markCells(r.left, r.top, r.width(), r.height(), value);
+    }
+
+    public void markCells(CellAndSpan cell, boolean value) {
+        markCells(cell.cellX, cell.cellY, cell.spanX, cell.spanY, value);
+    }
+
+    public void markCells(ItemInfo item, boolean value) {
+        markCells(item.cellX, item.cellY, item.spanX, item.spanY, value);
+    }
+
+    public void clear() {
+        Arrays.fill(mRows, 0);
+    }
+
+    /**
+     * Returns the bits of {@param spanX} columns starting at column {@param x}
+     */
+    private static long spanMask(int x, int spanX) {
+        if (spanX <= 0) {
+            return 0;
+        }
+        return (spanX >= Long.SIZE ? -1L : (1L << spanX) - 1) << x;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("Grid: \n");
+        for (int y = 0; y < mCountY; y++) {
+            for (int x = 0; x < mCountX; x++) {
+                s.append(isOccupied(x, y) ? 1 : 0).append(" ");
+            }
+            s.append("\n");
+        }
+        return s.toString();
+    }
+}
@@ -34,4 +34,12 @@ open class ResourceHelper(private val context: Context, private val specsFileId:
     open fun obtainStyledAttributes(attrs: AttributeSet, styleId: IntArray): TypedArray {
         return context.obtainStyledAttributes(attrs, styleId)
     }
+
+    /**
+     * Returns the value [parse] reads from the specs file, reusing the one parsed for the same
+     * resources configuration. [tag] identifies the structure parsed from the file.
+     */
+    open fun <T : Any> getOrParse(tag: String, parse: () -> T): T {
+        return ResourceParseCache.INSTANCE.get(context, specsFileId, tag) { parse() }
+    }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.android.launcher3.config.FeatureFlags.ENABLE_RESOURCE_PARSE_CACHE;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.XmlRes;
+
+import java.io.PrintWriter;
+import java.util.function.Supplier;
+
+/**
+ * Process wide cache of the structures parsed from XML resources, like the grid options and the
+ * responsive specs, so that building a device profile for a grid preview or a display change does
+ * not parse the same files again.
+ *
+ * Parsed values can depend on the resources configuration, for example when dimensions are
+ * converted to pixels or a resource is picked by a qualifier, so they are kept per package and
+ * per configuration values the resources are selected with. Contexts with different
+ * configurations, like the launcher and a grid preview, get their own entries. The assets
+ * sequence number is part of the key, as it changes when a resource overlay changes. Cached
+ * values are shared and must not be modified by the callers.
+ */
+public class ResourceParseCache {
+
+    public static final ResourceParseCache INSTANCE = new ResourceParseCache();
+
+    private static final int MAX_SIZE = 32;
+
+    private final LruCache<Key, Object> mCache = new LruCache<>(MAX_SIZE);
+    private int mHitCount;
+    private int mParseCount;
+
+    /**
+     * Returns the value parsed by {@param parser} from {@param resId}, reusing the value parsed
+     * for the same resources configuration. {@param tag} distinguishes the different structures
+     * parsed from the same file.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(@NonNull Context context, @XmlRes int resId, @NonNull String tag,
+            @NonNull Supplier<T> parser) {
+        if (!ENABLE_RESOURCE_PARSE_CACHE.get()) {
+            return parser.get();
+        }
+        Configuration config = context.getResources().getConfiguration();
+        Key key = new Key(context.getPackageName(), resId, tag, config.assetsSeq,
+                config.densityDpi, config.fontScale, config.smallestScreenWidthDp,
+                config.screenWidthDp, config.screenHeightDp, config.orientation, config.uiMode);
+        synchronized (this) {
+            Object value = mCache.get(key);
+            if (value != null) {
+                mHitCount++;
+                return (T) value;
+            }
+        }
+
+        // Parse outside of the lock, two threads parsing the same file get equal values
+        T value = parser.get();
+        synchronized (this) {
+            mParseCount++;
+            mCache.put(key, value);
+        }
+        return value;
+    }
+
+    public synchronized void dump(String prefix, PrintWriter writer) {
+        writer.println(prefix + "ResourceParseCache: size=" + mCache.size()
+                + " hits=" + mHitCount + " parses=" + mParseCount);
+    }
+
+    private record Key(String packageName, int resId, String tag, int assetsSeq,
+            int densityDpi, float fontScale, int smallestScreenWidthDp, int screenWidthDp,
+            int screenHeightDp, int orientation, int uiMode) { }
+}
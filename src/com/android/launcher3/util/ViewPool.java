@@ -40,6 +40,8 @@ public class ViewPool<T extends View & Reusable> {
     private final int mLayoutId;
 
     private int mCurrentSize = 0;
+    // Number of views being inflated on the background thread
+    private int mPendingSize = 0;
 
     public ViewPool(Context context, @Nullable ViewGroup parent,
             int layoutId, int maxSize, int initialSize) {
@@ -53,10 +55,25 @@ public class ViewPool<T extends View & Reusable> {
         }
     }
 
+    /**
+     * Inflates views on a background thread until the pool holds at least {@param size} views,
+     * counting the views already being inflated. This can be used to warm up the pool before the
+     * views are needed.
+     */
+    @UiThread
+    public void prefill(int size) {
+        Preconditions.assertUIThread();
+        int missing = Math.min(size, mPool.length) - mCurrentSize - mPendingSize;
+        if (missing > 0) {
+            initPool(missing);
+        }
+    }
+
     @UiThread
     private void initPool(int initialSize) {
         Preconditions.assertUIThread();
         Handler handler = new Handler();
+        mPendingSize += initialSize;
 
         // LayoutInflater is not thread safe as it maintains a global variable 'mConstructorArgs'.
         // Create a different copy to use on the background thread.
@@ -67,7 +84,10 @@ public class ViewPool<T extends View & Reusable> {
         new Thread(() -> {
             for (int i = 0; i < initialSize; i++) {
                 T view = inflateNewView(inflater);
-                handler.post(() -> addToPool(view));
+                handler.post(() -> {
+                    mPendingSize--;
+                    addToPool(view);
+                });
             }
         }, "ViewPool-init").start();
     }
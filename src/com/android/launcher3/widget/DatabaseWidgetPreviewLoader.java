@@ -18,6 +18,8 @@ package com.android.launcher3.widget;
 import static com.android.launcher3.util.Executors.MAIN_EXECUTOR;
 
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
@@ -27,6 +29,7 @@ import android.graphics.PorterDuff;
 import android.graphics.PorterDuffXfermode;
 import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.os.Handler;
 import android.util.Log;
 import android.util.Size;
@@ -38,17 +41,20 @@ import com.android.launcher3.DeviceProfile;
 import com.android.launcher3.LauncherAppState;
 import com.android.launcher3.R;
 import com.android.launcher3.Utilities;
+import com.android.launcher3.config.FeatureFlags;
 import com.android.launcher3.icons.BitmapRenderer;
 import com.android.launcher3.icons.LauncherIcons;
 import com.android.launcher3.icons.ShadowGenerator;
 import com.android.launcher3.model.WidgetItem;
 import com.android.launcher3.pm.ShortcutConfigActivityInfo;
+import com.android.launcher3.pm.UserCache;
 import com.android.launcher3.util.CancellableTask;
 import com.android.launcher3.util.Executors;
 import com.android.launcher3.util.LooperExecutor;
 import com.android.launcher3.views.ActivityContext;
 import com.android.launcher3.widget.util.WidgetSizes;
 
+import java.io.File;
 import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 
@@ -99,12 +105,51 @@ public class DatabaseWidgetPreviewLoader {
      */
     private Bitmap generatePreview(WidgetItem item, int previewWidth, int previewHeight) {
         if (item.widgetInfo != null) {
-            return generateWidgetPreview(item.widgetInfo, previewWidth, null);
+            return generateCachedWidgetPreview(item.widgetInfo, previewWidth);
         } else {
             return generateShortcutPreview(item.activityInfo, previewWidth, previewHeight);
         }
     }
 
+    /**
+     * Returns the widget preview from {@link WidgetPreviewCache}, generating and caching it if
+     * needed.
+     */
+    private Bitmap generateCachedWidgetPreview(LauncherAppWidgetProviderInfo info,
+            int maxPreviewWidth) {
+        if (!FeatureFlags.ENABLE_WIDGET_PREVIEW_CACHE.get() || info.providerInfo == null) {
+            return generateWidgetPreview(info, maxPreviewWidth, null);
+        }
+        WidgetPreviewCache cache = WidgetPreviewCache.INSTANCE.get(mContext);
+        String packageName = info.provider.getPackageName();
+        long userSerial = UserCache.INSTANCE.get(mContext)
+                .getSerialNumberForUser(info.getProfile());
+        String key = getPreviewCacheKey(info, maxPreviewWidth);
+        Bitmap preview = cache.get(packageName, userSerial, key);
+        if (preview == null) {
+            preview = generateWidgetPreview(info, maxPreviewWidth, null);
+            cache.putAsync(packageName, userSerial, key, preview);
+        }
+        return preview;
+    }
+
+    /**
+     * Returns a key covering everything {@link #generateWidgetPreview} depends on
+     */
+    private String getPreviewCacheKey(LauncherAppWidgetProviderInfo info, int maxPreviewWidth) {
+        ApplicationInfo appInfo = info.providerInfo.applicationInfo;
+        DeviceProfile dp = ActivityContext.lookupContext(mContext).getDeviceProfile();
+        Size fallbackSize = WidgetSizes.getWidgetSizePx(dp, info.spanX, info.spanY);
+        Configuration config = mContext.getResources().getConfiguration();
+        return info.provider.flattenToShortString()
+                + "|" + appInfo.sourceDir + "|" + new File(appInfo.sourceDir).lastModified()
+                + "|" + Integer.toHexString(info.previewImage)
+                + "|" + maxPreviewWidth + "|" + fallbackSize + "|" + dp.iconSizePx
+                + "|" + config.densityDpi + "|" + config.uiMode
+                + "|" + config.getLocales().toLanguageTags()
+                + "|" + Build.FINGERPRINT;
+    }
+
     /**
      * Generates the widget preview from either the {@link WidgetManagerHelper} or cache
      * and add badge at the bottom right corner.
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget;
+
+import static com.android.launcher3.util.Executors.ORDERED_BG_EXECUTOR;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.Config;
+import android.graphics.BitmapFactory;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.launcher3.util.MainThreadInitializedObject;
+import com.android.launcher3.util.SafeCloseable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Disk backed cache of rendered widget previews, evicted in least recently used order once the
+ * total size of the cached files exceeds a byte budget.
+ *
+ * Every file is named after the package and user serial of the provider followed by a hash of
+ * the caller provided key, so that all the previews of a package can be dropped without knowing
+ * their keys. The key is expected to contain everything the preview depends on (provider,
+ * package version, target size, configuration), so stale entries are never returned and are
+ * eventually evicted.
+ */
+public class WidgetPreviewCache implements SafeCloseable {
+
+    public static final MainThreadInitializedObject<WidgetPreviewCache> INSTANCE =
+            new MainThreadInitializedObject<>(WidgetPreviewCache::new);
+
+    private static final String TAG = "WidgetPreviewCache";
+    private static final String DIR_NAME = "widget_previews";
+    private static final String FILE_EXTENSION = ".png";
+    // Package names can not contain '-'
+    private static final char SEPARATOR = '-';
+
+    private static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    private final File mDir;
+    private final long mMaxBytes;
+
+    // File name to file size, in access order
+    private final LinkedHashMap<String, Long> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long mTotalBytes = 0;
+    private boolean mIndexLoaded = false;
+
+    private WidgetPreviewCache(Context context) {
+        this(new File(context.getCacheDir(), DIR_NAME), DEFAULT_MAX_BYTES);
+    }
+
+    @VisibleForTesting
+    WidgetPreviewCache(@NonNull File dir, long maxBytes) {
+        mDir = dir;
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached preview or null if there is none
+     */
+    @WorkerThread
+    @Nullable
+    public synchronized Bitmap get(@NonNull String packageName, long userSerial,
+            @NonNull String key) {
+        String fileName = getFileName(packageName, userSerial, key);
+        if (getIndex().get(fileName) == null) {
+            return null;
+        }
+        File file = new File(mDir, fileName);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Config.HARDWARE;
+        Bitmap bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        if (bitmap == null) {
+            Log.w(TAG, "Unable to decode " + file);
+            removeEntry(fileName);
+            return null;
+        }
+        // Keep the access order across restarts
+        file.setLastModified(System.currentTimeMillis());
+        return bitmap;
+    }
+
+    /**
+     * Adds the preview to the cache on a background thread, so that encoding it does not delay
+     * the preview it was generated for
+     */
+    public void putAsync(@NonNull String packageName, long userSerial, @NonNull String key,
+            @NonNull Bitmap preview) {
+        ORDERED_BG_EXECUTOR.execute(() -> put(packageName, userSerial, key, preview));
+    }
+
+    /**
+     * Adds the preview to the cache, evicting the least recently used previews if needed. The
+     * preview is encoded without holding the cache lock, so that it does not block {@link #get}.
+     */
+    @WorkerThread
+    public void put(@NonNull String packageName, long userSerial, @NonNull String key,
+            @NonNull Bitmap preview) {
+        synchronized (this) {
+            // Load the index first, as it deletes the temporary files it finds
+            getIndex();
+        }
+        if (!mDir.exists() && !mDir.mkdirs()) {
+            Log.e(TAG, "Unable to create " + mDir);
+            return;
+        }
+        String fileName = getFileName(packageName, userSerial, key);
+        File file = new File(mDir, fileName);
+        File tmpFile = new File(mDir, fileName + "." + UUID.randomUUID() + ".tmp");
+        Bitmap bitmap = preview.getConfig() == Config.HARDWARE
+                ? preview.copy(Config.ARGB_8888, false) : preview;
+        try (FileOutputStream out = new FileOutputStream(tmpFile)) {
+            if (bitmap == null || !bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                throw new IOException("Unable to compress preview");
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to write " + file, e);
+            tmpFile.delete();
+            return;
+        }
+
+        synchronized (this) {
+            Map<String, Long> index = getIndex();
+            if (!tmpFile.renameTo(file)) {
+                Log.e(TAG, "Unable to replace " + file);
+                tmpFile.delete();
+                return;
+            }
+            Long oldSize = index.put(fileName, file.length());
+            mTotalBytes += file.length() - (oldSize == null ? 0 : oldSize);
+            trimToSize(mMaxBytes);
+        }
+    }
+
+    /**
+     * Removes all the previews of the provided packages for the user
+     */
+    public synchronized void removePackages(@NonNull Set<String> packageNames, long userSerial) {
+        Iterator<Map.Entry<String, Long>> it = getIndex().entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            String fileName = entry.getKey();
+            int packageEnd = fileName.indexOf(SEPARATOR);
+            if (packageEnd > 0
+                    && packageNames.contains(fileName.substring(0, packageEnd))
+                    && fileName.startsWith(Long.toString(userSerial) + SEPARATOR,
+                            packageEnd + 1)) {
+                it.remove();
+                mTotalBytes -= entry.getValue();
+                new File(mDir, fileName).delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the total size of the cached previews in bytes
+     */
+    public synchronized long getSizeBytes() {
+        getIndex();
+        return mTotalBytes;
+    }
+
+    @Override
+    public void close() { }
+
+    private void trimToSize(long maxBytes) {
+        Iterator<Map.Entry<String, Long>> it = mEntries.entrySet().iterator();
+        while (mTotalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            it.remove();
+            mTotalBytes -= entry.getValue();
+            new File(mDir, entry.getKey()).delete();
+        }
+    }
+
+    private void removeEntry(String fileName) {
+        Long size = mEntries.remove(fileName);
+        if (size != null) {
+            mTotalBytes -= size;
+        }
+        new File(mDir, fileName).delete();
+    }
+
+    /**
+     * Returns the index of the cached files, building it from the cache directory on first use
+     */
+    private Map<String, Long> getIndex() {
+        if (!mIndexLoaded) {
+            mIndexLoaded = true;
+            File[] files = mDir.listFiles();
+            if (files != null) {
+                Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+                for (File file : files) {
+                    if (file.getName().endsWith(FILE_EXTENSION)) {
+                        mEntries.put(file.getName(), file.length());
+                        mTotalBytes += file.length();
+                    } else {
+                        // Leftover from an interrupted write
+                        file.delete();
+                    }
+                }
+            }
+            trimToSize(mMaxBytes);
+        }
+        return mEntries;
+    }
+
+    private static String getFileName(String packageName, long userSerial, String key) {
+        return packageName + SEPARATOR + userSerial + SEPARATOR
+                + UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)) + FILE_EXTENSION;
+    }
+}
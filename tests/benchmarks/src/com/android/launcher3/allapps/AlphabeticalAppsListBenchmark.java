@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.allapps;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.benchmark.BenchmarkRule;
+import com.android.launcher3.benchmark.SyntheticApps;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.ActivityContextWrapper;
+import com.android.launcher3.util.LabelComparator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks for sorting the apps in {@link AlphabeticalAppsList}
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class AlphabeticalAppsListBenchmark {
+
+    private static final int APP_COUNT = 300;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Context mContext = new ActivityContextWrapper(getApplicationContext());
+
+    @Test
+    public void sortWithComparator() throws Exception {
+        List<AppInfo> apps = SyntheticApps.generateApps(APP_COUNT);
+        AppInfoComparator comparator = new AppInfoComparator(mContext);
+        mBenchmarkRule.measureRepeated("sortWithComparator", bh -> {
+            List<AppInfo> sorted = new ArrayList<>(apps);
+            sorted.sort(comparator);
+            bh.consume(sorted);
+        });
+    }
+
+    @Test
+    public void sortWithCollationKeys() throws Exception {
+        List<AppInfo> apps = SyntheticApps.generateApps(APP_COUNT);
+        LabelComparator comparator = new LabelComparator();
+        List<LabelComparator.Key> keys = new ArrayList<>();
+        for (AppInfo app : apps) {
+            keys.add(comparator.getKey(app.title.toString()));
+        }
+        mBenchmarkRule.measureRepeated("sortWithCollationKeys", bh -> {
+            List<LabelComparator.Key> sorted = new ArrayList<>(keys);
+            sorted.sort(comparator::compare);
+            bh.consume(sorted);
+        });
+    }
+
+    @Test
+    public void onAppsUpdated() throws Exception {
+        AllAppsStore<?> store = mock(AllAppsStore.class);
+        when(store.getApps()).thenReturn(
+                SyntheticApps.generateApps(APP_COUNT).toArray(AppInfo[]::new));
+        AlphabeticalAppsList<?> appsList = new AlphabeticalAppsList<>(mContext, store, null, null);
+        appsList.setNumAppsPerRowAllApps(5);
+        mBenchmarkRule.measureRepeated("onAppsUpdated", bh -> {
+            appsList.onAppsUpdated();
+            bh.consume(appsList.getAdapterItems().size());
+        });
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.benchmark;
+
+import static org.junit.Assert.assertTrue;
+
+import androidx.annotation.NonNull;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal JMH style harness for benchmarking pure java launcher code on the host JVM.
+ *
+ * Each call to {@link #measureRepeated} first runs the operation for a fixed warmup time so that
+ * it gets compiled, then measures it over a number of batches. A batch runs the operation enough
+ * times to last at least {@link #MIN_BATCH_NS}, which keeps the timer overhead out of the result.
+ * The min, median and 90th percentile of the per-operation time across batches is printed as:
+ * <pre>
+ * BENCHMARK ClassName#name: median 1,234 ns/op, min 1,200 ns/op, p90 1,300 ns/op (N batches)
+ * </pre>
+ * {@link #measureFrames} instead reports the distribution of single operations, like the work
+ * done in one frame, along with the bytes allocated per operation when the JVM supports it.
+ * The results are only meant for comparing two builds on the same machine.
+ */
+public class BenchmarkRule implements TestRule {
+
+    private static final long WARMUP_NS = TimeUnit.MILLISECONDS.toNanos(
+            Long.getLong("launcher.benchmark.warmupMs", 500));
+    private static final int BATCH_COUNT = Integer.getInteger("launcher.benchmark.batches", 30);
+    private static final long MIN_BATCH_NS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private final Blackhole mBlackhole = new Blackhole();
+    private String mClassName = "";
+
+    @Override
+    public Statement apply(Statement base, Description description) {
+        mClassName = description.getTestClass() != null
+                ? description.getTestClass().getSimpleName() : description.getClassName();
+        return base;
+    }
+
+    /**
+     * Measures {@param op} and prints the result, returning the median time per operation in
+     * nanoseconds.
+     */
+    public double measureRepeated(@NonNull String name, @NonNull Op op) throws Exception {
+        // Warmup, also used to estimate how many operations fit in a batch
+        long ops = 0;
+        long warmupStart = System.nanoTime();
+        long elapsed;
+        do {
+            op.run(mBlackhole);
+            ops++;
+            elapsed = System.nanoTime() - warmupStart;
+        } while (elapsed < WARMUP_NS);
+        long opsPerBatch = Math.max(1, MIN_BATCH_NS * ops / Math.max(1, elapsed));
+
+        double[] nsPerOp = new double[BATCH_COUNT];
+        for (int batch = 0; batch < BATCH_COUNT; batch++) {
+            long start = System.nanoTime();
+            for (long i = 0; i < opsPerBatch; i++) {
+                op.run(mBlackhole);
+            }
+            nsPerOp[batch] = (double) (System.nanoTime() - start) / opsPerBatch;
+        }
+        Arrays.sort(nsPerOp);
+
+        double median = nsPerOp[BATCH_COUNT / 2];
+        System.out.println(String.format(Locale.US,
+                "BENCHMARK %s#%s: median %,.0f ns/op, min %,.0f ns/op, p90 %,.0f ns/op"
+                        + " (%d batches of %d ops)",
+                mClassName, name, median, nsPerOp[0], nsPerOp[(BATCH_COUNT * 9) / 10],
+                BATCH_COUNT, opsPerBatch));
+        // Makes sure the results were not optimized away
+        assertTrue(mBlackhole.isAlive());
+        return median;
+    }
+
+    /**
+     * Runs {@param op} {@param frames} times after the warmup and prints the percentiles of the
+     * time taken by a single run, as seen by a frame. Returns the 90th percentile in nanoseconds.
+     */
+    public long measureFrames(@NonNull String name, int frames, @NonNull Op op) throws Exception {
+        long warmupStart = System.nanoTime();
+        do {
+            op.run(mBlackhole);
+        } while (System.nanoTime() - warmupStart < WARMUP_NS);
+
+        long[] frameNs = new long[frames];
+        long allocatedStart = getAllocatedBytes();
+        for (int i = 0; i < frames; i++) {
+            long start = System.nanoTime();
+            op.run(mBlackhole);
+            frameNs[i] = System.nanoTime() - start;
+        }
+        long allocatedEnd = getAllocatedBytes();
+        Arrays.sort(frameNs);
+
+        long p90 = frameNs[(frames * 9) / 10];
+        System.out.println(String.format(Locale.US,
+                "BENCHMARK %s#%s: p50 %,d ns, p90 %,d ns, p99 %,d ns, max %,d ns, %s (%d frames)",
+                mClassName, name, frameNs[frames / 2], p90, frameNs[(frames * 99) / 100],
+                frameNs[frames - 1],
+                allocatedStart < 0 ? "allocations unknown" : String.format(Locale.US,
+                        "%,d bytes/frame", (allocatedEnd - allocatedStart) / frames),
+                frames));
+        assertTrue(mBlackhole.isAlive());
+        return p90;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, or -1 if it is not supported
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean
+                && sunBean.isThreadAllocatedMemorySupported()
+                && sunBean.isThreadAllocatedMemoryEnabled()) {
+            return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * An operation to benchmark. Results should be passed to the blackhole so that the JIT can
+     * not remove the computation.
+     */
+    public interface Op {
+        void run(Blackhole blackhole) throws Exception;
+    }
+
+    /**
+     * Sink for benchmark results, similar to the JMH Blackhole.
+     */
+    public static class Blackhole {
+
+        private volatile int mSink;
+        private volatile Object mLastObject;
+
+        public void consume(int value) {
+            mSink += value;
+        }
+
+        public void consume(boolean value) {
+            mSink += value ? 1 : 0;
+        }
+
+        public void consume(Object value) {
+            mLastObject = value;
+        }
+
+        private boolean isAlive() {
+            return mSink != 0 || mLastObject != null;
+        }
+    }
+}
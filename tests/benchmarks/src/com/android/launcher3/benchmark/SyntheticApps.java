@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.benchmark;
+
+import android.content.ComponentName;
+import android.os.Process;
+
+import com.android.launcher3.model.data.AppInfo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible app lists with realistic looking titles
+ */
+public class SyntheticApps {
+
+    private static final int SEED = 7;
+    private static final String[] SYLLABLES = {"ca", "lo", "me", "ra", "ph", "to", "ne", "ws",
+            "ma", "ps", "cl", "ock", "fi", "les", "go", "pl", "ay", "st", "or", "e"};
+    private static final String[] SUFFIXES = {"", "", " Pro", " Lite", " Go", " 2", " Studio"};
+
+    /**
+     * Returns {@param count} apps with random titles, some of them duplicated
+     */
+    public static List<AppInfo> generateApps(int count) {
+        Random random = new Random(SEED);
+        List<AppInfo> apps = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String title = generateTitle(random);
+            String packageName = "com.test.app" + i;
+            AppInfo info = new AppInfo(new ComponentName(packageName, packageName + ".Main"),
+                    title, Process.myUserHandle(), null);
+            info.sectionName = title.substring(0, 1).toUpperCase();
+            apps.add(info);
+        }
+        return apps;
+    }
+
+    private static String generateTitle(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int words = 1 + random.nextInt(2);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                sb.append(' ');
+            }
+            int syllables = 1 + random.nextInt(3);
+            for (int s = 0; s < syllables; s++) {
+                String syllable = SYLLABLES[random.nextInt(SYLLABLES.length)];
+                sb.append(s == 0 ? Character.toUpperCase(syllable.charAt(0))
+                        + syllable.substring(1) : syllable);
+            }
+        }
+        return sb.append(SUFFIXES[random.nextInt(SUFFIXES.length)]).toString();
+    }
+}
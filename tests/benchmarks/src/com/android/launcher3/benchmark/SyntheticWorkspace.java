@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.benchmark;
+
+import com.android.launcher3.celllayout.board.CellLayoutBoard;
+import com.android.launcher3.celllayout.board.IconPoint;
+import com.android.launcher3.celllayout.board.WidgetRect;
+import com.android.launcher3.celllayout.testgenerator.RandomBoardGenerator;
+import com.android.launcher3.celllayout.testgenerator.RandomMultiBoardGenerator;
+import com.android.launcher3.util.GridOccupancy;
+import com.android.launcher3.util.PackedGridOccupancy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible workspaces to benchmark against, using the same board generators as the
+ * reorder tests.
+ */
+public class SyntheticWorkspace {
+
+    // Fixed seed so that all runs measure the same boards
+    private static final int SEED = 897;
+
+    /**
+     * Returns {@param count} random boards of the given size, each filled up to
+     * {@param fillRatio} of its cells.
+     */
+    public static List<CellLayoutBoard> generateBoards(int count, int width, int height,
+            float fillRatio, boolean isMulti) {
+        Random random = new Random(SEED);
+        List<CellLayoutBoard> boards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            RandomBoardGenerator generator = isMulti
+                    ? new RandomMultiBoardGenerator(new Random(random.nextInt()))
+                    : new RandomBoardGenerator(new Random(random.nextInt()));
+            boards.add(generator.generateBoard(width, height,
+                    Math.round(width * height * fillRatio)));
+        }
+        return boards;
+    }
+
+    /**
+     * Returns the occupancy of the board
+     */
+    public static GridOccupancy toOccupancy(CellLayoutBoard board) {
+        GridOccupancy occupancy = new GridOccupancy(board.getWidth(), board.getHeight());
+        for (WidgetRect widget : board.getWidgets()) {
+            occupancy.markCells(widget.getCellX(), widget.getCellY(), widget.getSpanX(),
+                    widget.getSpanY(), true);
+        }
+        for (IconPoint icon : board.getIcons()) {
+            occupancy.markCells(icon.getCoord().x, icon.getCoord().y, 1, 1, true);
+        }
+        return occupancy;
+    }
+
+    /**
+     * Returns the occupancy of the board, packed as bits
+     */
+    public static PackedGridOccupancy toPackedOccupancy(CellLayoutBoard board) {
+        PackedGridOccupancy occupancy =
+                new PackedGridOccupancy(board.getWidth(), board.getHeight());
+        for (WidgetRect widget : board.getWidgets()) {
+            occupancy.markCells(widget.getCellX(), widget.getCellY(), widget.getSpanX(),
+                    widget.getSpanY(), true);
+        }
+        for (IconPoint icon : board.getIcons()) {
+            occupancy.markCells(icon.getCoord().x, icon.getCoord().y, 1, 1, true);
+        }
+        return occupancy;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.celllayout;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.CellLayout;
+import com.android.launcher3.benchmark.BenchmarkRule;
+import com.android.launcher3.benchmark.SyntheticWorkspace;
+import com.android.launcher3.celllayout.board.CellLayoutBoard;
+import com.android.launcher3.celllayout.board.IconPoint;
+import com.android.launcher3.celllayout.board.WidgetRect;
+import com.android.launcher3.util.ActivityContextWrapper;
+import com.android.launcher3.views.DoubleShadowBubbleTextView;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks for {@link ReorderAlgorithm} and {@link MulticellReorderAlgorithm}, dragging
+ * widgets of random size over random boards.
+ *
+ * The dragOver tests replay a drag across every cell of each board, one solve per frame, and
+ * report the time of the individual frames so that outliers against the frame budget show up.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class ReorderAlgorithmBenchmark {
+
+    private static final int BOARD_COUNT = 20;
+    private static final int SEED = 1234;
+    private static final int FRAME_COUNT = 2000;
+
+    @Rule
+    public UnitTestCellLayoutBuilderRule mCellLayoutBuilder = new UnitTestCellLayoutBuilderRule();
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    private final Context mContext = new ActivityContextWrapper(getApplicationContext());
+
+    @Test
+    public void calculateReorder_singlePage() throws Exception {
+        benchmarkReorder("singlePage", 6, 5, false);
+    }
+
+    @Test
+    public void calculateReorder_multiPage() throws Exception {
+        benchmarkReorder("multiPage", 8, 5, true);
+    }
+
+    @Test
+    public void dragOver_singlePage() throws Exception {
+        benchmarkDragOver("singlePage", 6, 5, false);
+    }
+
+    @Test
+    public void dragOver_multiPage() throws Exception {
+        benchmarkDragOver("multiPage", 8, 5, true);
+    }
+
+    private void benchmarkReorder(String name, int width, int height, boolean isMulti)
+            throws Exception {
+        List<CellLayoutBoard> boards = SyntheticWorkspace.generateBoards(
+                BOARD_COUNT, width, height, 0.7f, isMulti);
+        Random random = new Random(SEED);
+        List<CellLayout> layouts = new ArrayList<>();
+        List<int[]> drops = new ArrayList<>();
+        for (CellLayoutBoard board : boards) {
+            layouts.add(createCellLayout(board, isMulti));
+            // x, y, spanX, spanY of the dragged widget
+            int spanX = 1 + random.nextInt(3);
+            int spanY = 1 + random.nextInt(2);
+            drops.add(new int[] {random.nextInt(width - spanX + 1),
+                    random.nextInt(height - spanY + 1), spanX, spanY});
+        }
+
+        int[] pixel = new int[2];
+        mBenchmarkRule.measureRepeated("calculateReorder_" + name, bh -> {
+            for (int i = 0; i < layouts.size(); i++) {
+                CellLayout cl = layouts.get(i);
+                int[] drop = drops.get(i);
+                cl.regionToCenterPoint(drop[0], drop[1], drop[2], drop[3], pixel);
+                ItemConfiguration configuration = new ItemConfiguration();
+                cl.copyCurrentStateToSolution(configuration);
+                bh.consume(cl.getReorderAlgorithm().calculateReorder(new ReorderParameters(
+                        pixel[0], pixel[1], drop[2], drop[3], 1, 1, null, configuration)));
+            }
+        });
+    }
+
+    private void benchmarkDragOver(String name, int width, int height, boolean isMulti)
+            throws Exception {
+        List<CellLayoutBoard> boards = SyntheticWorkspace.generateBoards(
+                BOARD_COUNT, width, height, 0.7f, isMulti);
+        List<CellLayout> layouts = new ArrayList<>();
+        for (CellLayoutBoard board : boards) {
+            layouts.add(createCellLayout(board, isMulti));
+        }
+
+        // Each frame moves a 2x2 widget to the next cell, row by row, then to the next board
+        int[] frame = new int[1];
+        int[] pixel = new int[2];
+        int cellsPerBoard = (width - 1) * (height - 1);
+        mBenchmarkRule.measureFrames("dragOver_" + name, FRAME_COUNT, bh -> {
+            int cell = frame[0] % cellsPerBoard;
+            CellLayout cl = layouts.get((frame[0] / cellsPerBoard) % layouts.size());
+            frame[0]++;
+            cl.regionToCenterPoint(cell % (width - 1), cell / (width - 1), 2, 2, pixel);
+            bh.consume(cl.calculateReorder(pixel[0], pixel[1], 1, 1, 2, 2, null));
+        });
+    }
+
+    private CellLayout createCellLayout(CellLayoutBoard board, boolean isMulti) {
+        CellLayout cl = mCellLayoutBuilder.createCellLayout(
+                board.getWidth(), board.getHeight(), isMulti);
+        for (IconPoint icon : board.getIcons()) {
+            addView(cl, icon.getCoord().x, icon.getCoord().y, 1, 1, false);
+        }
+        for (WidgetRect widget : board.getWidgets()) {
+            addView(cl, widget.getCellX(), widget.getCellY(), widget.getSpanX(),
+                    widget.getSpanY(), true);
+        }
+        return cl;
+    }
+
+    private void addView(CellLayout cl, int cellX, int cellY, int spanX, int spanY,
+            boolean isWidget) {
+        View cell = isWidget ? new View(mContext) : new DoubleShadowBubbleTextView(mContext);
+        CellLayoutLayoutParams lp = new CellLayoutLayoutParams(cellX, cellY, spanX, spanY);
+        cell.setLayoutParams(lp);
+        cl.addViewToCellLayout(cell, -1, cell.getId(), lp, true);
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import android.graphics.Point;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.benchmark.BenchmarkRule;
+import com.android.launcher3.benchmark.SyntheticWorkspace;
+import com.android.launcher3.celllayout.board.CellLayoutBoard;
+import com.android.launcher3.celllayout.board.IconPoint;
+import com.android.launcher3.celllayout.board.WidgetRect;
+import com.android.launcher3.model.GridSizeMigrationUtil.DbEntry;
+import com.android.launcher3.util.PackedGridOccupancy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Benchmarks for the item placement of {@link GridSizeMigrationUtil}, migrating a multi page
+ * workspace to a smaller grid. The database access is left out as it is not representative on
+ * the host.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class GridSizeMigrationBenchmark {
+
+    private static final int PAGE_COUNT = 10;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void placement_6x5To4x4() throws Exception {
+        benchmarkPlacement("6x5To4x4", 6, 5, new Point(4, 4));
+    }
+
+    @Test
+    public void placement_5x5To4x5() throws Exception {
+        benchmarkPlacement("5x5To4x5", 5, 5, new Point(4, 5));
+    }
+
+    private void benchmarkPlacement(String name, int srcX, int srcY, Point trg)
+            throws Exception {
+        List<DbEntry> srcEntries = new ArrayList<>();
+        List<CellLayoutBoard> boards =
+                SyntheticWorkspace.generateBoards(PAGE_COUNT, srcX, srcY, 0.8f, false);
+        for (int screenId = 0; screenId < boards.size(); screenId++) {
+            CellLayoutBoard board = boards.get(screenId);
+            for (WidgetRect widget : board.getWidgets()) {
+                srcEntries.add(createEntry(screenId, widget.getCellX(), widget.getCellY(),
+                        widget.getSpanX(), widget.getSpanY()));
+            }
+            for (IconPoint icon : board.getIcons()) {
+                srcEntries.add(createEntry(screenId, icon.getCoord().x, icon.getCoord().y, 1, 1));
+            }
+        }
+
+        mBenchmarkRule.measureRepeated("placement_" + name, bh -> {
+            // Placement modifies the entries, so work on copies like the migration does after
+            // reading the source table
+            List<DbEntry> toPlace = new ArrayList<>(srcEntries.size());
+            for (DbEntry src : srcEntries) {
+                toPlace.add(createEntry(src.screenId, src.cellX, src.cellY, src.spanX,
+                        src.spanY));
+            }
+            Collections.sort(toPlace);
+
+            int screenId = 0;
+            while (!toPlace.isEmpty()) {
+                PackedGridOccupancy occupied = new PackedGridOccupancy(trg.x, trg.y);
+                Point next = new Point(0, 0);
+                Iterator<DbEntry> iterator = toPlace.iterator();
+                while (iterator.hasNext()) {
+                    DbEntry entry = iterator.next();
+                    if (entry.minSpanX > trg.x || entry.minSpanY > trg.y) {
+                        iterator.remove();
+                    } else if (GridSizeMigrationUtil.findPlacementForEntry(
+                            entry, next, trg, occupied, screenId)) {
+                        iterator.remove();
+                    }
+                }
+                screenId++;
+            }
+            bh.consume(screenId);
+        });
+    }
+
+    private static DbEntry createEntry(int screenId, int cellX, int cellY, int spanX,
+            int spanY) {
+        DbEntry entry = new DbEntry();
+        entry.screenId = screenId;
+        entry.cellX = cellX;
+        entry.cellY = cellY;
+        entry.spanX = spanX;
+        entry.spanY = spanY;
+        // Widgets can shrink to half their size
+        entry.minSpanX = Math.max(1, spanX / 2);
+        entry.minSpanY = Math.max(1, spanY / 2);
+        return entry;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.search;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.benchmark.BenchmarkRule;
+import com.android.launcher3.benchmark.SyntheticApps;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.search.StringMatcherUtility.StringMatcher;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+/**
+ * Benchmarks for {@link StringMatcherUtility} and {@link AppTitleSearchIndex}, matching typed
+ * prefixes against all the app titles like the default app search does.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class StringMatcherBenchmark {
+
+    private static final int APP_COUNT = 300;
+    private static final int MAX_RESULTS = 5;
+    private static final String[] QUERIES = {"c", "ca", "cal", "lo", "ma ps", "st", "pro", "xyz"};
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void matches_allTitles() throws Exception {
+        List<AppInfo> apps = SyntheticApps.generateApps(APP_COUNT);
+        String[] titles = apps.stream().map(app -> app.title.toString()).toArray(String[]::new);
+        StringMatcher matcher = StringMatcher.getInstance();
+        mBenchmarkRule.measureRepeated("matches_allTitles", bh -> {
+            for (String query : QUERIES) {
+                for (String title : titles) {
+                    bh.consume(StringMatcherUtility.matches(query, title, matcher));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void appTitleSearchIndex_query() throws Exception {
+        AppTitleSearchIndex index = new AppTitleSearchIndex();
+        SyntheticApps.generateApps(APP_COUNT).forEach(index::update);
+        mBenchmarkRule.measureRepeated("appTitleSearchIndex_query", bh -> {
+            for (String query : QUERIES) {
+                bh.consume(index.query(query, MAX_RESULTS));
+            }
+        });
+    }
+
+    @Test
+    public void appTitleSearchIndex_build() throws Exception {
+        List<AppInfo> apps = SyntheticApps.generateApps(APP_COUNT);
+        mBenchmarkRule.measureRepeated("appTitleSearchIndex_build", bh -> {
+            AppTitleSearchIndex index = new AppTitleSearchIndex();
+            apps.forEach(index::update);
+            bh.consume(index.size());
+        });
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.benchmark.BenchmarkRule;
+import com.android.launcher3.benchmark.SyntheticWorkspace;
+import com.android.launcher3.celllayout.board.CellLayoutBoard;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks for {@link GridOccupancy} and {@link PackedGridOccupancy}
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class GridOccupancyBenchmark {
+
+    private static final int BOARD_COUNT = 50;
+    private static final int[][] SPANS = {{1, 1}, {2, 2}, {4, 2}};
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void findVacantCell_phoneGrid() throws Exception {
+        benchmarkFindVacantCell("phone", 5, 5);
+    }
+
+    @Test
+    public void findVacantCell_8x8Grid() throws Exception {
+        benchmarkFindVacantCell("8x8", 8, 8);
+    }
+
+    @Test
+    public void findVacantCell_tabletGrid() throws Exception {
+        benchmarkFindVacantCell("tablet", 10, 8);
+    }
+
+    @Test
+    public void findVacantCell_largeGrid() throws Exception {
+        benchmarkFindVacantCell("large", 13, 13);
+    }
+
+    @Test
+    public void isRegionVacant_tabletGrid() throws Exception {
+        List<CellLayoutBoard> boards = generateBoards(10, 8);
+        List<GridOccupancy> grids = toOccupancy(boards);
+        List<PackedGridOccupancy> packedGrids = toPackedOccupancy(boards);
+        mBenchmarkRule.measureRepeated("isRegionVacant_tablet", bh -> {
+            for (GridOccupancy grid : grids) {
+                for (int y = 0; y < 8 - 2; y++) {
+                    for (int x = 0; x < 10 - 3; x++) {
+                        bh.consume(grid.isRegionVacant(x, y, 3, 2));
+                    }
+                }
+            }
+        });
+        mBenchmarkRule.measureRepeated("isRegionVacant_tablet_packed", bh -> {
+            for (PackedGridOccupancy grid : packedGrids) {
+                for (int y = 0; y < 8 - 2; y++) {
+                    for (int x = 0; x < 10 - 3; x++) {
+                        bh.consume(grid.isRegionVacant(x, y, 3, 2));
+                    }
+                }
+            }
+        });
+    }
+
+    @Test
+    public void markAndCopy() throws Exception {
+        List<CellLayoutBoard> boards = generateBoards(10, 8);
+        List<GridOccupancy> grids = toOccupancy(boards);
+        GridOccupancy dest = new GridOccupancy(10, 8);
+        mBenchmarkRule.measureRepeated("markAndCopy", bh -> {
+            for (GridOccupancy grid : grids) {
+                grid.copyTo(dest);
+                dest.markCells(2, 2, 3, 2, true);
+                bh.consume(dest.isRegionVacant(0, 0, 2, 2));
+                dest.clear();
+            }
+        });
+
+        List<PackedGridOccupancy> packedGrids = toPackedOccupancy(boards);
+        PackedGridOccupancy packedDest = new PackedGridOccupancy(10, 8);
+        mBenchmarkRule.measureRepeated("markAndCopy_packed", bh -> {
+            for (PackedGridOccupancy grid : packedGrids) {
+                grid.copyTo(packedDest);
+                packedDest.markCells(2, 2, 3, 2, true);
+                bh.consume(packedDest.isRegionVacant(0, 0, 2, 2));
+                packedDest.clear();
+            }
+        });
+    }
+
+    private void benchmarkFindVacantCell(String name, int width, int height) throws Exception {
+        List<CellLayoutBoard> boards = generateBoards(width, height);
+        List<GridOccupancy> grids = toOccupancy(boards);
+        List<PackedGridOccupancy> packedGrids = toPackedOccupancy(boards);
+        int[] vacant = new int[2];
+        for (int[] span : SPANS) {
+            String spanName = "_" + span[0] + "x" + span[1];
+            mBenchmarkRule.measureRepeated("findVacantCell_" + name + spanName, bh -> {
+                for (GridOccupancy grid : grids) {
+                    bh.consume(grid.findVacantCell(vacant, span[0], span[1]));
+                }
+            });
+            mBenchmarkRule.measureRepeated("findVacantCell_" + name + spanName + "_packed", bh -> {
+                for (PackedGridOccupancy grid : packedGrids) {
+                    bh.consume(grid.findVacantCell(vacant, span[0], span[1]));
+                }
+            });
+        }
+    }
+
+    private static List<CellLayoutBoard> generateBoards(int width, int height) {
+        // Leave some space empty so that the search does not always fail
+        return SyntheticWorkspace.generateBoards(BOARD_COUNT, width, height, 0.8f, false);
+    }
+
+    private static List<GridOccupancy> toOccupancy(List<CellLayoutBoard> boards) {
+        return boards.stream()
+                .map(SyntheticWorkspace::toOccupancy)
+                .collect(Collectors.toList());
+    }
+
+    private static List<PackedGridOccupancy> toPackedOccupancy(List<CellLayoutBoard> boards) {
+        return boards.stream()
+                .map(SyntheticWorkspace::toPackedOccupancy)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.android.launcher3.benchmark.BenchmarkRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+/**
+ * Benchmarks for {@link IntSparseArrayMap}, sized like the item map of a large workspace
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class IntSparseArrayMapBenchmark {
+
+    private static final int ITEM_COUNT = 1000;
+    private static final int SEED = 42;
+
+    @Rule
+    public BenchmarkRule mBenchmarkRule = new BenchmarkRule();
+
+    @Test
+    public void put_sequentialIds() throws Exception {
+        mBenchmarkRule.measureRepeated("put_sequentialIds", bh -> {
+            IntSparseArrayMap<Object> map = new IntSparseArrayMap<>();
+            for (int i = 0; i < ITEM_COUNT; i++) {
+                map.put(i, this);
+            }
+            bh.consume(map.size());
+        });
+    }
+
+    @Test
+    public void put_randomIds() throws Exception {
+        int[] ids = randomIds();
+        mBenchmarkRule.measureRepeated("put_randomIds", bh -> {
+            IntSparseArrayMap<Object> map = new IntSparseArrayMap<>();
+            for (int id : ids) {
+                map.put(id, this);
+            }
+            bh.consume(map.size());
+        });
+    }
+
+    @Test
+    public void containsKeyAndGet() throws Exception {
+        int[] ids = randomIds();
+        IntSparseArrayMap<Object> map = new IntSparseArrayMap<>();
+        for (int i = 0; i < ids.length; i += 2) {
+            map.put(ids[i], this);
+        }
+        mBenchmarkRule.measureRepeated("containsKeyAndGet", bh -> {
+            for (int id : ids) {
+                if (map.containsKey(id)) {
+                    bh.consume(map.get(id));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void iterateAndClone() throws Exception {
+        IntSparseArrayMap<Object> map = new IntSparseArrayMap<>();
+        for (int id : randomIds()) {
+            map.put(id, this);
+        }
+        mBenchmarkRule.measureRepeated("iterate", bh -> {
+            for (Object item : map) {
+                bh.consume(item);
+            }
+        });
+        mBenchmarkRule.measureRepeated("clone", bh -> bh.consume(map.clone()));
+    }
+
+    private static int[] randomIds() {
+        Random random = new Random(SEED);
+        int[] ids = new int[ITEM_COUNT];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextInt(ITEM_COUNT * 10);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.launcher3.allapps;
+
+import static androidx.test.core.app.ApplicationProvider.getApplicationContext;
+
+import static com.android.launcher3.config.FeatureFlags.ENABLE_ALL_APPS_ICON_INDEX;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import android.content.ComponentName;
+import android.os.Process;
+import android.widget.FrameLayout;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import com.android.launcher3.BubbleTextView;
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.util.ActivityContextWrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit tests for {@link AllAppsStore}. */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AllAppsStoreTest {
+
+    private static final String PACKAGE_1 = "com.example.one";
+    private static final String PACKAGE_2 = "com.example.two";
+
+    private ActivityContextWrapper mContext;
+    private AllAppsStore<ActivityContextWrapper> mAllAppsStore;
+    private FrameLayout mContainer;
+
+    @Before
+    public void setUp() {
+        mContext = new ActivityContextWrapper(getApplicationContext());
+        mAllAppsStore = new AllAppsStore<>(mContext);
+        mContainer = new FrameLayout(mContext);
+    }
+
+    @Test
+    public void getLastVisitedIconCount_beforeAnyUpdate_isZero() {
+        mAllAppsStore.registerIconContainer(mContainer);
+        addIcon(PACKAGE_1);
+
+        assertEquals(0, mAllAppsStore.getLastVisitedIconCount());
+    }
+
+    @Test
+    public void getLastVisitedIconCount_scannedContainer_countsEveryChild() {
+        mAllAppsStore.registerIconContainer(mContainer);
+        addIcon(PACKAGE_1);
+        addIcon(PACKAGE_2);
+        addIcon(PACKAGE_2);
+
+        mAllAppsStore.updateProgressBar(newApp(PACKAGE_1));
+        assertEquals(3, mAllAppsStore.getLastVisitedIconCount());
+
+        // The count is for the last update only
+        mAllAppsStore.updateNotificationDots(key -> false);
+        assertEquals(3, mAllAppsStore.getLastVisitedIconCount());
+    }
+
+    @Test
+    public void getLastVisitedIconCount_indexedContainer_countsIconsOfPackage() {
+        assumeTrue(ENABLE_ALL_APPS_ICON_INDEX.get());
+        mAllAppsStore.registerIconContainer(mContainer, true /* reportsBoundIcons */);
+        mAllAppsStore.onIconBound(addIcon(PACKAGE_1));
+        mAllAppsStore.onIconBound(addIcon(PACKAGE_2));
+        mAllAppsStore.onIconBound(addIcon(PACKAGE_2));
+
+        mAllAppsStore.updateProgressBar(newApp(PACKAGE_2));
+        assertEquals(2, mAllAppsStore.getLastVisitedIconCount());
+
+        mAllAppsStore.updateNotificationDots(key -> false);
+        assertEquals(0, mAllAppsStore.getLastVisitedIconCount());
+    }
+
+    private BubbleTextView addIcon(String packageName) {
+        BubbleTextView icon = new BubbleTextView(mContext);
+        // A different object than the updated app, so that the icon is only visited
+        icon.setTag(newApp(packageName));
+        mContainer.addView(icon);
+        return icon;
+    }
+
+    private static AppInfo newApp(String packageName) {
+        ComponentName cn = new ComponentName(packageName, packageName + ".Main");
+        return new AppInfo(cn, packageName, Process.myUserHandle(),
+                AppInfo.makeLaunchIntent(cn));
+    }
+}
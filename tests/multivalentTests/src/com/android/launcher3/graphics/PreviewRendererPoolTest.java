@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.graphics;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+import android.view.View;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.launcher3.graphics.PreviewRendererPool.Key;
+import com.android.launcher3.graphics.PreviewRendererPool.Preview;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/** Unit tests for {@link PreviewRendererPool}. */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PreviewRendererPoolTest {
+
+    private static final long SIGNATURE = 1;
+    private static final Key KEY = new Key("4x4", 0, 100, 200, null);
+
+    private Context mContext;
+    private PreviewRendererPool mPool;
+
+    @Before
+    public void setup() {
+        mContext = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mPool = new PreviewRendererPool(mContext);
+    }
+
+    @Test
+    public void acquire_samePreview_notDestroyed() {
+        Preview preview = newPreview();
+        mPool.release(KEY, preview);
+
+        assertSame(preview, mPool.acquire(KEY, SIGNATURE));
+        assertFalse(preview.onEvict.isDestroyed());
+        assertFalse(mPool.contains(KEY));
+    }
+
+    @Test
+    public void acquire_differentSignature_destroysPreview() {
+        Preview preview = newPreview();
+        mPool.release(KEY, preview);
+
+        assertNull(mPool.acquire(KEY, SIGNATURE + 1));
+        assertTrue(preview.onEvict.isDestroyed());
+    }
+
+    @Test
+    public void release_replacingPreview_destroysOldPreview() {
+        Preview oldPreview = newPreview();
+        Preview newPreview = newPreview();
+        mPool.release(KEY, oldPreview);
+        mPool.release(KEY, newPreview);
+
+        assertTrue(oldPreview.onEvict.isDestroyed());
+        assertFalse(newPreview.onEvict.isDestroyed());
+    }
+
+    @Test
+    public void clear_destroysPooledPreviews() {
+        Preview preview = newPreview();
+        mPool.release(KEY, preview);
+        assertTrue(mPool.contains(KEY));
+
+        mPool.clear();
+        assertTrue(preview.onEvict.isDestroyed());
+        assertFalse(mPool.contains(KEY));
+    }
+
+    private Preview newPreview() {
+        return new Preview(mock(LauncherPreviewRenderer.class), new View(mContext), SIGNATURE);
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for {@link LabelComparator}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class LabelComparatorTest {
+
+    private static final List<String> TITLES = Arrays.asList(
+            "Maps", "#Hashtag", "calendar", "Calculator", "2048", "", "Éclair", "camera", "_app");
+
+    @Test
+    public void sortWithKeys_sameOrderAsTitles() {
+        LabelComparator comparator = new LabelComparator();
+        List<String> sortedTitles = new ArrayList<>(TITLES);
+        sortedTitles.sort(comparator);
+
+        List<LabelComparator.Key> keys = new ArrayList<>();
+        for (String title : TITLES) {
+            keys.add(comparator.getKey(title));
+        }
+        keys.sort(comparator::compare);
+        List<String> sortedKeys = new ArrayList<>();
+        for (LabelComparator.Key key : keys) {
+            sortedKeys.add(key.title());
+        }
+
+        assertThat(sortedKeys).containsExactlyElementsIn(sortedTitles).inOrder();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+/**
+ * Unit tests for {@link PackedGridOccupancy}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class PackedGridOccupancyTest {
+
+    @Test
+    public void testFindVacantCell() {
+        PackedGridOccupancy grid = initGrid(4,
+                1, 1, 1, 0, 0,
+                0, 0, 1, 1, 0,
+                0, 0, 0, 0, 0,
+                1, 1, 0, 0, 0
+        );
+
+        int[] vacant = new int[2];
+        assertTrue(grid.findVacantCell(vacant, 2, 2));
+        assertEquals(vacant[0], 0);
+        assertEquals(vacant[1], 1);
+
+        assertTrue(grid.findVacantCell(vacant, 3, 2));
+        assertEquals(vacant[0], 2);
+        assertEquals(vacant[1], 2);
+
+        assertFalse(grid.findVacantCell(vacant, 3, 3));
+    }
+
+    @Test
+    public void testIsRegionVacant() {
+        PackedGridOccupancy grid = initGrid(4,
+                1, 1, 1, 0, 0,
+                0, 0, 1, 1, 0,
+                0, 0, 0, 0, 0,
+                1, 1, 0, 0, 0
+        );
+
+        assertTrue(grid.isRegionVacant(4, 0, 1, 4));
+        assertTrue(grid.isRegionVacant(0, 1, 2, 2));
+        assertTrue(grid.isRegionVacant(2, 2, 3, 2));
+
+        assertFalse(grid.isRegionVacant(3, 0, 2, 4));
+        assertFalse(grid.isRegionVacant(0, 0, 2, 1));
+        assertFalse(grid.isRegionVacant(4, 0, 2, 1));
+    }
+
+    @Test
+    public void testMarkCells_clipsToGrid() {
+        PackedGridOccupancy grid = new PackedGridOccupancy(4, 4);
+        grid.markCells(2, 2, 5, 5, true);
+        grid.markCells(-1, 0, 2, 2, true);
+
+        assertTrue(grid.isOccupied(3, 3));
+        assertFalse(grid.isOccupied(4, 3));
+        assertFalse(grid.isOccupied(0, 0));
+
+        grid.markCells(3, 2, 1, 1, false);
+        assertFalse(grid.isOccupied(3, 2));
+        assertTrue(grid.isOccupied(2, 2));
+    }
+
+    @Test
+    public void testMaxColumns() {
+        PackedGridOccupancy grid = new PackedGridOccupancy(PackedGridOccupancy.MAX_COLUMNS, 2);
+        grid.markCells(0, 0, PackedGridOccupancy.MAX_COLUMNS - 1, 2, true);
+
+        int[] vacant = new int[2];
+        assertTrue(grid.findVacantCell(vacant, 1, 2));
+        assertEquals(PackedGridOccupancy.MAX_COLUMNS - 1, vacant[0]);
+        assertFalse(grid.findVacantCell(vacant, 2, 1));
+    }
+
+    @Test
+    public void testMatchesGridOccupancy() {
+        Random random = new Random(123);
+        int[] expected = new int[2];
+        int[] actual = new int[2];
+        for (int i = 0; i < 200; i++) {
+            int countX = 1 + random.nextInt(13);
+            int countY = 1 + random.nextInt(13);
+            GridOccupancy reference = new GridOccupancy(countX, countY);
+            PackedGridOccupancy grid = new PackedGridOccupancy(countX, countY);
+            for (int j = random.nextInt(countX * countY); j > 0; j--) {
+                int x = random.nextInt(countX);
+                int y = random.nextInt(countY);
+                int spanX = 1 + random.nextInt(3);
+                int spanY = 1 + random.nextInt(3);
+                reference.markCells(x, y, spanX, spanY, true);
+                grid.markCells(x, y, spanX, spanY, true);
+            }
+
+            PackedGridOccupancy copy = new PackedGridOccupancy(countX, countY);
+            grid.copyTo(copy);
+            for (int spanX = 1; spanX <= countX; spanX++) {
+                for (int spanY = 1; spanY <= countY; spanY++) {
+                    assertEquals(reference.findVacantCell(expected, spanX, spanY),
+                            copy.findVacantCell(actual, spanX, spanY));
+                    assertArrayEquals(expected, actual);
+                    int x = random.nextInt(countX);
+                    int y = random.nextInt(countY);
+                    assertEquals(reference.isRegionVacant(x, y, spanX, spanY),
+                            copy.isRegionVacant(x, y, spanX, spanY));
+                }
+            }
+        }
+    }
+
+    private PackedGridOccupancy initGrid(int rows, int... cells) {
+        int cols = cells.length / rows;
+        int i = 0;
+        PackedGridOccupancy grid = new PackedGridOccupancy(cols, rows);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                grid.markCells(x, y, 1, 1, cells[i] != 0);
+                i++;
+            }
+        }
+        return grid;
+    }
+}
@@ -45,6 +45,9 @@ class TestResourceHelper(private val context: Context, specsFileId: Int) :
         return context.obtainStyledAttributes(attrs, clone)
     }
 
+    // The styleables are converted for the test context, so the parsed specs are not shared
+    override fun <T : Any> getOrParse(tag: String, parse: () -> T): T = parse()
+
     private fun convertStyleId(styleableArr: IntArray): IntArray {
         val targetContextRes = getInstrumentation().targetContext.resources
         val context = getInstrumentation().context
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.icons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.MediumTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link IconBitmapPack}, including a cold-load comparison against decoding the same
+ * icons from SQLite blobs.
+ */
+@MediumTest
+@RunWith(AndroidJUnit4.class)
+public class IconBitmapPackTest {
+
+    private static final String TAG = "IconBitmapPackTest";
+    private static final String SYSTEM_STATE = "test-state";
+    private static final int ICON_SIZE = 168;
+    private static final int ICON_COUNT = 40;
+    private static final int ITERATIONS = 5;
+
+    private File mPackFile;
+    private List<IconBitmapPack.PackEntry> mEntries;
+
+    @Before
+    public void setup() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        mPackFile = new File(context.getCacheDir(), "test_icons.pack");
+        mPackFile.delete();
+        mEntries = new ArrayList<>();
+        for (int i = 0; i < ICON_COUNT; i++) {
+            Bitmap icon = Bitmap.createBitmap(ICON_SIZE, ICON_SIZE, Bitmap.Config.ARGB_8888);
+            icon.eraseColor(Color.rgb(i * 5, 255 - i * 5, i));
+            mEntries.add(new IconBitmapPack.PackEntry(
+                    new ComponentName("com.test.pkg" + i, "com.test.Activity"),
+                    "App " + i, icon, Color.RED));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        mPackFile.delete();
+    }
+
+    @Test
+    public void write_thenRead_returnsSamePixels() {
+        new IconBitmapPack(mPackFile, ICON_SIZE).write(SYSTEM_STATE, mEntries, 0);
+
+        IconBitmapPack pack = new IconBitmapPack(mPackFile, ICON_SIZE);
+        for (IconBitmapPack.PackEntry entry : mEntries) {
+            assertEquals(entry.title, pack.getTitle(SYSTEM_STATE, entry.component));
+            BitmapInfo info = pack.getIcon(SYSTEM_STATE, entry.component);
+            assertNotNull(info);
+            assertEquals(entry.color, info.color);
+            assertTrue(entry.icon.sameAs(info.icon));
+        }
+    }
+
+    @Test
+    public void read_withDifferentSystemStateOrSize_isIgnored() {
+        ComponentName cn = mEntries.get(0).component;
+        new IconBitmapPack(mPackFile, ICON_SIZE).write(SYSTEM_STATE, mEntries, 0);
+        assertNull(new IconBitmapPack(mPackFile, ICON_SIZE + 1).getTitle(SYSTEM_STATE, cn));
+
+        new IconBitmapPack(mPackFile, ICON_SIZE).write(SYSTEM_STATE, mEntries, 0);
+        assertNull(new IconBitmapPack(mPackFile, ICON_SIZE).getTitle("other-state", cn));
+    }
+
+    @Test
+    public void write_afterInvalidate_isSkipped() {
+        IconBitmapPack pack = new IconBitmapPack(mPackFile, ICON_SIZE);
+        int generation = pack.getGeneration();
+        pack.invalidate();
+        pack.write(SYSTEM_STATE, mEntries, generation);
+
+        assertNull(new IconBitmapPack(mPackFile, ICON_SIZE)
+                .getTitle(SYSTEM_STATE, mEntries.get(0).component));
+    }
+
+    @Test
+    public void benchmark_coldLoad_packVsSqlite() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        db.execSQL("CREATE TABLE icons (componentName TEXT PRIMARY KEY, icon BLOB, label TEXT)");
+        for (IconBitmapPack.PackEntry entry : mEntries) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            entry.icon.compress(Bitmap.CompressFormat.PNG, 100, out);
+            ContentValues values = new ContentValues();
+            values.put("componentName", entry.component.flattenToString());
+            values.put("icon", out.toByteArray());
+            values.put("label", entry.title);
+            db.insert("icons", null, values);
+        }
+        new IconBitmapPack(mPackFile, ICON_SIZE).write(SYSTEM_STATE, mEntries, 0);
+
+        long sqliteNanos = 0;
+        long packNanos = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = SystemClock.elapsedRealtimeNanos();
+            int decoded = 0;
+            try (Cursor c = db.query("icons", new String[]{"icon", "label"},
+                    null, null, null, null, null)) {
+                while (c.moveToNext()) {
+                    byte[] data = c.getBlob(0);
+                    if (BitmapFactory.decodeByteArray(data, 0, data.length) != null) {
+                        decoded++;
+                    }
+                }
+            }
+            sqliteNanos += SystemClock.elapsedRealtimeNanos() - start;
+            assertEquals(ICON_COUNT, decoded);
+
+            start = SystemClock.elapsedRealtimeNanos();
+            IconBitmapPack pack = new IconBitmapPack(mPackFile, ICON_SIZE);
+            for (IconBitmapPack.PackEntry entry : mEntries) {
+                assertNotNull(pack.getIcon(SYSTEM_STATE, entry.component));
+            }
+            packNanos += SystemClock.elapsedRealtimeNanos() - start;
+        }
+        db.close();
+
+        Log.d(TAG, "Cold load of " + ICON_COUNT + " icons: sqlite="
+                + sqliteNanos / ITERATIONS / 1000 + "us pack="
+                + packNanos / ITERATIONS / 1000 + "us");
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import android.content.ComponentName;
+import android.os.Process;
+import android.os.UserHandle;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.android.launcher3.AppFilter;
+import com.android.launcher3.icons.IconCache;
+import com.android.launcher3.model.data.AppInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Unit tests for the lookups of {@link AllAppsList}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AllAppsListTest {
+
+    private static final String PKG_1 = "com.test.pkg1";
+    private static final String PKG_2 = "com.test.pkg2";
+
+    private final UserHandle mUser = Process.myUserHandle();
+    private final UserHandle mOtherUser = UserHandle.of(mUser.getIdentifier() + 10);
+
+    private AllAppsList mAllAppsList;
+
+    @Before
+    public void setup() {
+        mAllAppsList = new AllAppsList(mock(IconCache.class),
+                new AppFilter(InstrumentationRegistry.getInstrumentation().getTargetContext()));
+    }
+
+    @Test
+    public void add_isFoundAndNotDuplicated() {
+        AppInfo app = addApp(PKG_1, "Main", mUser);
+        addApp(PKG_1, "Main", mUser);
+
+        assertSame(app, mAllAppsList.findAppInfo(app.componentName, mUser));
+        assertNull(mAllAppsList.findAppInfo(app.componentName, mOtherUser));
+        assertEquals(1, mAllAppsList.data.size());
+    }
+
+    @Test
+    public void removePackage_onlyRemovesPackageForUser() {
+        AppInfo main = addApp(PKG_1, "Main", mUser);
+        AppInfo second = addApp(PKG_1, "Second", mUser);
+        AppInfo otherUser = addApp(PKG_1, "Main", mOtherUser);
+        AppInfo otherPackage = addApp(PKG_2, "Main", mUser);
+
+        mAllAppsList.removePackage(PKG_1, mUser);
+
+        assertNull(mAllAppsList.findAppInfo(main.componentName, mUser));
+        assertNull(mAllAppsList.findAppInfo(second.componentName, mUser));
+        assertSame(otherUser, mAllAppsList.findAppInfo(otherUser.componentName, mOtherUser));
+        assertSame(otherPackage, mAllAppsList.findAppInfo(otherPackage.componentName, mUser));
+        assertEquals(Arrays.asList(otherUser, otherPackage), mAllAppsList.data);
+
+        // Removed apps can be added again
+        AppInfo readded = addApp(PKG_1, "Main", mUser);
+        assertSame(readded, mAllAppsList.findAppInfo(readded.componentName, mUser));
+    }
+
+    @Test
+    public void removePackage_interleavedApps_reportsEachRemovedApp() {
+        AppInfo main = addApp(PKG_1, "Main", mUser);
+        AppInfo otherPackage = addApp(PKG_2, "Main", mUser);
+        AppInfo second = addApp(PKG_1, "Second", mUser);
+        List<AppInfo> removed = new ArrayList<>();
+
+        mAllAppsList.trackRemoves(removed::add);
+        mAllAppsList.removePackage(PKG_1, mUser);
+
+        assertEquals(Arrays.asList(main, second), removed);
+        assertEquals(Arrays.asList(otherPackage), mAllAppsList.data);
+    }
+
+    @Test
+    public void clear_removesAllLookups() {
+        AppInfo app = addApp(PKG_1, "Main", mUser);
+
+        mAllAppsList.clear();
+
+        assertNull(mAllAppsList.findAppInfo(app.componentName, mUser));
+        mAllAppsList.removePackage(PKG_1, mUser);
+        assertEquals(0, mAllAppsList.data.size());
+    }
+
+    private AppInfo addApp(String packageName, String className, UserHandle user) {
+        AppInfo info = new AppInfo(new ComponentName(packageName, packageName + "." + className),
+                className, user, null);
+        mAllAppsList.add(info, null, false /* loadIcon */);
+        return info;
+    }
+}
@@ -220,6 +220,8 @@ public class LoaderCursorTest {
 
         assertFalse(mLoaderCursor.checkItemPlacement(
                 newItemInfo(3, 3, 1, 1, CONTAINER_HOTSEAT, 3), true));
+        assertFalse(mLoaderCursor.checkItemPlacement(
+                newItemInfo(3, 3, 1, 1, CONTAINER_HOTSEAT, -1), true));
     }
 
     private ItemInfo newItemInfo(int cellX, int cellY, int spanX, int spanY,
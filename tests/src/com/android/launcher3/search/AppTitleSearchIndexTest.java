@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.search;
+
+import static com.android.launcher3.search.StringMatcherUtility.matches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import androidx.test.filters.SmallTest;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.launcher3.model.data.AppInfo;
+import com.android.launcher3.search.StringMatcherUtility.StringMatcher;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Unit tests for {@link AppTitleSearchIndex}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class AppTitleSearchIndexTest {
+
+    private static final String[] TITLES = {
+            "white cow", "whiteCow", "whitecow", "cats&dogs", "2+43", "Elephant", "YouTube",
+            "Play Store", "LEGO®Builder", "电子邮件", "t-mobile", "Agar.io", "Café"};
+    private static final String[] QUERIES = {
+            "white", "white ", "cow", "dog", "&", "43", "3", "e", "el", "tube", "out", "store",
+            "builder", "子", "mobile", "io", "cafe", "x", "c"};
+
+    private AppTitleSearchIndex mIndex;
+    private List<AppInfo> mApps;
+
+    @Before
+    public void setup() {
+        mIndex = new AppTitleSearchIndex();
+        mApps = new ArrayList<>();
+        for (String title : TITLES) {
+            AppInfo info = new AppInfo();
+            info.title = title;
+            mApps.add(info);
+            mIndex.update(info);
+        }
+    }
+
+    @Test
+    public void query_matchesLinearScan() {
+        for (String query : QUERIES) {
+            assertEquals("Query: " + query, linearScan(query), mIndex.query(query, 100));
+        }
+    }
+
+    @Test
+    public void query_respectsMaxResultsAndOrder() {
+        List<AppInfo> results = mIndex.query("c", 2);
+        assertEquals(linearScan("c").subList(0, 2), results);
+    }
+
+    @Test
+    public void query_contractionLocale_matchesLinearScan() {
+        Locale defaultLocale = Locale.getDefault();
+        // In Czech "ch" is a single letter sorted after "h"
+        Locale.setDefault(new Locale("cs", "CZ"));
+        try {
+            // Recreates the matcher for the new locale
+            mIndex.clear();
+            mApps.clear();
+            for (String title : new String[] {"Chrome", "Calendar", "Hodiny", "Čtečka"}) {
+                AppInfo info = new AppInfo();
+                info.title = title;
+                mApps.add(info);
+                mIndex.update(info);
+            }
+
+            assertTrue(mIndex.query("c", 10).contains(mApps.get(0)));
+            for (String query : new String[] {"c", "ch", "h", "č", "ca"}) {
+                assertEquals("Query: " + query, linearScan(query), mIndex.query(query, 100));
+            }
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    public void update_reindexesChangedTitle() {
+        AppInfo info = mApps.get(0);
+        info.title = "Black Horse";
+        mIndex.update(info);
+
+        assertTrue(mIndex.query("horse", 10).contains(info));
+        assertTrue(!mIndex.query("white", 10).contains(info));
+        assertEquals(linearScan("cow"), mIndex.query("cow", 10));
+    }
+
+    @Test
+    public void remove_dropsApp() {
+        AppInfo info = mApps.remove(1);
+        mIndex.remove(info);
+
+        assertEquals(TITLES.length - 1, mIndex.size());
+        assertEquals(linearScan("cow"), mIndex.query("cow", 10));
+    }
+
+    @Test
+    public void clear_removesEverything() {
+        mIndex.clear();
+
+        assertEquals(0, mIndex.size());
+        assertEquals(Arrays.asList(), mIndex.query("white", 10));
+    }
+
+    private List<AppInfo> linearScan(String query) {
+        StringMatcher matcher = StringMatcher.getInstance();
+        List<AppInfo> result = new ArrayList<>();
+        for (AppInfo info : mApps) {
+            if (matches(query.toLowerCase(), info.title.toString(), matcher)) {
+                result.add(info);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2024 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.launcher3.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.SmallTest;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.Collections;
+
+/**
+ * Unit tests for {@link WidgetPreviewCache}
+ */
+@SmallTest
+@RunWith(AndroidJUnit4.class)
+public class WidgetPreviewCacheTest {
+
+    private static final String PKG_1 = "com.test.pkg1";
+    private static final String PKG_2 = "com.test.pkg2";
+    private static final long MAX_BYTES = 1024 * 1024;
+
+    private File mDir;
+
+    @Before
+    public void setup() {
+        mDir = new File(InstrumentationRegistry.getInstrumentation().getTargetContext()
+                .getCacheDir(), "test_widget_previews");
+        deleteDir();
+    }
+
+    @After
+    public void tearDown() {
+        deleteDir();
+    }
+
+    @Test
+    public void put_thenGet_returnsSamePreview() {
+        Bitmap preview = createPreview(Color.RED);
+        new WidgetPreviewCache(mDir, MAX_BYTES).put(PKG_1, 0, "key", preview);
+
+        // A new instance rebuilds its index from disk
+        Bitmap cached = new WidgetPreviewCache(mDir, MAX_BYTES).get(PKG_1, 0, "key");
+        assertNotNull(cached);
+        assertTrue(preview.sameAs(cached.copy(Bitmap.Config.ARGB_8888, false)));
+        assertNull(new WidgetPreviewCache(mDir, MAX_BYTES).get(PKG_1, 0, "other key"));
+    }
+
+    @Test
+    public void put_overBudget_evictsLeastRecentlyUsed() {
+        WidgetPreviewCache cache = new WidgetPreviewCache(mDir, MAX_BYTES);
+        cache.put(PKG_1, 0, "a", createPreview(Color.RED));
+        long entrySize = cache.getSizeBytes();
+
+        cache = new WidgetPreviewCache(mDir, entrySize * 2);
+        cache.put(PKG_1, 0, "b", createPreview(Color.RED));
+        assertNotNull(cache.get(PKG_1, 0, "a"));
+        cache.put(PKG_1, 0, "c", createPreview(Color.RED));
+
+        assertNotNull(cache.get(PKG_1, 0, "a"));
+        assertNull(cache.get(PKG_1, 0, "b"));
+        assertNotNull(cache.get(PKG_1, 0, "c"));
+        assertEquals(entrySize * 2, cache.getSizeBytes());
+    }
+
+    @Test
+    public void removePackages_onlyRemovesPackageForUser() {
+        WidgetPreviewCache cache = new WidgetPreviewCache(mDir, MAX_BYTES);
+        cache.put(PKG_1, 0, "key", createPreview(Color.RED));
+        cache.put(PKG_1, 10, "key", createPreview(Color.RED));
+        cache.put(PKG_2, 0, "key", createPreview(Color.RED));
+
+        cache.removePackages(Collections.singleton(PKG_1), 0);
+
+        assertNull(cache.get(PKG_1, 0, "key"));
+        assertNotNull(cache.get(PKG_1, 10, "key"));
+        assertNotNull(cache.get(PKG_2, 0, "key"));
+    }
+
+    private static Bitmap createPreview(int color) {
+        Bitmap preview = Bitmap.createBitmap(100, 60, Bitmap.Config.ARGB_8888);
+        preview.eraseColor(color);
+        return preview;
+    }
+
+    private void deleteDir() {
+        File[] files = mDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        mDir.delete();
+    }
+}